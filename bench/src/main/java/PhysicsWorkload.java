@@ -0,0 +1,76 @@
+//=============================================================================
+// Title:        PhysicsWorkload.java
+// Description:  Workload of one preset (ITER_R=8m or 6m as in itemStateChanged)
+//               and one steady state solver: euler (run() itself), rk45,
+//               rosenbrock, newton or vector (Euler in VectorEngine lanes).
+//=============================================================================
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+import jstar.bench.Workload;
+
+public class PhysicsWorkload implements Workload {
+
+	private final DesignPoint.Builder builder;
+	private final DesignPoint design;
+	private final PlasmaEngine engine;
+	private final SteadyStateSolver newton;
+	private final VectorEngine vector;
+	private final PlasmaState state;
+	private final DesignSweep sweep;
+
+	public PhysicsWorkload(String preset, String solver, int points) {
+		if (preset.equals("R8")) {
+			builder = DesignPoint.iterR8();
+		} else if (preset.equals("R6")) {
+			builder = DesignPoint.iterR6();
+		} else {
+			throw new IllegalArgumentException("preset= " + preset);
+		}
+		design = builder.build();
+		boolean euler = solver.equals("newton") || solver.equals("vector");
+		engine = new PlasmaEngine(Integrator.named(euler ? "euler" : solver));
+		newton = solver.equals("newton") ? new SteadyStateSolver(engine) : null;
+		vector = solver.equals("vector") ? new VectorEngine(engine) : null;
+		state = engine.initial(design);
+		// shape, field, power and fuelling over their full slider ranges
+		sweep = DesignSweep.latinHypercube(design, points, 42, SweepAxis.full(SweepParameter.sv1, 2),
+				SweepAxis.full(SweepParameter.sv2, 2), SweepAxis.full(SweepParameter.boS, 2),
+				SweepAxis.full(SweepParameter.pwS, 2), SweepAxis.full(SweepParameter.mdS, 2));
+	}
+
+	@Override
+	public Object calculate() {
+		return builder.build();
+	}
+
+	@Override
+	public Object step() {
+		return engine.step(state, design);
+	}
+
+	@Override
+	public Object converge() {
+		if (vector != null) {
+			return vector.solve(new DesignPoint[] { design })[0];
+		}
+		return solve(design);
+	}
+
+	@Override
+	public long sweep() {
+		LongAdder steps = new LongAdder();
+		if (vector != null) {
+			sweep.run(ForkJoinPool.commonPool(), (int) DesignSweep.GRAIN, vector::solve,
+					(index, result) -> steps.add(result.itt));
+			return steps.sum();
+		}
+		sweep.run(this::solve, (index, result) -> steps.add(result.itt));
+		return steps.sum();
+	}
+
+	private SteadyState solve(DesignPoint p) {
+		return newton != null ? newton.solve(p) : engine.solve(p);
+	}
+}
@@ -0,0 +1,92 @@
+//=============================================================================
+// Title:        PhysicsBench.java
+// Description:  JMH benchmarks of the hot path behind JStarApp: the calculate()
+//               preamble, one run() integration step, a full convergence to
+//               steady state and an N point design sweep, for the ITER_R=8m
+//               and ITER_R=6m presets. Only converge and sweep depend on the
+//               steady state solver, so only their state has it as a @Param;
+//               calculate and step are the Euler run() of each preset.
+//=============================================================================
+
+package jstar.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class PhysicsBench {
+
+	// workload of a preset with the Euler run() loop
+	@State(Scope.Thread)
+	public static class Preset {
+
+		@Param({ "R8", "R6" })
+		public String preset;
+
+		Workload work;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			work = load();
+		}
+
+		Workload load() {
+			return Workload.load(preset, "euler", 1);
+		}
+	}
+
+	// workload of a preset and steady state solver
+	@State(Scope.Thread)
+	public static class Solver extends Preset {
+
+		@Param({ "euler", "rk45", "rosenbrock", "newton", "vector" })
+		public String solver;
+
+		// points of the sweep benchmark
+		@Param({ "64" })
+		public int points;
+
+		@Override
+		Workload load() {
+			return Workload.load(preset, solver, points);
+		}
+	}
+
+	@Benchmark
+	public Object calculate(Preset s) {
+		return s.work.calculate();
+	}
+
+	@Benchmark
+	public Object step(Preset s) {
+		return s.work.step();
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Object converge(Solver s) {
+		return s.work.converge();
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public long sweep(Solver s) {
+		return s.work.sweep();
+	}
+}
@@ -0,0 +1,33 @@
+//=============================================================================
+// Title:        Workload.java
+// Description:  The benchmarked operations, as seen from the named package JMH
+//               requires. The physics classes live in the default package, so
+//               PhysicsWorkload implements this and is loaded by name once per
+//               trial; the calls themselves are plain interface calls.
+//=============================================================================
+
+package jstar.bench;
+
+public interface Workload {
+
+	// the calculate() preamble: a DesignPoint from the sliders
+	Object calculate();
+
+	// one pass of the run() loop body
+	Object step();
+
+	// steady state of the preset
+	Object converge();
+
+	// solve every point of the sweep, returns the total integration steps
+	long sweep();
+
+	static Workload load(String preset, String solver, int points) {
+		try {
+			return (Workload) Class.forName("PhysicsWorkload").getConstructor(String.class, String.class, int.class)
+					.newInstance(preset, solver, points);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,127 @@
+//=============================================================================
+// Title:        ContinuationTest.java
+// Description:  Traces over pwS across the S-curve of ITER R=8m at mdS 40
+//               (SteadyStateSolverTest): the ignited branch ends at one fold on
+//               the way up, the driven one at another on the way down, both
+//               located where branches() loses the operating point.
+//=============================================================================
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ContinuationTest {
+
+	// between the driven (W_MJ 70-90) and the ignited (W_MJ 135-140) branch
+	static final double W_SPLIT = 100;
+
+	static final PlasmaEngine engine = new PlasmaEngine();
+	static final SteadyStateSolver newton = new SteadyStateSolver(engine);
+	static final DesignPoint base = DesignPoint.iterR8().mdS(40).build();
+	// pwS where the ignited branch ends (going up) and the driven one (going down)
+	static double upperFold, lowerFold;
+
+	@BeforeAll
+	static void folds() {
+		upperFold = edge(32, 33, true);
+		lowerFold = edge(29, 30, false);
+		assertTrue(lowerFold < upperFold);
+	}
+
+	// pwS between lo and hi where an operating point above (or below) W_SPLIT
+	// appears or goes, by bisection over branches()
+	private static double edge(double lo, double hi, boolean ignited) {
+		boolean atLo = has(lo, ignited);
+		assertTrue(atLo != has(hi, ignited));
+		for (int i = 0; i < 30; i++) {
+			double v = 0.5 * (lo + hi);
+			if (has(v, ignited) == atLo) {
+				lo = v;
+			} else {
+				hi = v;
+			}
+		}
+		return 0.5 * (lo + hi);
+	}
+
+	private static boolean has(double pwS, boolean ignited) {
+		for (SteadyState s : newton.branches(base.toBuilder().pwS(pwS).build())) {
+			if ((s.state.W_MJ > W_SPLIT) == ignited) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void assertFold(List<Continuation.Point> path, double fold) {
+		int folds = 0;
+		for (int k = 0; k < path.size(); k++) {
+			Continuation.Point p = path.get(k);
+			assertTrue(p.steady.converged, "point " + k);
+			assertTrue(p.stable, "point " + k);
+			if (p.isFold()) {
+				folds++;
+				// a quarter of a step over REFINE bisections
+				assertEquals(fold, p.fold, 0.25 / (1 << Continuation.REFINE), "fold");
+				assertTrue(Math.min(path.get(k - 1).value, p.value) < p.fold);
+				assertTrue(p.fold < Math.max(path.get(k - 1).value, p.value));
+			}
+		}
+		assertEquals(1, folds);
+	}
+
+	@Test
+	void upAndDownTraceTheHysteresisLoop() {
+		List<Continuation.Point> up = new Continuation(engine).trace(base, SweepParameter.pwS, 26, 34, 32);
+		assertEquals(33, up.size());
+		assertFold(up, upperFold);
+		for (Continuation.Point p : up) {
+			assertEquals(p.value < upperFold, p.steady.state.W_MJ > W_SPLIT, "pwS " + p.value);
+			assertEquals(p.value, p.steady.design.pwS);
+		}
+		List<Continuation.Point> down = new Continuation(engine).trace(base, SweepParameter.pwS, 34, 26, 32);
+		assertFold(down, lowerFold);
+		for (Continuation.Point p : down) {
+			assertEquals(p.value < lowerFold, p.steady.state.W_MJ > W_SPLIT, "pwS " + p.value);
+		}
+		// inside the loop the two paths are on different branches
+		assertTrue(up.get(16).steady.state.W_MJ > W_SPLIT);
+		assertTrue(down.get(16).steady.state.W_MJ < W_SPLIT);
+	}
+
+	@Test
+	void locateBisectsToTheFold() {
+		Continuation c = new Continuation(engine);
+		DesignPoint p = base.toBuilder().pwS(31).build();
+		SteadyState hot = newton.branches(p).get(2);
+		double fold = c.locate(base, SweepParameter.pwS, p, 31, 33, hot.state);
+		assertEquals(upperFold, fold, 2.0 / (1 << Continuation.REFINE));
+	}
+
+	@Test
+	void nextFollowsOrJumps() {
+		Continuation c = new Continuation(engine);
+		DesignPoint p = base.toBuilder().pwS(32).build(), q = base.toBuilder().pwS(32.2).build(),
+				r = base.toBuilder().pwS(32.6).build();
+		PlasmaState hot = newton.branches(p).get(2).state;
+		// on the ignited branch up to the fold
+		SteadyState s = c.next(q, hot);
+		assertTrue(s.converged);
+		assertTrue(s.state.W_MJ > W_SPLIT);
+		assertTrue(engine.isSteady(s.state, PlasmaEngine.TOL));
+		// past it the transient settles on the driven one
+		SteadyState t = c.next(r, hot);
+		assertTrue(t.converged);
+		assertTrue(t.state.W_MJ < W_SPLIT);
+		assertEquals(newton.branches(r).get(0).state.W_MJ, t.state.W_MJ, 1e-4 * t.state.W_MJ);
+		// without a converged neighbour a warm start is a cold one
+		SteadyState cold = engine.solve(q);
+		assertEquals(cold.state.W_MJ, c.warm(q, null).state.W_MJ);
+		assertEquals(cold.state.W_MJ, c.warm(q, new SteadyState(p, hot, 300, false)).state.W_MJ);
+		assertTrue(c.warm(q, new SteadyState(p, hot, 3, true)).state.W_MJ > W_SPLIT);
+	}
+}
@@ -0,0 +1,149 @@
+//=============================================================================
+// Title:        CoolingRatesTest.java
+// Description:  Table file errors, L_z on the grid against the log-log rows,
+//               the clamp at 100 keV, the bremsstrahlung Zeff of tabulated
+//               species, and the 0-D, vector and session engines with tables.
+//=============================================================================
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CoolingRatesTest {
+
+	// relative difference allowed between the engines, which multiply the
+	// design factors in another order
+	static final double TOL = 1e-10;
+
+	static final double[] AR_T = { 0.1, 1, 20 }, AR_L = { 2e-31, 3e-32, 2e-32 };
+	static final double[] KR_T = { 0.1, 5, 30, 500 }, KR_L = { 1e-30, 1e-31, 5e-32, 3e-32 };
+
+	static CoolingRates rates;
+
+	@BeforeAll
+	static void table() throws IOException {
+		rates = CoolingRates.parse(new StringReader("# two species\nspecies Ar 18\n0.1 2e-31\n1 3e-32\n20 2e-32\n\n"
+				+ "species Kr 36  # past 100 keV\n0.1 1e-30\n5 1e-31\n30 5e-32\n500 3e-32\n"));
+	}
+
+	// log-log between the rows, held beyond them
+	private static double loglog(double[] t, double[] l, double T_keV) {
+		if (T_keV <= t[0]) {
+			return l[0];
+		}
+		for (int hi = 1; hi < t.length; hi++) {
+			if (T_keV <= t[hi]) {
+				double w = Math.log(T_keV / t[hi - 1]) / Math.log(t[hi] / t[hi - 1]);
+				return l[hi - 1] * Math.pow(l[hi] / l[hi - 1], w);
+			}
+		}
+		return l[l.length - 1];
+	}
+
+	@Test
+	void parse() {
+		assertEquals(2, rates.species());
+		assertEquals(Arrays.asList("Ar", "Kr"), rates.names());
+		assertEquals(1, rates.indexOf("Kr"));
+		assertEquals(-1, rates.indexOf("Fe"));
+		assertEquals(18, rates.Z(0));
+		assertEquals(36, rates.Z(1));
+	}
+
+	@Test
+	void parseErrors() {
+		String[] bad = { "", "# nothing\n", "1 2e-31\n", "species Ar\n1 2e-31\n", "species Ar 18 x\n1 2e-31\n",
+				"species Ar 18\n", "species Ar 18\nspecies Kr 36\n1 1e-30\n",
+				"species Ar 18\n1 2e-31\nspecies Ar 18\n1 2e-31\n", "species Ar 18\n1 2e-31\n1 3e-32\n",
+				"species Ar 18\n1 2e-31\n0.5 3e-32\n", "species Ar 18\n0 2e-31\n", "species Ar 18\n1 0\n",
+				"species Ar 18\n1 -2e-31\n", "species Ar 18\n1 lots\n", "species Ar 18\n1 NaN\n",
+				"species Ar 18\n1 2e-31 3\n", "species Ar eighteen\n1 2e-31\n" };
+		for (String text : bad) {
+			IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+					() -> CoolingRates.parse(new StringReader(text)), text);
+			assertTrue(e.getMessage() != null && !e.getMessage().isEmpty(), text);
+		}
+	}
+
+	@Test
+	void gridPointsAreTheLogLogRows() {
+		for (int i = 0; i < CoolingRates.POINTS; i++) {
+			double x = i / CoolingRates.SCALE, T10_ = x * x;
+			double ar = loglog(AR_T, AR_L, 10 * T10_), kr = loglog(KR_T, KR_L, 10 * T10_);
+			assertEquals(ar, rates.L(0, T10_), 1e-12 * ar, "Ar at grid point " + i);
+			assertEquals(kr, rates.L(1, T10_), 1e-12 * kr, "Kr at grid point " + i);
+		}
+		// held below the first row and beyond the last
+		assertEquals(2e-31, rates.L(0, 0));
+		assertEquals(2e-32, rates.L(0, 5), 1e-12 * 2e-32);
+		// linear between two grid points
+		double x = 100.25 / CoolingRates.SCALE;
+		double lo = rates.L(1, Math.pow(100 / CoolingRates.SCALE, 2));
+		double hi = rates.L(1, Math.pow(101 / CoolingRates.SCALE, 2));
+		assertEquals(0.75 * lo + 0.25 * hi, rates.L(1, x * x), 1e-12 * lo);
+	}
+
+	@Test
+	void clampedAt100keV() {
+		// Kr is tabulated to 500 keV, the grid ends at 100 keV
+		double end = loglog(KR_T, KR_L, 100);
+		assertEquals(end, rates.L(1, 10), 1e-9 * end);
+		for (double T10_ : new double[] { 10 * (1 + 1e-12), 10.5, 50, 1e6, 1e300, Double.POSITIVE_INFINITY }) {
+			assertEquals(rates.L(1, 10), rates.L(1, T10_), "Kr at T10_ " + T10_);
+			assertEquals(rates.L(0, 10), rates.L(0, T10_), "Ar at T10_ " + T10_);
+		}
+		// the last interval is still interpolated below the clamp
+		assertTrue(rates.L(1, 9.99) > end);
+	}
+
+	@Test
+	void tabulatedSpeciesLeaveTheBremsstrahlungZeff() throws IOException {
+		DesignPoint plain = DesignPoint.iterR8().nAr_ne(0.002).build();
+		assertEquals(0.0168 * plain.Zeff * plain.Vol, plain.Pbrem_fac);
+		// Ar and Kr in the table: both leave it; the reported Zeff keeps them
+		DesignPoint both = DesignPoint.iterR8().nAr_ne(0.002).radiation(rates).species("Kr", 2e-4).build();
+		double xZZ = 36 * 35 * 2e-4;
+		assertEquals(plain.Zeff + xZZ, both.Zeff, 1e-12);
+		assertEquals(0.0168 * (both.Zeff - 18 * 17 * 0.002 - xZZ) * both.Vol, both.Pbrem_fac, 1e-12 * plain.Pbrem_fac);
+		// Ar not in the table keeps its continuum
+		CoolingRates krypton = CoolingRates.parse(new StringReader("species Kr 36\n0.1 1e-30\n5 1e-31\n"));
+		DesignPoint kr = DesignPoint.iterR8().nAr_ne(0.002).radiation(krypton).species("Kr", 2e-4).build();
+		assertEquals(0.0168 * (kr.Zeff - xZZ) * kr.Vol, kr.Pbrem_fac, 1e-12 * plain.Pbrem_fac);
+	}
+
+	@Test
+	void enginesAgreeWithTables() {
+		DesignPoint[] designs = { DesignPoint.iterR8().radiation(rates).nAr_ne(0.002).build(),
+				DesignPoint.iterR8().physics(40, 60, 40).radiation(rates).species("Kr", 2e-4).build(),
+				DesignPoint.iterR8().physics(60, 40, 30).radiation(rates).nAr_ne(0.001).species("Kr", 1e-4).build(),
+				DesignPoint.iterR6().physics(60, 30, 50).radiation(rates).nAr_ne(0.002).build() };
+		PlasmaEngine engine = new PlasmaEngine();
+		SteadyState[] v = new VectorEngine(engine).solve(designs);
+		SessionHost h = new SessionHost();
+		int[] ids = new int[designs.length];
+		for (int i = 0; i < designs.length; i++) {
+			ids[i] = h.open(designs[i]);
+		}
+		for (int k = 0; k <= PlasmaEngine.ITT_MAX; k++) {
+			h.tick();
+		}
+		for (int i = 0; i < designs.length; i++) {
+			SteadyState s = engine.solve(designs[i]);
+			assertTrue(s.converged, "design " + i);
+			assertTrue(s.state.Pline_MW > 0, "design " + i);
+			assertEquals(s.itt, v[i].itt, "design " + i);
+			assertEquals(s.state.W_MJ, v[i].state.W_MJ, TOL * s.state.W_MJ, "vector, design " + i);
+			assertEquals(s.state.n20_, v[i].state.n20_, TOL * s.state.n20_, "vector, design " + i);
+			PlasmaState a = engine.advance(designs[i], engine.initial(designs[i]), PlasmaEngine.ITT_MAX + 1);
+			assertEquals(a.W_MJ, h.get(ids[i]).W_MJ, TOL * a.W_MJ, "session, design " + i);
+			assertEquals(a.n20_, h.get(ids[i]).n20_, TOL * a.n20_, "session, design " + i);
+		}
+	}
+}
@@ -0,0 +1,127 @@
+//=============================================================================
+// Title:        DesignOptimizerTest.java
+// Description:  maximize() over boS and mdS of ITER R=8m: a feasible point
+//               better than the base design and than every feasible point of
+//               a grid, while infeasible points with more P_e are kept out by
+//               the penalty; the point is a local optimum of the penalized
+//               cost, and violation() adds up the three limits.
+//=============================================================================
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class DesignOptimizerTest {
+
+	static final int STARTS = 8, MAX_EVALUATIONS = 200;
+
+	static final PlasmaEngine engine = new PlasmaEngine();
+	static final SteadyStateSolver newton = new SteadyStateSolver(engine);
+	static final DesignPoint base = DesignPoint.iterR8().physics(60, 30, 10).build();
+	static final SweepAxis[] axes = { SweepAxis.full(SweepParameter.boS, 2), SweepAxis.full(SweepParameter.mdS, 2) };
+	static DesignOptimizer optimizer;
+	static DesignOptimizer.Result result;
+
+	@BeforeAll
+	static void maximize() {
+		optimizer = new DesignOptimizer(base, newton::solve, axes);
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			result = optimizer.maximize(pool, STARTS, MAX_EVALUATIONS, 1);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	// -P_e plus the penalty, as the search minimizes it
+	private static double cost(DesignPoint p) {
+		SteadyState s = newton.solve(p);
+		assertTrue(s.converged);
+		return -s.state.P_e + DesignOptimizer.PENALTY * DesignOptimizer.violation(s);
+	}
+
+	@Test
+	void feasibleAndBetterThanTheBaseAndTheGrid() {
+		assertTrue(result.feasible);
+		assertEquals(0, DesignOptimizer.violation(result.steady));
+		SteadyState b = newton.solve(base);
+		assertEquals(0, DesignOptimizer.violation(b));
+		assertTrue(result.steady.state.P_e > b.state.P_e, result.steady.state.P_e + " vs base " + b.state.P_e);
+		double feasible = Double.NEGATIVE_INFINITY, infeasible = Double.NEGATIVE_INFINITY;
+		for (int bo = 0; bo <= 80; bo += 4) {
+			for (int md = 0; md <= 80; md += 4) {
+				SteadyState s = newton.solve(base.toBuilder().boS(bo).mdS(md).build());
+				if (!s.converged) {
+					continue;
+				}
+				if (DesignOptimizer.violation(s) == 0) {
+					feasible = Math.max(feasible, s.state.P_e);
+				} else {
+					infeasible = Math.max(infeasible, s.state.P_e);
+				}
+			}
+		}
+		assertTrue(result.steady.state.P_e >= feasible, result.steady.state.P_e + " vs grid " + feasible);
+		// the penalty is what keeps the search inside the limits
+		assertTrue(infeasible > result.steady.state.P_e, "infeasible grid best " + infeasible);
+	}
+
+	@Test
+	void traceAndEvaluations() {
+		assertTrue(result.evaluations > STARTS * (axes.length + 1));
+		// a start stops at most one shrink past its budget
+		assertTrue(result.evaluations <= STARTS * (MAX_EVALUATIONS + axes.length));
+		DesignOptimizer.Step last = result.trace.get(result.trace.size() - 1);
+		assertEquals(result.steady.state.P_e, last.P_e);
+		assertTrue(last.feasible);
+		for (int i = 1; i < result.trace.size(); i++) {
+			DesignOptimizer.Step a = result.trace.get(i - 1), b = result.trace.get(i);
+			assertTrue(a.evaluation <= b.evaluation);
+			assertTrue(b.start >= 0 && b.start < STARTS);
+			// each feasible step improves on the last feasible one
+			if (a.feasible && b.feasible) {
+				assertTrue(b.P_e > a.P_e);
+			}
+		}
+	}
+
+	@Test
+	void nelderMeadEndsOnALocalOptimum() {
+		double[] x = { (result.design.boS - axes[0].from()) / (axes[0].to() - axes[0].from()),
+				(result.design.mdS - axes[1].from()) / (axes[1].to() - axes[1].from()) };
+		double c = cost(optimizer.design(x));
+		assertEquals(-result.steady.state.P_e, c, 1e-9 * Math.abs(c));
+		for (int d = 0; d < x.length; d++) {
+			for (double h : new double[] { -1.0 / 256, 1.0 / 256 }) {
+				double[] y = x.clone();
+				y[d] = Math.min(1, Math.max(0, y[d] + h));
+				assertTrue(cost(optimizer.design(y)) >= c - DesignOptimizer.F_TOL, "axis " + d + " by " + h);
+			}
+		}
+	}
+
+	@Test
+	void violationAndPenalty() {
+		for (DesignPoint p : new DesignPoint[] { base, DesignPoint.iterR8().physics(80, 30, 80).build(),
+				DesignPoint.iterR8().physics(20, 80, 80).build(), DesignPoint.iterR6().physics(60, 30, 50).build() }) {
+			SteadyState s = newton.solve(p);
+			double expected = Math.max(0, s.state.n20_n20_gw - 1) + Math.max(0, s.state.n20_n20_bet - 1)
+					+ Math.max(0, DesignOptimizer.FDIV_MIN - p.fdiv) / DesignOptimizer.FDIV_MIN;
+			assertEquals(expected, DesignOptimizer.violation(s));
+		}
+		assertTrue(DesignOptimizer.violation(newton.solve(DesignPoint.iterR8().physics(80, 30, 80).build())) > 0);
+		// no start converges anywhere
+		DesignOptimizer.Result none = new DesignOptimizer(base, p -> new SteadyState(p, engine.initial(p), 0, false),
+				axes).maximize(ForkJoinPool.commonPool(), 2, 20, 1);
+		assertNull(none.design);
+		assertTrue(none.trace.isEmpty());
+		assertTrue(none.evaluations >= 2 * 20);
+		assertThrows(IllegalArgumentException.class, () -> new DesignOptimizer(base, newton::solve));
+	}
+}
@@ -0,0 +1,149 @@
+//=============================================================================
+// Title:        DesignSweepTest.java
+// Description:  Cartesian and latin hypercube indexing: point(i) carries the
+//               axis values of its index; every point is solved once by each
+//               kind of run(), and continuation warm starts are the same on
+//               any pool, cold at each row and at each chunk.
+//=============================================================================
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+
+class DesignSweepTest {
+
+	final PlasmaEngine engine = new PlasmaEngine();
+	final DesignPoint base = DesignPoint.iterR8().physics(40, 30, 20).build();
+
+	// the input of p an axis of these tests sets
+	private static double value(DesignPoint p, SweepParameter parameter) {
+		switch (parameter) {
+		case boS:
+			return p.boS;
+		case pwS:
+			return p.pwS;
+		case mdS:
+			return p.mdS;
+		case kMax:
+			return p.kMax;
+		default:
+			throw new IllegalArgumentException(parameter.name());
+		}
+	}
+
+	private static SteadyState[] run(DesignSweep sweep, int threads, Continuation continuation) {
+		SteadyState[] results = new SteadyState[(int) sweep.size()];
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			long n = sweep.run(pool, continuation, (i, s) -> results[(int) i] = s);
+			assertEquals(sweep.size(), n);
+		} finally {
+			pool.shutdown();
+		}
+		return results;
+	}
+
+	@Test
+	void cartesianIndexing() {
+		SweepAxis[] axes = { SweepAxis.range(SweepParameter.kMax, 1.6, 2.0, 3), SweepAxis.full(SweepParameter.pwS, 5),
+				SweepAxis.range(SweepParameter.mdS, 10, 30, 2) };
+		DesignSweep sweep = DesignSweep.cartesian(base, axes);
+		assertEquals(30, sweep.size());
+		for (int i = 0; i < sweep.size(); i++) {
+			DesignPoint p = sweep.point(i);
+			// the last axis varies fastest
+			int[] at = { i / 10, i / 2 % 5, i % 2 };
+			for (int d = 0; d < axes.length; d++) {
+				assertEquals(axes[d].value(at[d]), value(p, axes[d].parameter), "point " + i + " axis " + d);
+			}
+			assertEquals(base.boS, p.boS);
+			assertEquals(base.Rmax, p.Rmax);
+		}
+		assertEquals(1, DesignSweep.cartesian(base).size());
+	}
+
+	@Test
+	void latinHypercubeStrata() {
+		int samples = 97;
+		SweepAxis[] axes = { SweepAxis.full(SweepParameter.boS, 2), SweepAxis.full(SweepParameter.pwS, 2),
+				SweepAxis.range(SweepParameter.kMax, 1.6, 2.0, 2) };
+		DesignSweep sweep = DesignSweep.latinHypercube(base, samples, 5, axes);
+		assertEquals(samples, sweep.size());
+		for (SweepAxis axis : axes) {
+			// each axis range cut in samples strata, each used once
+			boolean[] used = new boolean[samples];
+			for (int i = 0; i < samples; i++) {
+				double u = (value(sweep.point(i), axis.parameter) - axis.from()) / (axis.to() - axis.from());
+				int stratum = (int) (u * samples);
+				assertTrue(stratum >= 0 && stratum < samples, axis.parameter + " point " + i);
+				assertTrue(!used[stratum], axis.parameter + " stratum " + stratum + " twice");
+				used[stratum] = true;
+			}
+		}
+		// reproducible from the seed and the index alone
+		DesignSweep again = DesignSweep.latinHypercube(base, samples, 5, axes);
+		DesignSweep other = DesignSweep.latinHypercube(base, samples, 6, axes);
+		for (int i = 0; i < samples; i++) {
+			assertEquals(sweep.point(i).pwS, again.point(i).pwS);
+			assertEquals(sweep.point(i).kMax, again.point(i).kMax);
+		}
+		assertNotEquals(sweep.point(0).pwS, other.point(0).pwS);
+		assertThrows(IllegalArgumentException.class, () -> DesignSweep.latinHypercube(base, 0, 5, axes));
+	}
+
+	@Test
+	void everyPointSolvedOnce() {
+		DesignSweep sweep = DesignSweep.cartesian(base, SweepAxis.full(SweepParameter.pwS, 30),
+				SweepAxis.full(SweepParameter.mdS, 30));
+		AtomicIntegerArray seen = new AtomicIntegerArray((int) sweep.size());
+		double[] W = new double[(int) sweep.size()];
+		assertEquals(sweep.size(), sweep.run(engine::solve, (i, s) -> {
+			seen.incrementAndGet((int) i);
+			W[(int) i] = s.state.W_MJ;
+		}));
+		double[] batched = new double[W.length];
+		VectorEngine vector = new VectorEngine(engine);
+		assertEquals(sweep.size(), sweep.run(ForkJoinPool.commonPool(), 37, vector::solve, (i, s) -> {
+			seen.incrementAndGet((int) i);
+			batched[(int) i] = s.state.W_MJ;
+		}));
+		for (int i = 0; i < W.length; i++) {
+			assertEquals(2, seen.get(i), "point " + i);
+			assertEquals(engine.solve(sweep.point(i)).state.W_MJ, W[i], "point " + i);
+		}
+		assertThrows(IllegalArgumentException.class,
+				() -> sweep.run(ForkJoinPool.commonPool(), 0, vector::solve, (i, s) -> {
+				}));
+	}
+
+	@Test
+	void warmStartsDoNotDependOnThePool() {
+		// rows of 100 along pwS, over the S-curve of SteadyStateSolverTest;
+		// 300 points are two chunks of 150
+		DesignPoint p = DesignPoint.iterR8().mdS(40).build();
+		DesignSweep sweep = DesignSweep.cartesian(p, SweepAxis.range(SweepParameter.mdS, 38, 42, 3),
+				SweepAxis.range(SweepParameter.pwS, 26, 34, 100));
+		Continuation continuation = new Continuation(engine);
+		SteadyState[] one = run(sweep, 1, continuation), four = run(sweep, 4, continuation);
+		double[] a = new double[one.length], b = new double[one.length];
+		for (int i = 0; i < one.length; i++) {
+			a[i] = one[i].state.W_MJ;
+			b[i] = four[i].state.W_MJ;
+		}
+		assertArrayEquals(a, b);
+		// cold at each row and at the chunk start, warm from the point before elsewhere
+		for (int i = 0; i < one.length; i++) {
+			boolean cold = i % 100 == 0 || i == 150;
+			SteadyState expected = cold ? engine.solve(sweep.point(i))
+					: continuation.warm(sweep.point(i), one[i - 1]);
+			assertEquals(expected.state.W_MJ, a[i], "point " + i);
+		}
+	}
+}
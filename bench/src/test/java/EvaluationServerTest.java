@@ -0,0 +1,149 @@
+//=============================================================================
+// Title:        EvaluationServerTest.java
+// Description:  Query, design and column parsing, JSON of non-finite values,
+//               and /solve, /sweep and the 400 answers over HTTP from a server
+//               on an ephemeral loopback port.
+//=============================================================================
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class EvaluationServerTest {
+
+	static EvaluationServer server;
+	static HttpClient client;
+
+	@BeforeAll
+	static void start() throws IOException {
+		server = new EvaluationServer(0, 1024);
+		server.start();
+		client = HttpClient.newHttpClient();
+	}
+
+	@AfterAll
+	static void stop() {
+		server.stop();
+	}
+
+	private static HttpResponse<String> get(String path) throws IOException, InterruptedException {
+		URI uri = URI.create("http://127.0.0.1:" + server.port() + path);
+		return client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	// the number of "name": in a JSON object
+	private static double field(String json, String name) {
+		Matcher m = Pattern.compile("\"" + name + "\":([^,}]+)").matcher(json);
+		assertTrue(m.find(), name + " in " + json);
+		return Double.parseDouble(m.group(1));
+	}
+
+	@Test
+	void query() {
+		Map<String, List<String>> q = EvaluationServer.query("axis=pwS:0:80:81&species=Kr%3A1e-5&axis=mdS:1:2:2&flag");
+		assertEquals(Arrays.asList("pwS:0:80:81", "mdS:1:2:2"), q.get("axis"));
+		assertEquals(Arrays.asList("Kr:1e-5"), q.get("species"));
+		assertEquals(Arrays.asList(""), q.get("flag"));
+		assertTrue(EvaluationServer.query(null).isEmpty());
+		assertTrue(EvaluationServer.query("").isEmpty());
+	}
+
+	@Test
+	void design() {
+		DesignPoint p = EvaluationServer.design(EvaluationServer.query("preset=R6&pwS=30&kMax=2.2"));
+		DesignPoint expected = DesignPoint.iterR6().pwS(30).kMax(2.2).build();
+		assertEquals(expected.Rmax, p.Rmax);
+		assertEquals(expected.kMax, p.kMax);
+		assertEquals(expected.Vol, p.Vol);
+		assertEquals(expected.Pw_in_MWo, p.Pw_in_MWo);
+		// the R8 preset by default
+		assertEquals(DesignPoint.iterR8().build().Vol, EvaluationServer.design(new HashMap<>()).Vol);
+		assertThrows(IllegalArgumentException.class,
+				() -> EvaluationServer.design(EvaluationServer.query("preset=R7")));
+		assertThrows(IllegalArgumentException.class,
+				() -> EvaluationServer.design(EvaluationServer.query("pwS=lots")));
+		assertThrows(IllegalArgumentException.class,
+				() -> EvaluationServer.design(EvaluationServer.query("pwS=NaN")));
+	}
+
+	@Test
+	void columns() {
+		assertEquals(EnumSet.complementOf(EnumSet.of(ResultColumn.index)),
+				EvaluationServer.columns(new HashMap<>()));
+		assertEquals(EnumSet.of(ResultColumn.P_e, ResultColumn.Q),
+				EvaluationServer.columns(EvaluationServer.query("columns=P_e,%20Q")));
+		assertThrows(IllegalArgumentException.class,
+				() -> EvaluationServer.columns(EvaluationServer.query("columns=P_e,Power")));
+	}
+
+	@Test
+	void nonFiniteValuesAreNull() {
+		DesignPoint p = DesignPoint.iterR8().build();
+		// T10_ = 0 / 0
+		PlasmaState s = new PlasmaEngine().evaluate(p, 0, 0);
+		String json = EvaluationServer.json(7, new SteadyState(p, s, 3, false),
+				EnumSet.of(ResultColumn.index, ResultColumn.W_MJ, ResultColumn.T10_, ResultColumn.itt,
+						ResultColumn.converged));
+		assertEquals("{\"index\":7,\"W_MJ\":0,\"T10_\":null,\"itt\":3,\"converged\":false}", json);
+	}
+
+	@Test
+	void solve() throws IOException, InterruptedException {
+		HttpResponse<String> r = get("/solve?pwS=30&mdS=40&columns=W_MJ,n20_,P_e,converged");
+		assertEquals(200, r.statusCode());
+		SteadyState s = new SteadyStateSolver(new PlasmaEngine()).solve(DesignPoint.iterR8().pwS(30).mdS(40).build());
+		assertTrue(s.converged);
+		assertEquals(s.state.W_MJ, field(r.body(), "W_MJ"), 1e-9 * s.state.W_MJ);
+		assertEquals(s.state.n20_, field(r.body(), "n20_"), 1e-9 * s.state.n20_);
+		assertEquals(s.state.P_e, field(r.body(), "P_e"), 1e-9 * Math.abs(s.state.P_e));
+		assertTrue(r.body().contains("\"converged\":true"));
+		assertFalse(r.body().contains("\"Q\""));
+	}
+
+	@Test
+	void sweep() throws IOException, InterruptedException {
+		HttpResponse<String> r = get("/sweep?axis=pwS:10:80:8&axis=mdS:20:60:3&solver=transient&columns=P_e");
+		assertEquals(200, r.statusCode());
+		String[] lines = r.body().split("\n");
+		assertEquals(24, lines.length);
+		PlasmaEngine engine = new PlasmaEngine();
+		boolean[] seen = new boolean[lines.length];
+		for (String line : lines) {
+			int i = (int) field(line, "index");
+			assertFalse(seen[i], "index " + i + " twice");
+			seen[i] = true;
+			// mdS varies fastest
+			DesignPoint p = DesignPoint.iterR8().pwS(10 + 10 * (i / 3)).mdS(20 + 20 * (i % 3)).build();
+			assertEquals(engine.solve(p).state.P_e, field(line, "P_e"), 1e-9, "index " + i);
+		}
+	}
+
+	@Test
+	void badRequests() throws IOException, InterruptedException {
+		for (String path : new String[] { "/solve?preset=R7", "/solve?solver=guess", "/evaluate?columns=Power",
+				"/sweep", "/sweep?axis=pwS:0:80", "/sweep?axis=Rmax:1:2:3", "/sweep?axis=pwS:0:80:0",
+				"/sweep?axis=pwS:0:80:81&axis=mdS:0:80:81&axis=boS:0:80:81", "/ticks?engine=2d" }) {
+			HttpResponse<String> r = get(path);
+			assertEquals(400, r.statusCode(), path);
+			assertTrue(r.body().startsWith("{\"error\":\""), path + ": " + r.body());
+		}
+	}
+}
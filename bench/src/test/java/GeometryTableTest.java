@@ -0,0 +1,85 @@
+//=============================================================================
+// Title:        GeometryTableTest.java
+// Description:  Designs built with the geometry table, built or saved and
+//               mapped again, are bit for bit the designs built without it.
+//=============================================================================
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GeometryTableTest {
+
+	// random table entries compared, besides the corners of the slider space
+	static final int SAMPLES = 20000;
+
+	static GeometryTable table;
+	// every double field of a DesignPoint
+	static final List<Field> fields = new ArrayList<Field>();
+
+	@BeforeAll
+	static void build() {
+		table = GeometryTable.build(DesignPoint.iterR8());
+		for (Field f : DesignPoint.class.getDeclaredFields()) {
+			if (f.getType() == double.class && !Modifier.isStatic(f.getModifiers())) {
+				f.setAccessible(true);
+				fields.add(f);
+			}
+		}
+	}
+
+	// every double field of p with and without the table, compared as bits;
+	// returns the table entry used (-1: none)
+	private static int assertSame(DesignPoint.Builder b, GeometryTable t) throws IllegalAccessException {
+		DesignPoint without = b.geometry(null).build(), with = b.geometry(t).build();
+		for (Field f : fields) {
+			assertEquals(Double.doubleToRawLongBits(f.getDouble(without)), Double.doubleToRawLongBits(f.getDouble(with)),
+					f.getName() + " at " + without.sv1 + ", " + without.sv2 + ", " + without.sv3 + ", " + without.sv4);
+		}
+		return t.index(with);
+	}
+
+	private static void assertSameOverTheSpace(GeometryTable t, DesignPoint.Builder machine)
+			throws IllegalAccessException {
+		int last = GeometryTable.POSITIONS - 1;
+		for (int corner = 0; corner < 16; corner++) {
+			assertTrue(assertSame(machine.shape((corner & 1) * last, (corner >> 1 & 1) * last,
+					(corner >> 2 & 1) * last, (corner >> 3 & 1) * last), t) >= 0);
+		}
+		SplittableRandom r = new SplittableRandom(5);
+		for (int i = 0; i < SAMPLES; i++) {
+			assertTrue(assertSame(machine.shape(r.nextInt(41), r.nextInt(41), r.nextInt(41), r.nextInt(41)), t) >= 0);
+		}
+	}
+
+	@Test
+	void builtTableIsBitIdentical() throws IllegalAccessException {
+		assertSameOverTheSpace(table, DesignPoint.iterR8());
+		// the IPB98 density exponent is applied on top of the table
+		assertSameOverTheSpace(table, DesignPoint.iterR8().tau98_n(0.3));
+	}
+
+	@Test
+	void savedTableIsBitIdentical(@TempDir Path dir) throws IOException, IllegalAccessException {
+		Path file = dir.resolve("geometry.bin");
+		table.save(file);
+		assertSameOverTheSpace(GeometryTable.open(file), DesignPoint.iterR8());
+	}
+
+	@Test
+	void otherMachinesAndFractionalSlidersAreComputed() throws IllegalAccessException {
+		assertEquals(-1, assertSame(DesignPoint.iterR6(), table));
+		assertEquals(-1, assertSame(DesignPoint.iterR8().shape(10.5, 20, 30, 40), table));
+	}
+}
@@ -0,0 +1,62 @@
+//=============================================================================
+// Title:        MetricsTest.java
+// Description:  Histogram buckets and quantiles, and counter rates kept per
+//               Reader, so that one reader does not reset another's.
+//=============================================================================
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class MetricsTest {
+
+	// the value of "name value" in a report
+	private static double figure(String text, String name) {
+		for (String line : text.split("\n")) {
+			if (line.startsWith(name + " ")) {
+				return Double.parseDouble(line.substring(name.length() + 1));
+			}
+		}
+		throw new AssertionError(name + " not in\n" + text);
+	}
+
+	@Test
+	void histogramQuantilesWithinABucket() {
+		Metrics.Histogram h = Metrics.histogram("test.histogram");
+		for (int v = 1; v <= 10000; v++) {
+			h.record(v);
+		}
+		assertEquals(10000, h.count());
+		assertEquals(5000.5, h.mean(), 1e-9);
+		assertEquals(10000, h.max());
+		// 8 buckets per power of two: within 1/16 either way
+		assertEquals(5000, h.quantile(0.5), 5000 / 16.0);
+		assertEquals(9900, h.quantile(0.99), 9900 / 16.0);
+		for (long v = 0; v < 1000000; v = v * 3 + 1) {
+			double mid = Metrics.Histogram.value(Metrics.Histogram.bucket(v));
+			assertTrue(Math.abs(mid - v) <= Math.max(0.5, v / 16.0), v + " in bucket of " + mid);
+		}
+	}
+
+	@Test
+	void readersKeepTheirOwnRates() throws InterruptedException {
+		Metrics.Counter c = Metrics.counter("test.counter");
+		Metrics.Reader a = new Metrics.Reader(), b = new Metrics.Reader();
+		c.add(1000);
+		Thread.sleep(20);
+		// a polls often; b still sees every count since it was created
+		String first = a.text();
+		a.text();
+		String second = b.text();
+		assertEquals(1000, figure(first, "test.counter"));
+		assertTrue(figure(first, "test.counter.perSecond") > 0);
+		assertEquals(0, figure(a.text(), "test.counter.perSecond"));
+		assertTrue(figure(second, "test.counter.perSecond") > 0);
+		// the shared report has the totals only
+		String text = Metrics.text();
+		assertEquals(1000, figure(text, "test.counter"));
+		assertFalse(text.contains("perSecond"));
+	}
+}
@@ -0,0 +1,125 @@
+//=============================================================================
+// Title:        ParetoFrontTest.java
+// Description:  ParetoFront.add keeps exactly the non-dominated feasible
+//               states of a sweep, whatever order they arrive in.
+//=============================================================================
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ParetoFrontTest {
+
+	// solved states of a small sweep over shape, power and fuelling
+	static List<SteadyState> states;
+
+	@BeforeAll
+	static void solve() {
+		SteadyStateSolver newton = new SteadyStateSolver(new PlasmaEngine());
+		DesignSweep sweep = DesignSweep.cartesian(DesignPoint.iterR8().build(),
+				SweepAxis.range(SweepParameter.sv3, 10, 70, 4), SweepAxis.range(SweepParameter.pwS, 10, 80, 8),
+				SweepAxis.range(SweepParameter.mdS, 10, 80, 8));
+		states = new ArrayList<SteadyState>();
+		for (long i = 0; i < sweep.size(); i++) {
+			states.add(newton.solve(sweep.point(i)));
+		}
+	}
+
+	private static boolean feasible(SteadyState s) {
+		return s.converged && DesignOptimizer.violation(s) == 0;
+	}
+
+	private static List<SteadyState> feasible() {
+		List<SteadyState> feasible = new ArrayList<SteadyState>();
+		for (SteadyState s : states) {
+			if (feasible(s)) {
+				feasible.add(s);
+			}
+		}
+		return feasible;
+	}
+
+	@Test
+	void dominates() {
+		assertTrue(ParetoFront.dominates(new double[] { 1, 2 }, new double[] { 1, 3 }));
+		assertFalse(ParetoFront.dominates(new double[] { 1, 2 }, new double[] { 1, 2 }));
+		assertFalse(ParetoFront.dominates(new double[] { 0, 3 }, new double[] { 1, 2 }));
+	}
+
+	@Test
+	void frontIsTheNonDominatedFeasibleSet() {
+		List<SteadyState> feasible = feasible();
+		assertTrue(feasible.size() > 10, "feasible states: " + feasible.size());
+		// brute force: feasible states no other one dominates
+		int expected = 0;
+		for (SteadyState s : feasible) {
+			boolean dominated = false;
+			for (SteadyState t : feasible) {
+				dominated |= ParetoFront.dominates(ParetoFront.objectives(t), ParetoFront.objectives(s));
+			}
+			expected += dominated ? 0 : 1;
+		}
+		assertTrue(expected > 1 && expected < feasible.size(), expected + " of " + feasible.size());
+		List<SteadyState> order = new ArrayList<SteadyState>(states);
+		for (long seed = 0; seed < 3; seed++) {
+			Collections.shuffle(order, new Random(seed));
+			ParetoFront front = new ParetoFront();
+			for (SteadyState s : order) {
+				front.add(s);
+			}
+			assertEquals(states.size(), front.offered());
+			assertEquals(expected, front.size());
+			List<SteadyState> members = front.members();
+			for (SteadyState m : members) {
+				assertTrue(feasible(m));
+				for (SteadyState s : feasible) {
+					assertFalse(ParetoFront.dominates(ParetoFront.objectives(s), ParetoFront.objectives(m)));
+				}
+			}
+		}
+	}
+
+	@Test
+	void addRejectsDominatedAndDropsWhatItDominates() {
+		List<SteadyState> feasible = feasible();
+		// a pair where one dominates the other
+		SteadyState better = null, worse = null;
+		for (SteadyState a : feasible) {
+			for (SteadyState b : feasible) {
+				if (better == null && ParetoFront.dominates(ParetoFront.objectives(a), ParetoFront.objectives(b))) {
+					better = a;
+					worse = b;
+				}
+			}
+		}
+		assertTrue(better != null);
+		ParetoFront front = new ParetoFront();
+		assertTrue(front.add(worse));
+		assertTrue(front.add(better));
+		assertEquals(1, front.size());
+		assertTrue(front.members().get(0) == better);
+		assertFalse(front.add(worse));
+		// nor the same objectives again
+		assertFalse(front.add(better));
+		assertEquals(2, front.changes());
+	}
+
+	@Test
+	void unconvergedNeverEnters() {
+		ParetoFront front = new ParetoFront();
+		for (SteadyState s : states) {
+			if (!feasible(s)) {
+				assertFalse(front.add(s));
+			}
+		}
+		assertEquals(0, front.size());
+	}
+}
@@ -0,0 +1,91 @@
+//=============================================================================
+// Title:        QuantileDigestTest.java
+// Description:  Quantiles of a skewed stream against the sorted values, for
+//               one digest and for digests of its parts merged together.
+//=============================================================================
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class QuantileDigestTest {
+
+	static final int N = 200000;
+	static final double[] Q = { 0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999 };
+
+	// lognormal values, so the upper tail is long
+	private static double[] values() {
+		SplittableRandom r = new SplittableRandom(7);
+		double[] v = new double[N];
+		for (int i = 0; i < N; i++) {
+			v[i] = Math.exp(UncertaintyAnalysis.gaussian(r));
+		}
+		return v;
+	}
+
+	// allowed error of the rank of quantile q: 1/COMPRESSION in the middle,
+	// a fifth of the tail beyond q near the ends, where centroids are small
+	private static double tolerance(double q) {
+		return Math.min(1 / QuantileDigest.COMPRESSION, 0.2 * Math.min(q, 1 - q));
+	}
+
+	private static void assertQuantiles(QuantileDigest d, double[] sorted) {
+		assertEquals(sorted.length, d.count());
+		assertEquals(sorted[0], d.min());
+		assertEquals(sorted[sorted.length - 1], d.max());
+		for (double q : Q) {
+			double x = d.quantile(q);
+			// fraction of the values below the estimate
+			int at = Arrays.binarySearch(sorted, x);
+			double rank = (at >= 0 ? at : -at - 1) / (double) sorted.length;
+			assertTrue(Math.abs(rank - q) <= tolerance(q), "q= " + q + " rank= " + rank);
+		}
+	}
+
+	@Test
+	void quantilesOfOneStream() {
+		double[] v = values();
+		QuantileDigest d = new QuantileDigest();
+		for (double x : v) {
+			d.add(x);
+		}
+		Arrays.sort(v);
+		assertQuantiles(d, v);
+	}
+
+	@Test
+	void mergedPartsMatchTheWhole() {
+		double[] v = values();
+		QuantileDigest merged = new QuantileDigest();
+		double sum = 0;
+		// unequal parts, as a ForkJoin split of a sample range gives
+		int from = 0;
+		for (int part = 1; from < N; part++) {
+			int to = Math.min(N, from + 1000 * part * part);
+			QuantileDigest d = new QuantileDigest();
+			for (int i = from; i < to; i++) {
+				d.add(v[i]);
+				sum += v[i];
+			}
+			merged.add(d);
+			from = to;
+		}
+		assertEquals(sum / N, merged.mean(), 1e-12 * sum / N);
+		Arrays.sort(v);
+		assertQuantiles(merged, v);
+	}
+
+	@Test
+	void emptyAndNaN() {
+		QuantileDigest d = new QuantileDigest();
+		d.add(Double.NaN);
+		assertEquals(0, d.count());
+		assertTrue(Double.isNaN(d.quantile(0.5)));
+		d.add(3);
+		assertEquals(3, d.quantile(0.5));
+	}
+}
@@ -0,0 +1,72 @@
+//=============================================================================
+// Title:        RadialTransportTest.java
+// Description:  The Thomas solver against its own system, and steady states
+//               of the 1-D engine converging as the grid is refined.
+//=============================================================================
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class RadialTransportTest {
+
+	@Test
+	void thomasResidual() {
+		SplittableRandom r = new SplittableRandom(3);
+		for (int n : new int[] { 1, 2, 3, 50, 1000 }) {
+			double[] a = new double[n], b = new double[n], c = new double[n], d = new double[n];
+			for (int i = 0; i < n; i++) {
+				// diagonally dominant, as the diffusion systems are
+				a[i] = i == 0 ? 0 : -r.nextDouble();
+				c[i] = i == n - 1 ? 0 : -r.nextDouble();
+				b[i] = 1e-3 + Math.abs(a[i]) + Math.abs(c[i]) + r.nextDouble();
+				d[i] = r.nextDouble() * 2 - 1;
+			}
+			double[] x = new double[n], w = new double[n];
+			RadialTransport.thomas(a, b, c, d, w, x, n);
+			for (int i = 0; i < n; i++) {
+				double lhs = b[i] * x[i] + (i > 0 ? a[i] * x[i - 1] : 0) + (i < n - 1 ? c[i] * x[i + 1] : 0);
+				assertEquals(d[i], lhs, 1e-12, "n= " + n + " row " + i);
+			}
+		}
+	}
+
+	@Test
+	void steadyStateConvergesWithTheGrid() {
+		DesignPoint p = DesignPoint.iterR8().build();
+		int[] points = { 25, 50, 100, 200 };
+		double[] W = new double[points.length], n = new double[points.length];
+		for (int k = 0; k < points.length; k++) {
+			SteadyState s = new RadialTransport(points[k]).solve(p, PlasmaEngine.TOL, PlasmaEngine.MAX_STEPS);
+			assertTrue(s.converged, points[k] + " points");
+			W[k] = s.state.W_MJ;
+			n[k] = s.state.n20_;
+		}
+		// each refinement changes W_MJ and n20_ less than the one before
+		for (int k = 2; k < points.length; k++) {
+			assertTrue(Math.abs(W[k] - W[k - 1]) <= Math.abs(W[k - 1] - W[k - 2]), "W_MJ at " + points[k]);
+			assertTrue(Math.abs(n[k] - n[k - 1]) <= Math.abs(n[k - 1] - n[k - 2]), "n20_ at " + points[k]);
+		}
+		int last = points.length - 1;
+		assertEquals(W[last], W[last - 1], 1e-3 * W[last]);
+		assertEquals(n[last], n[last - 1], 1e-3 * n[last]);
+	}
+
+	@Test
+	void startKeepsTheVolumeAverages() {
+		DesignPoint p = DesignPoint.iterR8().build();
+		RadialTransport r = new RadialTransport(64);
+		PlasmaState s = r.start(p, 123, 0.9, 0);
+		// but for the T_MIN floor of the edge cells
+		assertEquals(123, s.W_MJ, 1e-3 * 123);
+		assertEquals(0.9, s.n20_, 1e-12);
+		double v = 0;
+		for (int i = 0; i < r.points(); i++) {
+			v += 2 * r.rho(i) / r.points();
+		}
+		assertEquals(1, v, 1e-12);
+	}
+}
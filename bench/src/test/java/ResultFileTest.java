@@ -0,0 +1,84 @@
+//=============================================================================
+// Title:        ResultFileTest.java
+// Description:  ResultStore -> ResultFile -> ResultStore round trip, written
+//               and mapped in small regions so a column spans many of them.
+//=============================================================================
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.EnumSet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResultFileTest {
+
+	// 64 rows per mapped region: 5000 rows are 79 of them, the last partial
+	static final int BITS = 6;
+	static final int ROWS = 5000;
+
+	@TempDir
+	Path dir;
+
+	private static ResultStore store() {
+		ResultStore store = new ResultStore(EnumSet.of(ResultColumn.index, ResultColumn.sv1, ResultColumn.sv2));
+		for (int r = 0; r < ROWS; r++) {
+			store.append(r, Math.sin(r) * 1e3, r % 7 == 0 ? Double.NaN : 1.0 / (r + 1));
+		}
+		return store;
+	}
+
+	@Test
+	void roundTripOverManySegments() throws IOException {
+		ResultStore store = store();
+		Path file = dir.resolve("results.jstar");
+		ResultFile.write(store, file, BITS);
+		ResultColumn[] columns = store.columns();
+		// mapped in the regions it was written in, and in one
+		for (int bits : new int[] { BITS, ResultFile.SEGMENT_BITS }) {
+			try (ResultFile f = ResultFile.open(file, bits)) {
+				assertEquals(ROWS, f.size());
+				String[] names = new String[columns.length];
+				for (int k = 0; k < columns.length; k++) {
+					names[k] = columns[k].name();
+				}
+				assertArrayEquals(names, f.names());
+				for (int k = 0; k < columns.length; k++) {
+					int c = f.column(columns[k]);
+					for (long r = 0; r < ROWS; r++) {
+						assertEquals(store.get(columns[k], r), f.get(c, r), "row " + r);
+					}
+				}
+			}
+		}
+		ResultStore back = ResultFile.read(file);
+		assertEquals(ROWS, back.size());
+		for (ResultColumn c : columns) {
+			for (long r = 0; r < ROWS; r++) {
+				assertEquals(store.get(c, r), back.get(c, r), "row " + r);
+			}
+		}
+	}
+
+	@Test
+	void scanVisitsEverySegmentInOrder() throws IOException {
+		ResultStore store = store();
+		Path file = dir.resolve("scan.jstar");
+		ResultFile.write(store, file, BITS);
+		try (ResultFile f = ResultFile.open(file, BITS)) {
+			int c = f.column(ResultColumn.sv1);
+			long[] next = { 0 };
+			f.scan(c, (rows, row0) -> {
+				assertEquals(next[0], row0);
+				for (int i = 0; rows.hasRemaining(); i++) {
+					assertEquals(store.get(ResultColumn.sv1, row0 + i), rows.get());
+				}
+				next[0] = row0 + (1 << BITS);
+			});
+			assertEquals((ROWS + (1 << BITS) - 1) >>> BITS << BITS, next[0]);
+		}
+	}
+}
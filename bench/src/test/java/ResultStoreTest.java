@@ -0,0 +1,113 @@
+//=============================================================================
+// Title:        ResultStoreTest.java
+// Description:  Rows over several chunks, appended by one thread and by many,
+//               read back by get() and scan(), and the rows of a sweep stored
+//               as its Sink.
+//=============================================================================
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EnumSet;
+
+import org.junit.jupiter.api.Test;
+
+class ResultStoreTest {
+
+	// rows in three full chunks and part of a fourth
+	static final int ROWS = 3 * ResultStore.CHUNK + 1234;
+
+	@Test
+	void chunksGrowAndColumnsReadBack() {
+		ResultStore store = new ResultStore(EnumSet.of(ResultColumn.index, ResultColumn.P_e));
+		assertArrayEquals(new ResultColumn[] { ResultColumn.index, ResultColumn.P_e }, store.columns());
+		assertTrue(store.has(ResultColumn.P_e));
+		assertFalse(store.has(ResultColumn.Q));
+		// no chunk before the first row
+		store.scan(ResultColumn.P_e, (chunk, from, to, row0) -> {
+			throw new AssertionError("chunk of an empty store");
+		});
+		for (int r = 0; r < ROWS; r++) {
+			assertEquals(r, store.append(r, 0.5 * r));
+		}
+		assertEquals(ROWS, store.size());
+		for (int r = 0; r < ROWS; r += 997) {
+			assertEquals(r, store.get(ResultColumn.index, r));
+			assertEquals(0.5 * r, store.get(ResultColumn.P_e, r));
+		}
+		assertEquals(ROWS - 1, store.get(ResultColumn.index, ROWS - 1));
+		// whole chunks, the last one up to the last row
+		long[] next = new long[1];
+		double[] sum = new double[1];
+		store.scan(ResultColumn.P_e, (chunk, from, to, row0) -> {
+			assertEquals(ResultStore.CHUNK, chunk.length);
+			assertEquals(0, from);
+			assertEquals(next[0], row0);
+			assertEquals(Math.min(ResultStore.CHUNK, ROWS - row0), to);
+			for (int r = from; r < to; r++) {
+				sum[0] += chunk[r];
+			}
+			next[0] = row0 + to;
+		});
+		assertEquals(ROWS, next[0]);
+		assertEquals(0.5 * ROWS * (ROWS - 1) / 2.0, sum[0]);
+		assertThrows(IllegalArgumentException.class, () -> store.get(ResultColumn.Q, 0));
+		assertThrows(IllegalArgumentException.class, () -> store.scan(ResultColumn.Q, (c, f, t, r) -> {
+		}));
+		assertThrows(IllegalArgumentException.class, () -> store.append(1, 2, 3));
+	}
+
+	@Test
+	void concurrentAppends() throws InterruptedException {
+		ResultStore store = new ResultStore(EnumSet.of(ResultColumn.index, ResultColumn.W_MJ));
+		Thread[] threads = new Thread[4];
+		int each = ROWS / threads.length;
+		for (int t = 0; t < threads.length; t++) {
+			int first = t * each;
+			threads[t] = new Thread(() -> {
+				for (int i = first; i < first + each; i++) {
+					store.append(i, -i);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		assertEquals(threads.length * each, store.size());
+		// every value once, in the row of its index column
+		boolean[] seen = new boolean[threads.length * each];
+		for (long r = 0; r < store.size(); r++) {
+			int i = (int) store.get(ResultColumn.index, r);
+			assertFalse(seen[i], "index " + i + " twice");
+			seen[i] = true;
+			assertEquals(-i, store.get(ResultColumn.W_MJ, r));
+		}
+	}
+
+	@Test
+	void sweepSink() {
+		ResultStore store = new ResultStore();
+		PlasmaEngine engine = new PlasmaEngine();
+		DesignSweep sweep = DesignSweep.cartesian(DesignPoint.iterR8().build(), SweepAxis.full(SweepParameter.pwS, 9),
+				SweepAxis.full(SweepParameter.mdS, 9));
+		assertEquals(81, sweep.run(engine::solve, store));
+		assertEquals(81, store.size());
+		assertEquals(ResultColumn.values().length, store.columns().length);
+		boolean[] seen = new boolean[81];
+		for (long r = 0; r < store.size(); r++) {
+			int i = (int) store.get(ResultColumn.index, r);
+			seen[i] = true;
+			DesignPoint p = sweep.point(i);
+			assertEquals(p.pwS, store.get(ResultColumn.pwS, r));
+			assertEquals(p.mdS, store.get(ResultColumn.mdS, r));
+			assertEquals(engine.solve(p).state.P_e, store.get(ResultColumn.P_e, r), "index " + i);
+		}
+		for (int i = 0; i < seen.length; i++) {
+			assertTrue(seen[i], "index " + i);
+		}
+	}
+}
@@ -0,0 +1,113 @@
+//=============================================================================
+// Title:        ScenarioTest.java
+// Description:  A run without channels is PlasmaEngine.advance bit for bit,
+//               a slider channel switches designs between two steps,
+//               Waveform interpolates and holds, and parse() reports bad
+//               scenario files.
+//=============================================================================
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ScenarioTest {
+
+	final PlasmaEngine engine = new PlasmaEngine();
+
+	private static List<PlasmaState> run(Scenario scenario, DesignPoint p, double until) throws IOException {
+		List<PlasmaState> states = new ArrayList<PlasmaState>();
+		scenario.run(p, until, DesignPoint.dt, 1, s -> states.add(s.state));
+		return states;
+	}
+
+	private static void assertSameBits(PlasmaState expected, PlasmaState actual, String what) {
+		assertEquals(Double.doubleToRawLongBits(expected.W_MJ), Double.doubleToRawLongBits(actual.W_MJ), what);
+		assertEquals(Double.doubleToRawLongBits(expected.n20_), Double.doubleToRawLongBits(actual.n20_), what);
+		assertEquals(expected.Time, actual.Time, what);
+	}
+
+	@Test
+	void noChannelsIsPlasmaEngineAdvance() throws IOException {
+		for (DesignPoint p : new DesignPoint[] { DesignPoint.iterR8().build(),
+				DesignPoint.iterR6().physics(60, 30, 50).build() }) {
+			List<PlasmaState> states = run(new Scenario(), p, 400);
+			assertEquals(401, states.size());
+			PlasmaState s = engine.initial(p);
+			for (int k = 0; k < states.size(); k++) {
+				assertSameBits(s, states.get(k), "step " + k);
+				s = engine.step(s, p);
+			}
+		}
+	}
+
+	@Test
+	void sliderChannelSwitchesTheDesign() throws IOException {
+		DesignPoint low = DesignPoint.iterR8().pwS(30).build(), high = DesignPoint.iterR8().pwS(60).build();
+		Scenario scenario = new Scenario().set(SweepParameter.pwS,
+				new Scenario.Waveform(new double[] { 99, 100 }, new double[] { 30, 60 }));
+		List<PlasmaState> states = run(scenario, low, 200);
+		PlasmaState s = engine.initial(low);
+		for (int k = 0; k < 100; k++) {
+			assertSameBits(s, states.get(k), "step " + k);
+			s = engine.step(s, low);
+		}
+		// the step into time 100 s is taken on the low design, from there on high
+		s = engine.evaluate(high, s.W_MJ, s.n20_, s.Time, s.dt);
+		for (int k = 100; k <= 200; k++) {
+			assertSameBits(s, states.get(k), "step " + k);
+			s = engine.step(s, high);
+		}
+	}
+
+	@Test
+	void waveformInterpolatesAndHolds() {
+		Scenario.Waveform w = new Scenario.Waveform(new double[] { 10, 20, 40 }, new double[] { 1, 3, -1 });
+		assertEquals(1, w.at(-5));
+		assertEquals(1, w.at(10));
+		assertEquals(2, w.at(15));
+		assertEquals(3, w.at(20));
+		assertEquals(2, w.at(25));
+		assertEquals(-1, w.at(40));
+		assertEquals(-1, w.at(1e9));
+		assertEquals(40, w.end());
+		assertEquals(7, new Scenario.Waveform(7).at(123));
+		assertThrows(IllegalArgumentException.class,
+				() -> new Scenario.Waveform(new double[] { 0, 0 }, new double[] { 1, 2 }));
+		assertThrows(IllegalArgumentException.class,
+				() -> new Scenario.Waveform(new double[] { 0, 1 }, new double[] { 1 }));
+		assertThrows(IllegalArgumentException.class, () -> new Scenario.Waveform(new double[0], new double[0]));
+		// a field of zero or below
+		assertThrows(IllegalArgumentException.class,
+				() -> new Scenario().set(Scenario.Actuator.B_in, new Scenario.Waveform(0)));
+	}
+
+	@Test
+	void parse() throws IOException {
+		Scenario s = Scenario.parse(new StringReader("# ramp\ntime, P_in_MW, nAr_ne\n0, 10, 0.001\n50, , 0.002\n"
+				+ "100, 60 # flat top\n"));
+		assertEquals(100, s.duration());
+		List<PlasmaState> states = run(s, DesignPoint.iterR8().build(), 100);
+		for (int k : new int[] { 0, 25, 50, 100 }) {
+			assertEquals(10 + 0.5 * k, states.get(k).P_in_MW, 1e-12, "P_in_MW at " + k);
+		}
+	}
+
+	@Test
+	void parseErrors() {
+		String[] bad = { "", "# nothing\n", "t, P_in_MW\n0, 1\n", "time, P_in_MW\n0, 1\n20, 2\n10, 3\n",
+				"time, Power\n0, 1\n", "time, P_in_MW\n0, lots\n", "time, P_in_MW\n0, 1, 2\n",
+				"time, mdot_in\n0, -1\n" };
+		for (String text : bad) {
+			IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+					() -> Scenario.parse(new StringReader(text)), text);
+			assertTrue(e.getMessage() != null && !e.getMessage().isEmpty(), text);
+		}
+	}
+}
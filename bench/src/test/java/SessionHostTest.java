@@ -0,0 +1,164 @@
+//=============================================================================
+// Title:        SessionHostTest.java
+// Description:  Sessions step as PlasmaEngine.step does, machines without
+//               sessions are dropped and their indices reused, and sessions
+//               set and closed while the host ticks leave the others alone.
+//=============================================================================
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class SessionHostTest {
+
+	// relative difference allowed after ITT_MAX steps: the host multiplies the
+	// design factors in another order than PlasmaState
+	static final double TOL = 1e-10;
+
+	static CoolingRates rates, argon;
+	final PlasmaEngine engine = new PlasmaEngine();
+
+	@BeforeAll
+	static void tables() throws IOException {
+		rates = CoolingRates.parse(new StringReader("species Ar 18\n0.1 2e-31\n1 3e-32\n20 2e-32\n"
+				+ "species Fe 26\n0.1 5e-31\n3 6e-32\n30 3e-32\n" + "species Kr 36\n0.1 1e-30\n5 1e-31\n30 5e-32\n"));
+		argon = CoolingRates.parse(new StringReader("species Ar 18\n0.1 2e-31\n1 3e-32\n20 2e-32\n"));
+	}
+
+	private static void assertClose(PlasmaState expected, SessionHost.Session actual, String what) {
+		assertEquals(expected.W_MJ, actual.W_MJ, TOL * Math.abs(expected.W_MJ), what);
+		assertEquals(expected.n20_, actual.n20_, TOL * Math.abs(expected.n20_), what);
+	}
+
+	@Test
+	void slotsStepAsPlasmaEngine() {
+		DesignPoint[] designs = { DesignPoint.iterR8().build(), DesignPoint.iterR8().physics(40, 60, 40).build(),
+				DesignPoint.iterR8().physics(40, 60, 40).tau98_n(0.3).build(),
+				DesignPoint.iterR6().physics(60, 30, 50).build(),
+				DesignPoint.iterR8().physics(40, 60, 40).radiation(rates).species("Kr", 2e-4).build(),
+				DesignPoint.iterR8().physics(40, 60, 40).radiation(argon).nAr_ne(0.002).build() };
+		SessionHost h = new SessionHost();
+		int[] ids = new int[designs.length];
+		PlasmaState[] s = new PlasmaState[designs.length];
+		for (int i = 0; i < designs.length; i++) {
+			ids[i] = h.open(designs[i]);
+			s[i] = engine.initial(designs[i]);
+		}
+		for (int k = 0; k < PlasmaEngine.ITT_MAX + 10; k++) {
+			h.tick();
+			for (int i = 0; i < designs.length; i++) {
+				// ITT_MAX + 1 steps, as the run() loop
+				if (k <= PlasmaEngine.ITT_MAX) {
+					s[i] = engine.step(s[i], designs[i]);
+				}
+				assertClose(s[i], h.get(ids[i]), "design " + i + " tick " + k);
+			}
+		}
+		assertEquals(0, h.running());
+		for (int i = 0; i < designs.length; i++) {
+			SessionHost.Session x = h.get(ids[i]);
+			assertFalse(x.isRunning());
+			// the outputs derived from the slot are those of the full state
+			PlasmaState f = h.state(engine, ids[i]);
+			assertEquals(f.P_e, x.P_e, TOL * Math.abs(f.P_e));
+			assertEquals(f.n_wall, x.n_wall, TOL * Math.abs(f.n_wall));
+			assertEquals(f.n20_n20_gw, x.n20_n20_gw, TOL * Math.abs(f.n20_n20_gw));
+		}
+		// new inputs continue from the state and step again
+		h.set(ids[0], designs[4]);
+		PlasmaState t = engine.evaluate(designs[4], s[0].W_MJ, s[0].n20_);
+		assertTrue(h.get(ids[0]).isRunning());
+		for (int k = 0; k < 50; k++) {
+			h.tick();
+			t = engine.step(t, designs[4]);
+			assertClose(t, h.get(ids[0]), "set, tick " + k);
+		}
+	}
+
+	@Test
+	void machinesWithoutSessionsAreRecycled() throws ReflectiveOperationException {
+		SessionHost h = new SessionHost();
+		int keep = h.open(DesignPoint.iterR8().build());
+		for (int k = 0; k < 1000; k++) {
+			int id = h.open(DesignPoint.iterR8().kMax(1.9 + k * 1e-3).build());
+			assertEquals(2, h.machines());
+			h.close(id);
+			assertEquals(1, h.machines());
+		}
+		// two machine indices ever taken
+		java.lang.reflect.Field machines = SessionHost.class.getDeclaredField("machines");
+		machines.setAccessible(true);
+		assertEquals(2, ((Object[]) machines.get(h)).length);
+		// set() off the last session of a machine drops it as well
+		DesignPoint p = DesignPoint.iterR6().physics(60, 30, 50).radiation(argon).nAr_ne(0.002).build();
+		h.set(keep, p);
+		assertEquals(1, h.machines());
+		assertEquals(1, h.sessions());
+		// the session on the reused index steps with its own machine
+		PlasmaState s = engine.evaluate(p, h.get(keep).W_MJ, h.get(keep).n20_);
+		for (int k = 0; k < 100; k++) {
+			h.tick();
+			s = engine.step(s, p);
+		}
+		assertClose(s, h.get(keep), "reused machine");
+	}
+
+	@Test
+	void setAndCloseWhileTicking() throws InterruptedException {
+		int N = 2000;
+		DesignPoint[] ps = new DesignPoint[N];
+		for (int i = 0; i < N; i++) {
+			ps[i] = DesignPoint.iterR8().physics(40, 20 + i % 60, 10 + i % 70).build();
+		}
+		// machines taken and dropped all the time, with line radiation tables
+		// of one and of three species
+		DesignPoint[] churn = new DesignPoint[60];
+		for (int j = 0; j < churn.length; j++) {
+			DesignPoint.Builder b = DesignPoint.iterR8().kMax(1.6 + j * 0.01).physics(40, 60, 40);
+			churn[j] = (j % 3 == 0 ? b : j % 3 == 1 ? b.radiation(argon).nAr_ne(0.002)
+					: b.radiation(rates).species("Kr", 2e-4)).build();
+		}
+		SessionHost h = new SessionHost();
+		for (int i = 0; i < N; i++) {
+			h.open(ps[i]);
+		}
+		// sessions below N / 2 are left alone
+		Thread t = new Thread(() -> {
+			Random r = new Random(1);
+			for (int j = 0; j < 50000; j++) {
+				int id = N / 2 + r.nextInt(N / 2);
+				if (r.nextBoolean()) {
+					h.set(id, churn[r.nextInt(churn.length)]);
+				} else {
+					h.close(id);
+					h.open(churn[r.nextInt(churn.length)]);
+				}
+				// spread the changes over many ticks, also on one CPU
+				if (j % 64 == 0) {
+					Thread.yield();
+				}
+			}
+		});
+		t.start();
+		int ticks = 0;
+		while (t.isAlive() || ticks < 20) {
+			h.tick();
+			ticks++;
+		}
+		t.join();
+		assertTrue(ticks > 20, ticks + " ticks");
+		assertEquals(0, h.failedTicks());
+		assertEquals(N, h.sessions());
+		int steps = Math.min(ticks, PlasmaEngine.ITT_MAX + 1);
+		for (int i = 0; i < N / 2; i += 7) {
+			assertClose(engine.advance(ps[i], engine.initial(ps[i]), steps), h.get(i), "session " + i);
+		}
+	}
+}
@@ -0,0 +1,123 @@
+//=============================================================================
+// Title:        SteadyStateCacheTest.java
+// Description:  Least recently used eviction within a stripe, the capacity
+//               split over the stripes, slider positions quantized to 1/1024,
+//               the start of the solve in the key, and the hit, miss and
+//               eviction counts.
+//=============================================================================
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SteadyStateCacheTest {
+
+	final PlasmaEngine engine = new PlasmaEngine();
+
+	// a converged result of p without solving it
+	private SteadyState steady(DesignPoint p) {
+		return new SteadyState(p, engine.initial(p), 0, true);
+	}
+
+	// design k of a family with distinct keys
+	private static DesignPoint design(int k) {
+		return DesignPoint.iterR8().physics(k % 100, k / 100, 40).build();
+	}
+
+	// the stripe a design solved from its initial conditions falls in
+	private static int stripe(DesignPoint p, int stripes) {
+		int hash = new SteadyStateCache.Key(p, null).hashCode();
+		return (hash ^ (hash >>> 16)) & (stripes - 1);
+	}
+
+	@Test
+	void leastRecentlyUsedLeavesItsStripe() {
+		// 16 stripes of 4
+		SteadyStateCache cache = new SteadyStateCache(64);
+		List<DesignPoint> same = new ArrayList<DesignPoint>();
+		for (int k = 0; same.size() < 5; k++) {
+			DesignPoint p = design(k);
+			if (stripe(p, SteadyStateCache.STRIPES) == 0) {
+				same.add(p);
+			}
+		}
+		for (int i = 0; i < 4; i++) {
+			cache.put(steady(same.get(i)));
+		}
+		assertNotNull(cache.get(same.get(0)));
+		cache.put(steady(same.get(4)));
+		assertEquals(1, cache.evictions());
+		assertNull(cache.get(same.get(1)));
+		for (int i : new int[] { 0, 2, 3, 4 }) {
+			assertSame(same.get(i), cache.get(same.get(i)).design, "design " + i);
+		}
+		assertEquals(4, cache.size());
+	}
+
+	@Test
+	void capacitySplitOverTheStripes() {
+		for (int capacity = 1; capacity <= 40; capacity++) {
+			SteadyStateCache cache = new SteadyStateCache(capacity);
+			for (int k = 0; k < 40 * capacity; k++) {
+				cache.put(steady(design(k)));
+			}
+			// every stripe full, none over
+			assertEquals(capacity, cache.size(), "capacity " + capacity);
+			assertEquals(40 * capacity - capacity, cache.evictions(), "capacity " + capacity);
+			cache.clear();
+			assertEquals(0, cache.size());
+		}
+	}
+
+	@Test
+	void keys() {
+		SteadyStateCache cache = new SteadyStateCache(64);
+		DesignPoint p = DesignPoint.iterR8().physics(20, 30, 40).kMax(1.8).build();
+		cache.put(steady(p));
+		// slider positions to 1/1024 of a step
+		assertNotNull(cache.get(DesignPoint.iterR8().physics(20, 30 + 0.4 / 1024, 40).kMax(1.8).build()));
+		assertNull(cache.get(DesignPoint.iterR8().physics(20, 30 + 0.6 / 1024, 40).kMax(1.8).build()));
+		assertNull(cache.get(DesignPoint.iterR8().physics(20, 30, 40 - 0.6 / 1024).kMax(1.8).build()));
+		// machine options to float precision
+		assertNotNull(cache.get(DesignPoint.iterR8().physics(20, 30, 40).kMax(1.8 + 1e-9).build()));
+		assertNull(cache.get(DesignPoint.iterR8().physics(20, 30, 40).kMax(1.8 + 1e-5).build()));
+		// the start of the solve: initial conditions, else a quarter octave of
+		// W_MJ and n20_
+		PlasmaState from = engine.evaluate(p, 300, 1);
+		assertNull(cache.get(p, from));
+		cache.put(steady(p), from);
+		assertNotNull(cache.get(p, engine.evaluate(p, 300 * 1.05, 1 / 1.05)));
+		assertNull(cache.get(p, engine.evaluate(p, 300 * 1.2, 1)));
+		assertNull(cache.get(p, engine.evaluate(p, 300, 1.2)));
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	void counts() {
+		SteadyStateCache cache = new SteadyStateCache(8);
+		assertEquals(0, cache.hitRate());
+		DesignPoint p = design(1), q = design(2);
+		// unconverged results are not kept
+		cache.put(new SteadyState(p, engine.initial(p), PlasmaEngine.ITT_MAX + 1, false));
+		assertNull(cache.get(p));
+		int[] solves = new int[1];
+		for (int i = 0; i < 3; i++) {
+			cache.solve(q, d -> {
+				solves[0]++;
+				return steady(d);
+			});
+		}
+		assertEquals(1, solves[0]);
+		assertEquals(2, cache.hits());
+		assertEquals(2, cache.misses());
+		assertEquals(0.5, cache.hitRate());
+		assertEquals(0, cache.evictions());
+		assertEquals("SteadyStateCache[size= 1/8 hits= 2 misses= 2 evictions= 0 hitRate= 0.5]", cache.toString());
+	}
+}
@@ -0,0 +1,63 @@
+//=============================================================================
+// Title:        SteadyStateSolverTest.java
+// Description:  branches() on a design with a driven and an ignited operating
+//               point (ITER R=8m, pwS 30, mdS 40) and on one with a single
+//               point, against the transient of PlasmaEngine.
+//=============================================================================
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SteadyStateSolverTest {
+
+	final PlasmaEngine engine = new PlasmaEngine();
+	final SteadyStateSolver newton = new SteadyStateSolver(engine);
+
+	private static void assertSameState(PlasmaState expected, PlasmaState actual) {
+		assertEquals(expected.W_MJ, actual.W_MJ, 1e-3 * expected.W_MJ);
+		assertEquals(expected.n20_, actual.n20_, 1e-3 * expected.n20_);
+	}
+
+	@Test
+	void hysteresisHasThreeBranches() {
+		DesignPoint p = DesignPoint.iterR8().pwS(30).mdS(40).build();
+		List<SteadyState> roots = newton.branches(p);
+		assertEquals(3, roots.size());
+		for (int i = 0; i < roots.size(); i++) {
+			SteadyState r = roots.get(i);
+			assertTrue(r.converged);
+			assertTrue(engine.isSteady(r.state, PlasmaEngine.TOL));
+			if (i > 0) {
+				assertTrue(roots.get(i - 1).state.W_MJ < r.state.W_MJ, "lowest W_MJ first");
+			}
+		}
+		// driven and ignited stable, the saddle between them not
+		assertTrue(newton.isStable(p, roots.get(0).state));
+		assertFalse(newton.isStable(p, roots.get(1).state));
+		assertTrue(newton.isStable(p, roots.get(2).state));
+		// the transient from the initial conditions settles on the driven one,
+		// from above the saddle on the ignited one
+		assertSameState(roots.get(0).state, engine.solve(p).state);
+		PlasmaState hot = roots.get(2).state;
+		SteadyState t = engine.solve(p, engine.evaluate(p, 1.1 * hot.W_MJ, hot.n20_));
+		assertTrue(t.converged);
+		assertSameState(hot, t.state);
+	}
+
+	@Test
+	void singleBranchIsTheTransient() {
+		DesignPoint p = DesignPoint.iterR8().pwS(0).mdS(40).build();
+		List<SteadyState> roots = newton.branches(p);
+		assertEquals(1, roots.size());
+		assertTrue(newton.isStable(p, roots.get(0).state));
+		SteadyState t = engine.solve(p);
+		assertTrue(t.converged);
+		assertSameState(roots.get(0).state, t.state);
+		assertSameState(roots.get(0).state, newton.solve(p).state);
+	}
+}
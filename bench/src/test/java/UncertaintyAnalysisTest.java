@@ -0,0 +1,60 @@
+//=============================================================================
+// Title:        UncertaintyAnalysisTest.java
+// Description:  A seed gives the same counts and quantiles on any pool size.
+//=============================================================================
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+class UncertaintyAnalysisTest {
+
+	// a few ForkJoin splits (GRAIN = 1024)
+	static final long SAMPLES = 3000;
+	static final double[] Q = { 0.01, 0.5, 0.99 };
+
+	private static UncertaintyAnalysis analysis() {
+		SteadyStateSolver newton = new SteadyStateSolver(new PlasmaEngine());
+		return new UncertaintyAnalysis(DesignPoint.iterR8().build(), newton::solve)
+				.vary(SweepParameter.h_mult, UncertaintyAnalysis.Distribution.normal(1.2, 0.1, 1, 2))
+				.vary(SweepParameter.F_plant, UncertaintyAnalysis.Distribution.uniform(0.3, 0.5))
+				.vary(SweepParameter.Troy_c, UncertaintyAnalysis.Distribution.triangular(2.5, 3, 5));
+	}
+
+	private static UncertaintyAnalysis.Result run(int threads, long seed) {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			return analysis().run(pool, SAMPLES, seed);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void sameResultOnAnyPoolSize() {
+		UncertaintyAnalysis.Result one = run(1, 42);
+		assertTrue(one.converged > 0);
+		for (int threads : new int[] { 2, 5 }) {
+			UncertaintyAnalysis.Result r = run(threads, 42);
+			assertEquals(one.samples, r.samples);
+			assertEquals(one.converged, r.converged);
+			assertEquals(one.feasible, r.feasible);
+			for (ResultColumn c : UncertaintyAnalysis.DEFAULT_COLUMNS) {
+				assertEquals(one.digest(c).count(), r.digest(c).count(), c.name());
+				assertEquals(one.digest(c).mean(), r.digest(c).mean(), c.name());
+				for (double q : Q) {
+					assertEquals(one.quantile(c, q), r.quantile(c, q), c.name() + " q= " + q);
+				}
+			}
+		}
+	}
+
+	@Test
+	void seedChangesTheSamples() {
+		assertNotEquals(run(2, 42).quantile(ResultColumn.P_e, 0.5), run(2, 43).quantile(ResultColumn.P_e, 0.5));
+	}
+}
@@ -0,0 +1,96 @@
+//=============================================================================
+// Title:        VectorEngineTest.java
+// Description:  The lanes of VectorEngine against the scalar Euler steps of
+//               PlasmaEngine, on sampled designs with their own IPB98
+//               exponents, with and without line radiation.
+//=============================================================================
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class VectorEngineTest {
+
+	// relative difference allowed: the lanes multiply the design factors in
+	// another order than PlasmaState, and the vector log and exp may differ
+	// from Math in the last bit
+	static final double TOL = 1e-10;
+
+	// not a multiple of the lanes, so the last ones run idle
+	static final int SAMPLES = 203;
+
+	static final PlasmaEngine engine = new PlasmaEngine();
+	static final VectorEngine vector = new VectorEngine(engine);
+	static DesignPoint[] points;
+	// PlasmaEngine.solve of every point
+	static SteadyState[] steady;
+
+	@BeforeAll
+	static void sample() throws IOException {
+		CoolingRates rates = CoolingRates.parse(new StringReader("species Ar 18\n0.1 2e-31\n1 3e-32\n20 2e-32\n"
+				+ "species Kr 36\n0.1 1e-30\n5 1e-31\n30 5e-32\n"));
+		SweepAxis[] axes = { SweepAxis.full(SweepParameter.sv1, 2), SweepAxis.full(SweepParameter.sv3, 2),
+				SweepAxis.range(SweepParameter.boS, 20, 80, 2), SweepAxis.full(SweepParameter.pwS, 2),
+				SweepAxis.full(SweepParameter.mdS, 2), SweepAxis.full(SweepParameter.tau98_P, 2),
+				SweepAxis.full(SweepParameter.tau98_n, 2), SweepAxis.full(SweepParameter.nAr_ne, 2) };
+		DesignSweep plain = DesignSweep.latinHypercube(DesignPoint.iterR8().build(), SAMPLES, 7, axes);
+		DesignSweep radiating = DesignSweep.latinHypercube(
+				DesignPoint.iterR8().radiation(rates).species("Kr", 2e-4).build(), SAMPLES, 8, axes);
+		// both kinds side by side in the lanes
+		points = new DesignPoint[2 * SAMPLES];
+		for (int i = 0; i < SAMPLES; i++) {
+			points[2 * i] = plain.point(i);
+			points[2 * i + 1] = radiating.point(i);
+		}
+		steady = new SteadyState[points.length];
+		for (int i = 0; i < points.length; i++) {
+			steady[i] = engine.solve(points[i]);
+		}
+	}
+
+	private static void assertClose(PlasmaState expected, PlasmaState actual, String what) {
+		assertEquals(expected.W_MJ, actual.W_MJ, TOL * Math.abs(expected.W_MJ), what);
+		assertEquals(expected.n20_, actual.n20_, TOL * Math.abs(expected.n20_), what);
+	}
+
+	// the transients of the points that settle; Euler at dt = 1 s never
+	// settles on the others, whose oscillations amplify any last bit
+	@Test
+	void lanesStepAsPlasmaEngine() {
+		for (int steps : new int[] { 1, 10, 100, PlasmaEngine.ITT_MAX }) {
+			// a negative tolerance never settles, not even on an exact fixed point
+			SteadyState[] v = vector.solve(points, -1, steps);
+			for (int i = 0; i < points.length; i++) {
+				if (!steady[i].converged) {
+					continue;
+				}
+				PlasmaState s = engine.advance(points[i], engine.initial(points[i]), steps);
+				assertEquals(steps, v[i].itt, "point " + i);
+				assertClose(s, v[i].state, "point " + i + " after " + steps + " steps");
+			}
+		}
+	}
+
+	@Test
+	void steadyStatesAsPlasmaEngineSolve() {
+		SteadyState[] v = vector.solve(points);
+		int converged = 0, radiating = 0;
+		for (int i = 0; i < points.length; i++) {
+			SteadyState s = steady[i];
+			assertEquals(s.converged, v[i].converged, "point " + i);
+			if (s.converged) {
+				assertEquals(s.itt, v[i].itt, "point " + i);
+				assertClose(s.state, v[i].state, "point " + i);
+				converged++;
+				radiating += s.state.Pline_MW > 0 ? 1 : 0;
+			}
+		}
+		assertTrue(converged > points.length / 2, converged + " converged");
+		assertTrue(radiating > points.length / 4, radiating + " converged with line radiation");
+	}
+}
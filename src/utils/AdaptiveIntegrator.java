@@ -0,0 +1,97 @@
+//=============================================================================
+// Title:        AdaptiveIntegrator.java
+// Description:  Step size control shared by the embedded integrators: a step is
+//               accepted when its error estimate is within rtol of W_MJ/n20_,
+//               otherwise it is retried smaller. States with W_MJ or n20_ <= 0
+//               are rejected, so no clamping to initial conditions is needed.
+//               A step that shrinks below HMIN ends solve() unconverged at the
+//               last accepted state.
+//=============================================================================
+
+public abstract class AdaptiveIntegrator implements Integrator {
+
+	public static final double RTOL = 1e-3;
+
+	// step size bounds (s) and controller limits
+	static final double HMIN = 1e-9, HMAX = 1e4;
+	static final double SAFETY = 0.9, MIN_SHRINK = 0.2, MAX_GROW = 5;
+
+	protected final double rtol;
+	// exponent of the step size controller: -1/(order of the error estimate + 1)
+	private final double expo;
+
+	protected AdaptiveIntegrator(double rtol, int errorOrder) {
+		this.rtol = rtol;
+		this.expo = -1.0 / (errorOrder + 1);
+	}
+
+	// Try one step of size h from s. Returns the state at s.Time + h, or null if
+	// a stage left the physical domain; the error estimate goes to err[0..1] and
+	// a stability bound on the next step, if the method has one, to err[2]
+	protected abstract PlasmaState attempt(PlasmaEngine engine, DesignPoint p, PlasmaState s, double h,
+			double[] err);
+
+	@Override
+	public PlasmaState step(PlasmaEngine engine, DesignPoint p, PlasmaState s) {
+		PlasmaState y = tryStep(engine, p, s);
+		if (y == null) {
+			throw new ArithmeticException("step size underflow at Time= " + s.Time);
+		}
+		return y;
+	}
+
+	// as the default, but a step size underflow is a point that did not
+	// converge rather than an exception that aborts a whole sweep
+	@Override
+	public SteadyState solve(PlasmaEngine engine, DesignPoint p, PlasmaState from, double tol, int maxSteps) {
+		PlasmaState s = from;
+		int itt = 0;
+		while (!engine.isSteady(s, tol)) {
+			if (itt >= maxSteps) {
+				return new SteadyState(p, s, itt, false);
+			}
+			PlasmaState y = tryStep(engine, p, s);
+			if (y == null) {
+				return new SteadyState(p, s, itt, false);
+			}
+			itt = itt + 1;
+			s = y;
+		}
+		return new SteadyState(p, s, itt, true);
+	}
+
+	// the accepted step from s, null if the step size fell below HMIN
+	private PlasmaState tryStep(PlasmaEngine engine, DesignPoint p, PlasmaState s) {
+		double[] err = new double[3];
+		double h = Math.min(s.dt, HMAX);
+		while (true) {
+			err[2] = HMAX;
+			PlasmaState y = attempt(engine, p, s, h, err);
+			if (y != null && Double.isFinite(y.dW_MW_dt) && Double.isFinite(y.dn20_dt)) {
+				// absolute tolerance from the design W_MJo, n20o
+				double scW = rtol * (p.W_MJo + Math.max(Math.abs(s.W_MJ), Math.abs(y.W_MJ)));
+				double scN = rtol * (DesignPoint.n20o + Math.max(Math.abs(s.n20_), Math.abs(y.n20_)));
+				double e = Math.sqrt(0.5 * ((err[0] / scW) * (err[0] / scW) + (err[1] / scN) * (err[1] / scN)));
+				if (e <= 1) {
+					double grow = (e == 0) ? MAX_GROW : Math.min(MAX_GROW, SAFETY * Math.pow(e, expo));
+					return y.withDt(Math.min(err[2], h * Math.max(1, grow)));
+				}
+				if (Double.isNaN(e)) {
+					h = h * MIN_SHRINK;
+				} else {
+					h = h * Math.max(MIN_SHRINK, SAFETY * Math.pow(e, expo));
+				}
+			} else {
+				h = h * MIN_SHRINK;
+			}
+			if (h < HMIN) {
+				return null;
+			}
+		}
+	}
+
+	// y + h * sum(a_i * k_i) must stay physical
+	static boolean valid(double W_MJ, double n20_) {
+		return W_MJ > 0 && n20_ > 0;
+	}
+}
@@ -0,0 +1,207 @@
+//=============================================================================
+// Title:        Continuation.java
+// Description:  Follows an operating point along a path of designs (a sweep
+//               axis, a slider drag) instead of solving every design from the
+//               initial conditions: each point starts from its converged
+//               neighbour, moved by the tangent d(ln W_MJ, ln n20_)/dparameter,
+//               and SteadyStateSolver corrects it in a step or two. Where the
+//               branch ends (a fold such as ignition or quench) the path jumps
+//               to the branch the plasma would settle on, so tracing up and
+//               back down a parameter shows the hysteresis loop.
+//=============================================================================
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Continuation {
+
+	// a corrected point further than this from the prediction (in ln W_MJ,
+	// ln n20_) jumped to another branch
+	static final double JUMP = 0.5;
+	// finite difference of the parameter for the tangent, relative to its range
+	static final double FD = 1e-6;
+	// bisections locating a fold between two path points
+	static final int REFINE = 12;
+
+	// one point of a traced path
+	public static final class Point {
+		// parameter value
+		public final double value;
+		public final SteadyState steady;
+		public final boolean stable;
+		// parameter value of the fold between the previous point and this one
+		// (the branch ended, this point is on the one the plasma jumps to), NaN
+		// if the branch went on
+		public final double fold;
+
+		Point(double value, SteadyState steady, boolean stable, double fold) {
+			this.value = value;
+			this.steady = steady;
+			this.stable = stable;
+			this.fold = fold;
+		}
+
+		public boolean isFold() {
+			return !Double.isNaN(fold);
+		}
+	}
+
+	private final PlasmaEngine engine;
+	private final SteadyStateSolver newton;
+
+	public Continuation(PlasmaEngine engine) {
+		this(engine, PlasmaEngine.TOL);
+	}
+
+	public Continuation(PlasmaEngine engine, double tol) {
+		this.engine = engine;
+		this.newton = new SteadyStateSolver(engine, tol);
+	}
+
+	// steady state of p from the converged state of a neighbouring design (the
+	// previous slider position): Newton from it, or the transient when Newton
+	// leaves the branch or lands on an unstable point
+	public SteadyState next(DesignPoint p, PlasmaState from) {
+		PlasmaState start = engine.evaluate(p, from.W_MJ, from.n20_);
+		SteadyState s = newton.solve(p, start);
+		if (s.converged && !jumped(start, s.state) && newton.isStable(p, s.state)) {
+			return s;
+		}
+		return settle(p, start);
+	}
+
+	// steady state of p from its neighbour previous (DesignSweep.run() with a
+	// Continuation passes the previous point along the last axis), or from the
+	// initial conditions when there is none or it did not converge. Results
+	// follow the neighbour's branch where a cold start could land on another
+	public SteadyState warm(DesignPoint p, SteadyState previous) {
+		return previous == null || !previous.converged ? engine.solve(p) : next(p, previous.state);
+	}
+
+	// parameter from..to in steps, starting from the transient of the design
+	// initial conditions at from (Newton from the nominal point if it fails)
+	public List<Point> trace(DesignPoint base, SweepParameter parameter, double from, double to, int steps) {
+		DesignPoint p = design(base, parameter, from);
+		SteadyState s = settle(p, engine.initial(p));
+		if (!s.converged) {
+			s = newton.solve(p);
+		}
+		return trace(base, parameter, from, to, steps, s);
+	}
+
+	// parameter from..to in steps, starting from a steady state of the design
+	// at from, e.g. one of SteadyStateSolver.branches()
+	public List<Point> trace(DesignPoint base, SweepParameter parameter, double from, double to, int steps,
+			SteadyState start) {
+		List<Point> path = new ArrayList<Point>(steps + 1);
+		DesignPoint p = start.design;
+		SteadyState s = start;
+		path.add(new Point(from, s, newton.isStable(p, s.state), Double.NaN));
+		if (!s.converged) {
+			return path;
+		}
+		double h = (to - from) / steps;
+		double[] jac = new double[4];
+		double det = jacobian(p, s.state, jac);
+		for (int k = 1; k <= steps; k++) {
+			double v0 = from + (k - 1) * h, v1 = from + k * h;
+			DesignPoint p1 = design(base, parameter, v1);
+			PlasmaState guess = predict(base, parameter, p, p1, v0, s.state, jac, det, h);
+			SteadyState c = newton.solve(p1, guess);
+			double det1 = c.converged ? jacobian(p1, c.state, jac) : Double.NaN;
+			double fold = Double.NaN;
+			if (!c.converged || jumped(guess, c.state) || Math.signum(det1) != Math.signum(det)) {
+				// the branch ended between v0 and v1: settle on what the plasma
+				// does at v1 and locate the fold on the way
+				fold = locate(base, parameter, p, v0, v1, s.state);
+				c = settle(p1, engine.evaluate(p1, s.state.W_MJ, s.state.n20_));
+				if (!c.converged) {
+					path.add(new Point(v1, c, false, fold));
+					return path;
+				}
+				det1 = jacobian(p1, c.state, jac);
+			}
+			p = p1;
+			s = c;
+			det = det1;
+			path.add(new Point(v1, s, newton.isStable(p, s.state), fold));
+		}
+		return path;
+	}
+
+	// tangent predictor from the state s of p converged at v, as a state of
+	// p1 at v + h: with F(ln W, ln n; v) = 0 along the branch, the state moves
+	// by -J^-1 dF/dv per unit of the parameter
+	PlasmaState predict(DesignPoint base, SweepParameter parameter, DesignPoint p, DesignPoint p1, double v,
+			PlasmaState s, double[] jac, double det, double h) {
+		double dv = FD * (parameter.max - parameter.min) * Math.signum(h);
+		double[] f = new double[2], fv = new double[2];
+		PlasmaState.rates(p, s.W_MJ, s.n20_, f);
+		PlasmaState.rates(design(base, parameter, v + dv), s.W_MJ, s.n20_, fv);
+		double fW = (fv[0] - f[0]) / dv, fn = (fv[1] - f[1]) / dv;
+		double dx = -(jac[3] * fW - jac[1] * fn) / det * h;
+		double dy = -(jac[0] * fn - jac[2] * fW) / det * h;
+		double big = Math.max(Math.abs(dx), Math.abs(dy));
+		if (!(big <= SteadyStateSolver.MAX_LOG_STEP)) {
+			// near the fold the tangent is vertical: fall back to the last state
+			dx = 0;
+			dy = 0;
+		}
+		return engine.evaluate(p1, s.W_MJ * Math.exp(dx), s.n20_ * Math.exp(dy));
+	}
+
+	// Jacobian {dfW/dlnW, dfW/dlnn, dfn/dlnW, dfn/dlnn} of the rates at s into
+	// jac, returns its determinant (changes sign across a fold)
+	double jacobian(DesignPoint p, PlasmaState s, double[] jac) {
+		double e = SteadyStateSolver.FD;
+		double W = s.W_MJ, n = s.n20_;
+		double[] f = new double[2], fw = new double[2], fn = new double[2];
+		PlasmaState.rates(p, W, n, f);
+		PlasmaState.rates(p, W * Math.exp(e), n, fw);
+		PlasmaState.rates(p, W, n * Math.exp(e), fn);
+		jac[0] = (fw[0] - f[0]) / e;
+		jac[1] = (fn[0] - f[0]) / e;
+		jac[2] = (fw[1] - f[1]) / e;
+		jac[3] = (fn[1] - f[1]) / e;
+		return jac[0] * jac[3] - jac[1] * jac[2];
+	}
+
+	// parameter value of the fold between v0 (branch at s) and v1 by bisection:
+	// a Newton step from the last point still on the branch converges below it
+	double locate(DesignPoint base, SweepParameter parameter, DesignPoint p, double v0, double v1,
+			PlasmaState s) {
+		double[] jac = new double[4];
+		double det = jacobian(p, s, jac);
+		for (int i = 0; i < REFINE; i++) {
+			double v = 0.5 * (v0 + v1);
+			DesignPoint pv = design(base, parameter, v);
+			PlasmaState guess = engine.evaluate(pv, s.W_MJ, s.n20_);
+			SteadyState c = newton.solve(pv, guess);
+			if (c.converged && !jumped(guess, c.state) && Math.signum(jacobian(pv, c.state, jac)) == Math.signum(det)) {
+				v0 = v;
+				s = c.state;
+			} else {
+				v1 = v;
+			}
+		}
+		return 0.5 * (v0 + v1);
+	}
+
+	// transient from start towards steady state, finished by Newton (also when
+	// the transient runs out of steps circling the operating point)
+	private SteadyState settle(DesignPoint p, PlasmaState start) {
+		SteadyState t = engine.solve(p, start);
+		SteadyState s = newton.solve(p, t.state);
+		return s.converged ? new SteadyState(p, s.state, t.itt + s.itt, true) : t;
+	}
+
+	private static boolean jumped(PlasmaState guess, PlasmaState s) {
+		return Math.abs(Math.log(s.W_MJ / guess.W_MJ)) > JUMP || Math.abs(Math.log(s.n20_ / guess.n20_)) > JUMP;
+	}
+
+	private static DesignPoint design(DesignPoint base, SweepParameter parameter, double v) {
+		DesignPoint.Builder b = base.toBuilder();
+		parameter.apply(b, v);
+		return b.build();
+	}
+}
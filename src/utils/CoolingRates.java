@@ -0,0 +1,198 @@
+//=============================================================================
+// Title:        CoolingRates.java
+// Description:  Impurity line radiation: coronal cooling rates L_z(T) (W m^3)
+//               of any number of species, read once from a table file and
+//               resampled onto one grid uniform in sqrt(T10_) (the square root
+//               the bremsstrahlung term takes anyway), all species of a grid
+//               point side by side. A lookup is one clamp, one cast and a
+//               multiply-add per species over two adjacent cache lines.
+//
+//               Table file: "species <name> <Z>" starts a species, followed by
+//               "<T_keV> <L_z>" rows in increasing T; # starts a comment. He,
+//               Be, C, O, Ar and Fe take the DesignPoint impurity fractions,
+//               any other species DesignPoint.Builder.species(name, n_ne).
+//               L_z is the total radiation of the species (line, recombination
+//               and its bremsstrahlung): a tabulated species leaves the Zeff of
+//               the bremsstrahlung term, so its continuum is not counted twice.
+//               Line-only tables would drop that continuum.
+//=============================================================================
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public final class CoolingRates {
+
+	// grid points, uniform in sqrt(T10_) from 0 to X_MAX (T = 100 keV); rates are
+	// held beyond the last point and below the first point of each species
+	public static final int POINTS = 1024;
+	static final double X_MAX = Math.sqrt(10);
+	static final double SCALE = (POINTS - 1) / X_MAX;
+	// just below the last grid interval's end, so i + 1 stays on the grid
+	static final double U_MAX = (POINTS - 1) * (1 - 1e-12);
+
+	private final List<String> names;
+	private final int[] Z;
+	// grid[i * species + z]: L_z (W m^3) of species z at grid point i
+	private final double[] grid;
+
+	private CoolingRates(List<String> names, int[] Z, double[] grid) {
+		this.names = Collections.unmodifiableList(names);
+		this.Z = Z;
+		this.grid = grid;
+	}
+
+	public static CoolingRates read(Path file) throws IOException {
+		try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			return parse(in);
+		}
+	}
+
+	public static CoolingRates parse(Reader in) throws IOException {
+		BufferedReader r = new BufferedReader(in);
+		List<String> names = new ArrayList<String>();
+		List<Integer> charges = new ArrayList<Integer>();
+		List<double[]> T = new ArrayList<double[]>(), L = new ArrayList<double[]>();
+		int n = 0;
+		int number = 0;
+		for (String line; (line = r.readLine()) != null;) {
+			number++;
+			int hash = line.indexOf('#');
+			String[] f = (hash >= 0 ? line.substring(0, hash) : line).trim().split("\\s+");
+			if (f[0].isEmpty()) {
+				continue;
+			}
+			if (f[0].equals("species")) {
+				if (f.length != 3 || names.contains(f[1])) {
+					throw new IllegalArgumentException("line " + number + ": species <new name> <Z>");
+				}
+				close(names, T, L, n);
+				names.add(f[1]);
+				charges.add((int) number(f[2], number));
+				T.add(new double[16]);
+				L.add(new double[16]);
+				n = 0;
+				continue;
+			}
+			if (names.isEmpty() || f.length != 2) {
+				throw new IllegalArgumentException("line " + number + ": <T_keV> <L_z> after a species line");
+			}
+			int s = names.size() - 1;
+			double t = number(f[0], number), l = number(f[1], number);
+			if (!(t > 0 && l > 0) || (n > 0 && !(t > T.get(s)[n - 1]))) {
+				throw new IllegalArgumentException("line " + number + ": T_keV increasing, T_keV and L_z > 0");
+			}
+			if (n == T.get(s).length) {
+				T.set(s, Arrays.copyOf(T.get(s), 2 * n));
+				L.set(s, Arrays.copyOf(L.get(s), 2 * n));
+			}
+			T.get(s)[n] = t;
+			L.get(s)[n++] = l;
+		}
+		close(names, T, L, n);
+		if (names.isEmpty()) {
+			throw new IllegalArgumentException("no species");
+		}
+		int species = names.size();
+		int[] Z = new int[species];
+		double[] grid = new double[POINTS * species];
+		for (int z = 0; z < species; z++) {
+			Z[z] = charges.get(z);
+			double[] t = T.get(z), l = L.get(z);
+			for (int i = 0; i < POINTS; i++) {
+				double x = i / SCALE;
+				grid[i * species + z] = resample(t, l, 10 * x * x);
+			}
+		}
+		return new CoolingRates(names, Z, grid);
+	}
+
+	// trim the rows of the last species, which must have some
+	private static void close(List<String> names, List<double[]> T, List<double[]> L, int n) {
+		int s = names.size() - 1;
+		if (s < 0) {
+			return;
+		}
+		if (n == 0) {
+			throw new IllegalArgumentException("species " + names.get(s) + " without rows");
+		}
+		T.set(s, Arrays.copyOf(T.get(s), n));
+		L.set(s, Arrays.copyOf(L.get(s), n));
+	}
+
+	// L at T_keV, log-log between the rows, held beyond them
+	private static double resample(double[] t, double[] l, double T_keV) {
+		if (T_keV <= t[0]) {
+			return l[0];
+		}
+		int last = t.length - 1;
+		if (T_keV >= t[last]) {
+			return l[last];
+		}
+		int hi = 1;
+		while (t[hi] < T_keV) {
+			hi++;
+		}
+		double w = Math.log(T_keV / t[hi - 1]) / Math.log(t[hi] / t[hi - 1]);
+		return l[hi - 1] * Math.exp(w * Math.log(l[hi] / l[hi - 1]));
+	}
+
+	private static double number(String v, int line) {
+		try {
+			double d = Double.parseDouble(v);
+			if (Double.isFinite(d)) {
+				return d;
+			}
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new IllegalArgumentException("line " + line + ": not a number: " + v);
+	}
+
+	// species in table order
+	public List<String> names() {
+		return names;
+	}
+
+	public int species() {
+		return Z.length;
+	}
+
+	// index of a species, -1 if not in the table
+	public int indexOf(String name) {
+		return names.indexOf(name);
+	}
+
+	public int Z(int species) {
+		return Z[species];
+	}
+
+	// L_z of species (W m^3) at T10_, as the kernels interpolate it
+	public double L(int species, double T10_) {
+		double[] f = new double[Z.length];
+		f[species] = 1;
+		return line(f, Math.sqrt(T10_));
+	}
+
+	// sum over the species of f[z] L_z at sqrt(T10_) = x: no branches, the
+	// clamp is a min and both grid points of all species are adjacent
+	double line(double[] f, double x) {
+		double u = Math.min(x * SCALE, U_MAX);
+		int i = (int) u;
+		double w = u - i;
+		int S = f.length, a = i * S, b = a + S;
+		double s = 0;
+		for (int z = 0; z < S; z++) {
+			double lo = grid[a + z];
+			s += f[z] * (lo + w * (grid[b + z] - lo));
+		}
+		return s;
+	}
+}
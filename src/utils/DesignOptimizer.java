@@ -0,0 +1,278 @@
+//=============================================================================
+// Title:        DesignOptimizer.java
+// Description:  Maximizes the net electric power P_e over some design inputs
+//               (the SweepAxis ranges) within the plasma limits JStarApp shows:
+//               Greenwald n20_n20_gw < 1, Troyon n20_n20_bet < 1 and a diverted
+//               boundary (fdiv above the dee canvas threshold). Multi-start
+//               Nelder-Mead in the unit cube of the ranges, one start per
+//               ForkJoinPool task; limits are a penalty on the objective.
+//=============================================================================
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+public class DesignOptimizer {
+
+	// MW of P_e a limit exceeded by 100% costs
+	static final double PENALTY = 10000;
+	// diverted boundary, as DesignPoint.isDiverted()
+	static final double FDIV_MIN = 0.3;
+	// initial simplex edge and convergence size in the unit cube, spread of P_e (MW)
+	static final double SIMPLEX = 0.1;
+	static final double X_TOL = 1e-4;
+	static final double F_TOL = 1e-3;
+
+	// an improvement of the best point found so far
+	public static final class Step {
+		// evaluations done (all starts) when it was found
+		public final long evaluation;
+		public final int start;
+		public final double P_e;
+		public final boolean feasible;
+
+		Step(long evaluation, int start, double P_e, boolean feasible) {
+			this.evaluation = evaluation;
+			this.start = start;
+			this.P_e = P_e;
+			this.feasible = feasible;
+		}
+	}
+
+	public static final class Result {
+		// best design and its steady state, null if no start converged anywhere
+		public final DesignPoint design;
+		public final SteadyState steady;
+		public final boolean feasible;
+		public final long evaluations;
+		// improvements of the best point in the order they were found
+		public final List<Step> trace;
+
+		Result(DesignPoint design, SteadyState steady, boolean feasible, long evaluations, List<Step> trace) {
+			this.design = design;
+			this.steady = steady;
+			this.feasible = feasible;
+			this.evaluations = evaluations;
+			this.trace = Collections.unmodifiableList(trace);
+		}
+	}
+
+	private final DesignPoint base;
+	private final SweepAxis[] axes;
+	private final Function<DesignPoint, SteadyState> solver;
+
+	// optimize the inputs of axes, each between its first and last value, the
+	// other inputs as in base; solver is called from many threads at once
+	// (SteadyStateSolver::solve is the fastest, the simplex jumps too far for
+	// a Continuation warm start to pay)
+	public DesignOptimizer(DesignPoint base, Function<DesignPoint, SteadyState> solver, SweepAxis... axes) {
+		if (axes.length == 0) {
+			throw new IllegalArgumentException("no inputs to optimize");
+		}
+		this.base = base;
+		this.solver = solver;
+		this.axes = axes.clone();
+	}
+
+	// limits exceeded, relative: 0 if the state is within all of them
+	public static double violation(SteadyState s) {
+		return Math.max(0, s.state.n20_n20_gw - 1) + Math.max(0, s.state.n20_n20_bet - 1)
+				+ Math.max(0, FDIV_MIN - s.design.fdiv) / FDIV_MIN;
+	}
+
+	// starts Nelder-Mead runs from random points, each stopping after
+	// maxEvaluations or once its simplex has collapsed
+	public Result maximize(ForkJoinPool pool, int starts, int maxEvaluations, long seed) {
+		Search search = new Search();
+		SplittableRandom random = new SplittableRandom(seed);
+		List<Start> tasks = new ArrayList<Start>(starts);
+		for (int i = 0; i < starts; i++) {
+			tasks.add(new Start(search, i, random.split(), maxEvaluations));
+		}
+		pool.invoke(new RecursiveAction() {
+			@Override
+			protected void compute() {
+				invokeAll(tasks);
+			}
+		});
+		return search.result();
+	}
+
+	public Result maximize(int starts, int maxEvaluations, long seed) {
+		return maximize(ForkJoinPool.commonPool(), starts, maxEvaluations, seed);
+	}
+
+	// design at x in the unit cube of the axis ranges
+	DesignPoint design(double[] x) {
+		DesignPoint.Builder b = base.toBuilder();
+		for (int d = 0; d < axes.length; d++) {
+			SweepAxis axis = axes[d];
+			axis.parameter.apply(b, axis.from() + (axis.to() - axis.from()) * x[d]);
+		}
+		return b.build();
+	}
+
+	// best point over all starts, shared by their threads
+	private final class Search {
+		private final LongAdder evaluations = new LongAdder();
+		private final List<Step> trace = new ArrayList<Step>();
+		private SteadyState best;
+		private volatile double bestCost = Double.POSITIVE_INFINITY;
+
+		// cost (-P_e plus penalty) of the design at x
+		double evaluate(int start, double[] x) {
+			DesignPoint p = design(x);
+			SteadyState s = solver.apply(p);
+			evaluations.increment();
+			if (!s.converged || !Double.isFinite(s.state.P_e)) {
+				return Double.POSITIVE_INFINITY;
+			}
+			double v = violation(s);
+			double cost = -s.state.P_e + PENALTY * v;
+			if (cost < bestCost) {
+				improve(start, s, cost, v == 0);
+			}
+			return cost;
+		}
+
+		synchronized void improve(int start, SteadyState s, double cost, boolean feasible) {
+			if (cost < bestCost) {
+				bestCost = cost;
+				best = s;
+				trace.add(new Step(evaluations.sum(), start, s.state.P_e, feasible));
+			}
+		}
+
+		synchronized Result result() {
+			if (best == null) {
+				return new Result(null, null, false, evaluations.sum(), new ArrayList<Step>(trace));
+			}
+			return new Result(best.design, best, violation(best) == 0, evaluations.sum(),
+					new ArrayList<Step>(trace));
+		}
+	}
+
+	// one Nelder-Mead run (reflect 1, expand 2, contract 1/2, shrink 1/2)
+	private final class Start extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Search search;
+		private final int start;
+		private final SplittableRandom random;
+		private final int maxEvaluations;
+
+		Start(Search search, int start, SplittableRandom random, int maxEvaluations) {
+			this.search = search;
+			this.start = start;
+			this.random = random;
+			this.maxEvaluations = maxEvaluations;
+		}
+
+		@Override
+		protected void compute() {
+			int n = axes.length;
+			double[][] x = new double[n + 1][n];
+			double[] f = new double[n + 1];
+			for (int d = 0; d < n; d++) {
+				x[0][d] = random.nextDouble();
+			}
+			for (int i = 1; i <= n; i++) {
+				x[i] = x[0].clone();
+				// step into the cube
+				x[i][i - 1] += x[0][i - 1] < 1 - SIMPLEX ? SIMPLEX : -SIMPLEX;
+			}
+			for (int i = 0; i <= n; i++) {
+				f[i] = search.evaluate(start, x[i]);
+			}
+			int evals = n + 1;
+			double[] c = new double[n];
+			while (evals < maxEvaluations) {
+				sort(x, f);
+				if (f[n] - f[0] <= F_TOL && size(x) <= X_TOL) {
+					break;
+				}
+				// centroid of all but the worst
+				for (int d = 0; d < n; d++) {
+					double sum = 0;
+					for (int i = 0; i < n; i++) {
+						sum += x[i][d];
+					}
+					c[d] = sum / n;
+				}
+				double[] r = toward(c, x[n], -1);
+				double fr = search.evaluate(start, r);
+				evals++;
+				if (fr < f[0]) {
+					double[] e = toward(c, x[n], -2);
+					double fe = search.evaluate(start, e);
+					evals++;
+					if (fe < fr) {
+						x[n] = e;
+						f[n] = fe;
+					} else {
+						x[n] = r;
+						f[n] = fr;
+					}
+				} else if (fr < f[n - 1]) {
+					x[n] = r;
+					f[n] = fr;
+				} else {
+					// contract outside (towards r) or inside (towards the worst)
+					double[] k = fr < f[n] ? toward(c, r, 0.5) : toward(c, x[n], 0.5);
+					double fk = search.evaluate(start, k);
+					evals++;
+					if (fk < Math.min(fr, f[n])) {
+						x[n] = k;
+						f[n] = fk;
+					} else {
+						for (int i = 1; i <= n; i++) {
+							x[i] = toward(x[0], x[i], 0.5);
+							f[i] = search.evaluate(start, x[i]);
+						}
+						evals += n;
+					}
+				}
+			}
+		}
+
+		// from + t (to - from), clamped to the unit cube
+		private double[] toward(double[] from, double[] to, double t) {
+			double[] y = new double[from.length];
+			for (int d = 0; d < y.length; d++) {
+				y[d] = Math.min(1, Math.max(0, from[d] + t * (to[d] - from[d])));
+			}
+			return y;
+		}
+
+		// largest distance of a vertex from the best one (max norm)
+		private double size(double[][] x) {
+			double s = 0;
+			for (int i = 1; i < x.length; i++) {
+				for (int d = 0; d < x[0].length; d++) {
+					s = Math.max(s, Math.abs(x[i][d] - x[0][d]));
+				}
+			}
+			return s;
+		}
+
+		// vertices by increasing cost (insertion sort, n is small)
+		private void sort(double[][] x, double[] f) {
+			for (int i = 1; i < f.length; i++) {
+				double fi = f[i];
+				double[] xi = x[i];
+				int j = i - 1;
+				while (j >= 0 && f[j] > fi) {
+					f[j + 1] = f[j];
+					x[j + 1] = x[j];
+					j--;
+				}
+				f[j + 1] = fi;
+				x[j + 1] = xi;
+			}
+		}
+	}
+}
@@ -0,0 +1,600 @@
+//=============================================================================
+// Title:        DesignPoint.java
+// Description:  Immutable design inputs for the JStarApp plasma model together
+//               with the design constants calculate() derives from them.
+//               No AWT: a DesignPoint can be built and evaluated headless.
+//=============================================================================
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+public final class DesignPoint {
+
+	// magnet slider vars
+	static final double i1min = 1, i2min = 1, i3min = .1, i4min = .1;
+	static final double i1max = .1, i2max = .1, i3max = 1.0, i4max = 1.0;
+
+	// field, power and fuel slider vars (sliders run 0..80, 81 positions)
+	static final double Bomin = 1, Boran = 80;
+	static final double Pwmin = 1, Pwmax = 100, Pwran = 80;
+	static final double Mdmin = 0.005, Mdran = 80;
+
+	// dee calculation constants
+	static final double Z_o = 0, d_min = 0.0, faMax = .5;
+
+	// main plasma initialization design constants
+	static final double Muo = 4 * Math.PI * 0.0000001;
+	static final double Bo = 5.7;
+
+	// nominal initial design temperature, density & mass change factor
+	static final double t10o = 1.0;
+	static final double n20o = 1.2;
+	static final double IC_fac = 0.01;
+
+	// charge info
+	static final double D_frac = 0.5;
+	static final double T_frac = 0.5;
+	static final double H_frac = 1.0 - D_frac - T_frac;
+	static final double P_mass = 1.6726E-27;
+	static final double m_den_chrg = P_mass * (2 * D_frac + 3 * T_frac + 4 * H_frac);
+	static final double m_den_n20 = m_den_chrg / 1E-20;
+
+	// plasma profile info
+	static final double Alp_t = 1.0;
+	static final double Alp_n = 0.5;
+	static final double f_an_at = Math.pow((1 + Alp_n), 2) * Math.pow((1 + 2 * Alp_n + 3 * Alp_t), 2)
+			/ Math.pow((1 + 2 * Alp_n + 2 * Alp_t), 3);
+	static final double T10c = ((1 + Alp_n) * (1 + 2 * Alp_n + 3 * Alp_t))
+			/ ((1 + Alp_n + Alp_t) * (1 + 2 * Alp_n + 2 * Alp_t));
+
+	// IPB98(y,2) exponents of Ptrans_MW and n19 (tau98_fac holds 10^0.41 for n20_)
+	static final double tau98_Po = -0.69, tau98_no = 0.41;
+
+	// time step of the energy & particle balance
+	static final double dt = 1;
+
+	// ------------------------------------------------------------------------
+	// Inputs
+	// ------------------------------------------------------------------------
+	// dee magnet slider positions 0..40: 1=green OUTER, 2=red INNER,
+	// 3=blue TOP/BOTTOM INNER, 4=yellow TOP/BOTTOM OUTER
+	public final double sv1, sv2, sv3, sv4;
+	// physics slider positions 0..80: B field, power, fuel
+	public final double boS, pwS, mdS;
+	// machine: wall radii, max elongation, max fuel rate, max field
+	public final double Rmax, Rmin, kMax, Mdmax, Bomax;
+	// rational q_edge, confinement multiplier, Troyon coefficient
+	public final double q_edg, h_mult, Troy_c;
+	// impurity fractions
+	public final double nAlp_ne, nO_ne, nC_ne, nFe_ne, nBe_ne, nAr_ne;
+	// plant efficiancy info: electric / neutron power, wall plug / auxiliary power
+	public final double F_plant, F_aux;
+	// IPB98(y,2) exponents of Ptrans_MW and n20_
+	public final double tau98_P, tau98_n;
+	// line radiation tables (null: bremsstrahlung only) and the fractions of
+	// their species beyond the six above (name -> n_ne)
+	public final CoolingRates radiation;
+	public final Map<String, Double> species;
+
+	// ------------------------------------------------------------------------
+	// Derived design constants (the calculate() preamble)
+	// ------------------------------------------------------------------------
+	public final double nDT_ne, nI_ne, Zeff;
+	public final double R_o, a_o, Vol_o, k_x;
+	public final double i1, i2, i3, i4;
+	public final double R1, a1, k1, d1, a3;
+	public final double B_ino, Pw_in_MWo, mdot_V_fac, mdot100;
+	public final double Ro, a, k, d, d_used, Ro_a, Vol, Area;
+	public final double I_B, Ip_MAo, q_star, Bta_mxo, n20_gwo, Betao, Beta_mrg;
+	public final double M_toto, M_tot_Gro, W_den_MJo, W_MJo, Bta_chk;
+	public final double gin, got, gmin, gdiv, fdiv, H_fac, Conf_to;
+	public final double F_alpo, Pfus_d_MWo, Pfus_MWo, Palp_MWo, PNeut_MWo, N_wal_load;
+	// rate of input mass of particles based on Md Slider
+	public final double mdot_in;
+	// initial conditions of the energy & particle balance
+	public final double n20_o, W_MJ_o;
+	// design constant factors of the PlasmaState scaling laws, hoisted out of
+	// the run() kernel: T10_ = W_MJ * T10_fac / n20_, Pfus_MW_m3 = Pfus_fac *
+	// n20_^2 * F_alp, tau_98 = tau98_fac * B_in^1.05 Ptrans_MW^-0.69 n20_^0.41, ...
+	final double T10_fac, Pfus_fac, Pbrem_fac, tau98_fac, tau89_fac;
+	// tau98_fac * B_ino^1.05: the same with the field of the B slider
+	final double tau98_Bfac;
+	final double n_gw_fac, n_bet_fac, Bet_fac, n_in_fac, Mtot_fac;
+	// 1e34 n_ne of every radiation species: Pline_MW = n20_^2 Vol sum L_z Lrad_fac
+	final double[] Lrad_fac;
+	// precomputed shape geometry of the machine, or null
+	final GeometryTable geometry;
+
+	private DesignPoint(Builder b) {
+		sv1 = b.sv1;
+		sv2 = b.sv2;
+		sv3 = b.sv3;
+		sv4 = b.sv4;
+		boS = b.boS;
+		pwS = b.pwS;
+		mdS = b.mdS;
+		Rmax = b.Rmax;
+		Rmin = b.Rmin;
+		kMax = b.kMax;
+		Mdmax = b.Mdmax;
+		Bomax = b.Bomax;
+		q_edg = b.q_edg;
+		h_mult = b.h_mult;
+		Troy_c = b.Troy_c;
+		nAlp_ne = b.nAlp_ne;
+		nO_ne = b.nO_ne;
+		nC_ne = b.nC_ne;
+		nFe_ne = b.nFe_ne;
+		nBe_ne = b.nBe_ne;
+		nAr_ne = b.nAr_ne;
+		F_plant = b.F_plant;
+		F_aux = b.F_aux;
+		tau98_P = b.tau98_P;
+		tau98_n = b.tau98_n;
+		radiation = b.radiation;
+		species = Collections.unmodifiableMap(new TreeMap<String, Double>(b.species));
+		geometry = b.geometry;
+		// entry of the shape in the geometry table, -1: compute it
+		int g = geometry == null ? -1 : geometry.index(this);
+
+		// further species, fully stripped as the six: charge, count, Z(Z-1)
+		double xZ = 0, xN = 0, xZZ = 0;
+		for (Map.Entry<String, Double> e : species.entrySet()) {
+			int z = radiation == null ? -1 : radiation.indexOf(e.getKey());
+			if (z < 0) {
+				throw new IllegalArgumentException("species " + e.getKey() + " has no cooling rates");
+			}
+			int Z = radiation.Z(z);
+			xZ += Z * e.getValue();
+			xN += e.getValue();
+			xZZ += Z * (Z - 1) * e.getValue();
+		}
+
+		// calculate nDT_ne, Zeff
+		nDT_ne = 1.0 - 2 * nAlp_ne - 4 * nBe_ne - 6 * nC_ne - 8 * nO_ne - 18 * nAr_ne - 26 * nFe_ne - xZ;
+		nI_ne = nAlp_ne + nBe_ne + nC_ne + nO_ne + nAr_ne + nFe_ne + xN + nDT_ne;
+		Zeff = 1 + 2 * nAlp_ne + 4 * 3 * nBe_ne + 6 * 5 * nC_ne + 8 * 7 * nO_ne + 18 * 17 * nAr_ne
+				+ 26 * 25 * nFe_ne + xZZ;
+		// Zeff of the bremsstrahlung term: the cooling rates are the total
+		// radiation of their species, so tabulated species leave it
+		double Zbrem = Zeff;
+		if (radiation == null) {
+			Lrad_fac = null;
+		} else {
+			Lrad_fac = new double[radiation.species()];
+			for (int z = 0; z < Lrad_fac.length; z++) {
+				double f = fraction(radiation.names().get(z));
+				int Z = radiation.Z(z);
+				Lrad_fac[z] = 1e34 * f;
+				Zbrem -= Z * (Z - 1) * f;
+			}
+		}
+
+		// machine from Rmax, Rmin, k_o (k_o == kMax)
+		R_o = 0.5 * (Rmax + Rmin);
+		a_o = 0.5 * (Rmax - Rmin);
+		Vol_o = 2 * Math.PI * R_o * Math.PI * Math.pow(a_o, 2) * kMax;
+		k_x = 0.4 * kMax + 0.6;
+
+		// Dee graph calc ( 2* increases resolution to 40 )
+		i1 = (((i1max - i1min) / (2 * 20)) * sv2) + i1min; // red
+		i2 = (((i2max - i2min) / (2 * 20)) * sv1) + i2min; // green
+		i3 = (((i3max - i3min) / (2 * 20)) * sv4) + i3min; // yellow
+		i4 = (((i4max - i4min) / (2 * 20)) * sv3) + i4min; // blue
+		R1 = R_o + (i2 - i1) * a_o * .9;
+		a1 = Math.min(Rmax - R1, R1 - Rmin);
+		k1 = 1 + 0.5 * (i3 + i4) * (kMax - 1);
+		d1 = i4 - i3;
+		double f_k = (k1 - k_x) / (kMax - k_x);
+		double f_i1pi2 = .5 * (i1 + i2);
+		double fa = faMax - faMax * f_i1pi2;
+		double f = 1 - f_k * fa;
+		if (g >= 0) {
+			a3 = geometry.a3(g);
+		} else if (f_k < 0) {
+			a3 = a1;
+		} else {
+			a3 = a1 * f;
+		}
+
+		// Input for B Field, Power, Fuel
+		B_ino = Bomin + ((Bomax - Bomin) * boS / Boran);
+		Pw_in_MWo = Pwmin + (Pwmax - Pwmin) * pwS / Pwran;
+		mdot_V_fac = Mdmin + (Mdmax - Mdmin) * mdS / Mdran;
+		mdot100 = 100.0 * mdS / Mdran;
+
+		// mag = 1: use the dee from the sliders
+		Ro = R1;
+		a = a3;
+		k = k1;
+		d = d1;
+
+		// start calculation of main design plasma parameters
+		d_used = Math.max(d, d_min); // Dont let d go negative
+		Ro_a = Ro / a;
+		if (g >= 0) {
+			Vol = geometry.Vol(g);
+			Area = geometry.Area(g);
+			I_B = geometry.I_B(g);
+			Ip_MAo = I_B * Bo;
+			q_star = geometry.q_star(g);
+		} else {
+			Vol = 2 * Math.PI * Ro * Math.PI * Math.pow(a, 2) * k;
+			Area = 4 * Math.pow(Math.PI, 2) * Ro * a * Math.sqrt(k);
+			I_B = 0.000001 * (1.17 - 0.065 / Ro_a / Math.pow((1 - 1 / Math.pow(Ro_a, 2)), 2))
+					* (2 * Math.PI * Math.pow(a, 2)) / (Muo * Ro * q_edg)
+					* (1 + Math.pow(k, 2) * (1 + 2 * Math.pow(d_used, 2) - 1.2 * Math.pow(d_used, 3))) / 2;
+			Ip_MAo = I_B * Bo;
+			q_star = 5 * Math.pow(a, 2) * Bo / (Ro * Ip_MAo)
+					* (1 + Math.pow(k, 2) * (1 + 2 * Math.pow(d_used, 2) - 1.2 * Math.pow(d_used, 3))) / 2;
+		}
+		Bta_mxo = Troy_c * Ip_MAo / (100 * a * Bo);
+		n20_gwo = 0.27 * Ip_MAo / Math.pow(a, 2);
+		Betao = 0.402 * (1 + nI_ne) * n20o * t10o / Math.pow(Bo, 2);
+		Beta_mrg = 1 - Betao / Bta_mxo; // Beta Margin
+		M_toto = m_den_n20 * n20o * Vol_o; // Initial guess Volume based BIG Rmax,Rmin & ko
+		M_tot_Gro = M_toto / 0.001;
+		W_den_MJo = 0.2403 * (1 + nI_ne) * n20o * t10o;
+		W_MJo = W_den_MJo * Vol;
+		Bta_chk = W_den_MJo / 0.000001 / (Math.pow(Bo, 2) / (2 * Muo)) * 2 / 3;
+		gin = Ro - a - Rmin;
+		got = Rmax - (Ro + a);
+		gmin = Math.min(gin, got);
+		gdiv = 0.05 * Math.pow(R_o / 8, 2); // 10cm is to large, try 5cm jal2024
+		if (g >= 0) {
+			fdiv = geometry.fdiv(g);
+		} else if (gmin <= 0) {
+			fdiv = 0;
+		} else if (gmin >= gdiv) {
+			fdiv = 1;
+		} else {
+			fdiv = gmin / gdiv;
+		}
+		H_fac = h_mult * (fdiv + 1.0);
+		Conf_to = H_fac * 0.048 * Math.pow(Ip_MAo, 0.85) * Math.pow(Ro, 1.2) * Math.pow(a, 0.3) * Math.pow(n20o, 0.1)
+				* Math.pow(Bo, 0.2) * Math.pow((2.5 * k / Pw_in_MWo), 0.5);
+		if (t10o < T10c) {
+			F_alpo = Math.pow(t10o / T10c, 3);
+		} else if (t10o < 2 * T10c) {
+			F_alpo = Math.pow(t10o / T10c, 2);
+		} else if (t10o <= 3 * T10c) {
+			F_alpo = 4 * Math.pow(t10o / 2 * T10c, 1.5);
+		} else {
+			F_alpo = 4 * Math.pow(1.5, 1.5);
+		}
+		Pfus_d_MWo = 0.8 * f_an_at * Math.pow(nDT_ne, 2) * Math.pow(n20o, 2) * F_alpo;
+		Pfus_MWo = Pfus_d_MWo * Vol;
+		Palp_MWo = Pfus_MWo * 3.5 / 17.6;
+		PNeut_MWo = Pfus_MWo - Palp_MWo;
+		N_wal_load = PNeut_MWo / Area;
+
+		mdot_in = M_toto * mdot_V_fac;
+		n20_o = n20o * IC_fac;
+		W_MJ_o = W_MJo * IC_fac * IC_fac;
+
+		// run() kernel factors; Ip_MA = B_in * I_B folds I_B into them
+		T10_fac = 1 / (0.2403 * (1 + nI_ne) * Vol);
+		Pfus_fac = 0.8 * f_an_at * nDT_ne * nDT_ne;
+		Pbrem_fac = 0.0168 * Zbrem * Vol;
+		// n19 = 10 n20_: 10^tau98_n, from the table at the nominal exponent
+		double n19_fac = tau98_n == tau98_no ? 1 : Math.pow(10, tau98_n - tau98_no);
+		if (g >= 0) {
+			tau98_fac = geometry.tau98_fac(g) * n19_fac;
+			tau89_fac = geometry.tau89_fac(g);
+		} else {
+			tau98_fac = 0.0562 * Math.pow(I_B, 0.9) * Math.pow(10, tau98_no) * Math.pow(2.5, 0.19) * Math.pow(Ro, 1.97)
+					* Math.pow((Ro / a), -0.58) * Math.pow(k, 0.78) * n19_fac;
+			tau89_fac = 0.048 * Math.pow(I_B, 0.85) * Math.pow(Ro, 1.2) * Math.pow(a, 0.3) * Math.sqrt(2.5 * k);
+		}
+		tau98_Bfac = tau98_fac * Math.pow(B_ino, 1.05);
+		n_gw_fac = a * a / (0.27 * I_B);
+		n_bet_fac = 40.2 * (1 + nI_ne) * a / (Troy_c * I_B);
+		Bet_fac = 0.402 * (1 + nI_ne);
+		n_in_fac = 1 / (0.000000418 * Vol);
+		Mtot_fac = 0.418 * 0.000001 * Vol / 0.001;
+	}
+
+	// n_ne of a radiation species: the impurity fields by element, else species
+	double fraction(String name) {
+		switch (name) {
+		case "He":
+			return nAlp_ne;
+		case "Be":
+			return nBe_ne;
+		case "C":
+			return nC_ne;
+		case "O":
+			return nO_ne;
+		case "Ar":
+			return nAr_ne;
+		case "Fe":
+			return nFe_ne;
+		default:
+			Double f = species.get(name);
+			return f == null ? 0 : f;
+		}
+	}
+
+	// diverted (vs. limited) boundary as drawn by the dee canvas
+	public boolean isDiverted() {
+		return fdiv > 0.3;
+	}
+
+	public Builder toBuilder() {
+		return new Builder(this);
+	}
+
+	// ITER_R=8m preset with its shaped dee (see JStarApp.itemStateChanged)
+	public static Builder iterR8() {
+		return new Builder().Rmax(11).Rmin(5).kMax(1.8).Mdmax(0.4).shape(40 - 38, 40 - 36, 35, 23);
+	}
+
+	// ITER_R=6m preset with its shaped dee (see JStarApp.itemStateChanged)
+	public static Builder iterR6() {
+		return new Builder().Rmax(8.4).Rmin(4.0).kMax(2.1).Mdmax(0.6).shape(20, 20, 31, 17);
+	}
+
+	// round to 4 significant digits, as used for the default impurity fractions
+	static double round4(double x) {
+		double scale = Math.pow(10, Math.floor(Math.log10(Math.abs(x))) + 1 - 4);
+		return Math.round(x / scale) * scale;
+	}
+
+	// ========================================================================
+	// Builder: defaults are the JStarApp start-up state (ITER_R=8m, no shape)
+	// ========================================================================
+	public static final class Builder {
+		private double sv1 = 2 * 20, sv2 = 2 * 20, sv3 = 0, sv4 = 0;
+		private double boS = 0, pwS = 0, mdS = 0;
+		private double Rmax = 11, Rmin = 5, kMax = 1.8, Mdmax = 0.4, Bomax = 6;
+		private double q_edg = 3.0, h_mult = 1, Troy_c = 2.5;
+		private double nAlp_ne = 0.1;
+		private double nO_ne = 0.001;
+		private double nC_ne = round4(0.009 + 0.006 * Math.pow((0.7 / n20o), 2.6));
+		private double nFe_ne = round4(0.0005 * Math.pow((0.7 / n20o), 2.3));
+		private double nBe_ne = 0;
+		private double nAr_ne = 0;
+		private double F_plant = 0.4; // old 0.3 2024 based on typical modern coal/gas plants
+		private double F_aux = 3;
+		private double tau98_P = tau98_Po, tau98_n = tau98_no;
+		private CoolingRates radiation;
+		private final Map<String, Double> species = new TreeMap<String, Double>();
+		private GeometryTable geometry;
+
+		public Builder() {
+		}
+
+		public Builder(DesignPoint p) {
+			shape(p.sv1, p.sv2, p.sv3, p.sv4);
+			physics(p.boS, p.pwS, p.mdS);
+			Rmax = p.Rmax;
+			Rmin = p.Rmin;
+			kMax = p.kMax;
+			Mdmax = p.Mdmax;
+			Bomax = p.Bomax;
+			q_edg = p.q_edg;
+			h_mult = p.h_mult;
+			Troy_c = p.Troy_c;
+			impurities(p.nAlp_ne, p.nO_ne, p.nC_ne, p.nFe_ne, p.nBe_ne, p.nAr_ne);
+			F_plant = p.F_plant;
+			F_aux = p.F_aux;
+			tau98_P = p.tau98_P;
+			tau98_n = p.tau98_n;
+			radiation = p.radiation;
+			species.putAll(p.species);
+			geometry = p.geometry;
+		}
+
+		public Builder shape(double sv1, double sv2, double sv3, double sv4) {
+			this.sv1 = sv1;
+			this.sv2 = sv2;
+			this.sv3 = sv3;
+			this.sv4 = sv4;
+			return this;
+		}
+
+		public Builder physics(double boS, double pwS, double mdS) {
+			this.boS = boS;
+			this.pwS = pwS;
+			this.mdS = mdS;
+			return this;
+		}
+
+		public Builder impurities(double nAlp_ne, double nO_ne, double nC_ne, double nFe_ne, double nBe_ne,
+				double nAr_ne) {
+			this.nAlp_ne = nAlp_ne;
+			this.nO_ne = nO_ne;
+			this.nC_ne = nC_ne;
+			this.nFe_ne = nFe_ne;
+			this.nBe_ne = nBe_ne;
+			this.nAr_ne = nAr_ne;
+			return this;
+		}
+
+		public Builder sv1(double v) {
+			sv1 = v;
+			return this;
+		}
+
+		public Builder sv2(double v) {
+			sv2 = v;
+			return this;
+		}
+
+		public Builder sv3(double v) {
+			sv3 = v;
+			return this;
+		}
+
+		public Builder sv4(double v) {
+			sv4 = v;
+			return this;
+		}
+
+		public Builder boS(double v) {
+			boS = v;
+			return this;
+		}
+
+		public Builder pwS(double v) {
+			pwS = v;
+			return this;
+		}
+
+		public Builder mdS(double v) {
+			mdS = v;
+			return this;
+		}
+
+		public Builder Rmax(double v) {
+			Rmax = v;
+			return this;
+		}
+
+		public Builder Rmin(double v) {
+			Rmin = v;
+			return this;
+		}
+
+		public Builder kMax(double v) {
+			kMax = v;
+			return this;
+		}
+
+		public Builder Mdmax(double v) {
+			Mdmax = v;
+			return this;
+		}
+
+		public Builder Bomax(double v) {
+			Bomax = v;
+			return this;
+		}
+
+		public Builder q_edg(double v) {
+			q_edg = v;
+			return this;
+		}
+
+		public Builder h_mult(double v) {
+			h_mult = v;
+			return this;
+		}
+
+		public Builder Troy_c(double v) {
+			Troy_c = v;
+			return this;
+		}
+
+		public Builder nAlp_ne(double v) {
+			nAlp_ne = v;
+			return this;
+		}
+
+		public Builder nC_ne(double v) {
+			nC_ne = v;
+			return this;
+		}
+
+		public Builder nFe_ne(double v) {
+			nFe_ne = v;
+			return this;
+		}
+
+		public Builder nO_ne(double v) {
+			nO_ne = v;
+			return this;
+		}
+
+		public Builder nBe_ne(double v) {
+			nBe_ne = v;
+			return this;
+		}
+
+		public Builder nAr_ne(double v) {
+			nAr_ne = v;
+			return this;
+		}
+
+		public Builder F_plant(double v) {
+			F_plant = v;
+			return this;
+		}
+
+		public Builder F_aux(double v) {
+			F_aux = v;
+			return this;
+		}
+
+		public Builder tau98_P(double v) {
+			tau98_P = v;
+			return this;
+		}
+
+		public Builder tau98_n(double v) {
+			tau98_n = v;
+			return this;
+		}
+
+		// impurity line radiation from these tables (null: bremsstrahlung only)
+		public Builder radiation(CoolingRates t) {
+			radiation = t;
+			return this;
+		}
+
+		// n_ne of a species of the radiation tables other than He, Be, C, O, Ar,
+		// Fe (their fields); 0 drops it
+		public Builder species(String name, double n_ne) {
+			switch (name) {
+			case "He":
+			case "Be":
+			case "C":
+			case "O":
+			case "Ar":
+			case "Fe":
+				throw new IllegalArgumentException(name + " is an impurity field, not a species");
+			default:
+				break;
+			}
+			if (!(n_ne >= 0)) {
+				throw new IllegalArgumentException("species " + name + " n_ne= " + n_ne);
+			}
+			if (n_ne == 0) {
+				species.remove(name);
+			} else {
+				species.put(name, n_ne);
+			}
+			return this;
+		}
+
+		// "name:n_ne,name:n_ne,..." as species(name, n_ne)
+		public Builder species(String list) {
+			for (String s : list.split(",")) {
+				if (s.trim().isEmpty()) {
+					continue;
+				}
+				String[] f = s.trim().split(":");
+				if (f.length != 2) {
+					throw new IllegalArgumentException("species name:n_ne, not " + s);
+				}
+				try {
+					species(f[0].trim(), Double.parseDouble(f[1].trim()));
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("species name:n_ne, not " + s);
+				}
+			}
+			return this;
+		}
+
+		// precomputed shape geometry, used when it matches the machine (null: none)
+		public Builder geometry(GeometryTable t) {
+			geometry = t;
+			return this;
+		}
+
+		public DesignPoint build() {
+			return new DesignPoint(this);
+		}
+	}
+}
@@ -0,0 +1,211 @@
+//=============================================================================
+// Title:        DesignSweep.java
+// Description:  Batch evaluation of a Cartesian grid or Latin hypercube sample
+//               of design points on a ForkJoinPool. Points are generated from
+//               their index and results are handed to a Sink as they are
+//               solved, so a sweep never holds its points or results in memory
+//               and index ranges are split by work stealing.
+//=============================================================================
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+public class DesignSweep {
+
+	// receives every solved point, from many threads at once
+	public interface Sink {
+		void accept(long index, SteadyState result);
+	}
+
+	// points solved in one task before it stops splitting
+	static final long GRAIN = 256;
+
+	private final DesignPoint base;
+	private final SweepAxis[] axes;
+	private final long size;
+	// latin hypercube: stratum = (mult * index + shift) mod size per axis
+	private final boolean lhs;
+	private final long[] mult, shift;
+	private final long seed;
+
+	private DesignSweep(DesignPoint base, SweepAxis[] axes, long size, boolean lhs, long seed) {
+		this.base = base;
+		this.axes = axes.clone();
+		this.size = size;
+		this.lhs = lhs;
+		this.seed = seed;
+		this.mult = new long[axes.length];
+		this.shift = new long[axes.length];
+		if (lhs) {
+			long h = seed;
+			for (int d = 0; d < axes.length; d++) {
+				h = mix(h + d);
+				shift[d] = Math.floorMod(h, size);
+				long m = 1 + Math.floorMod(mix(h), size);
+				while (gcd(m, size) != 1) {
+					m = m + 1;
+				}
+				mult[d] = m % size;
+			}
+		}
+	}
+
+	// every combination of the axis values, last axis varying fastest
+	public static DesignSweep cartesian(DesignPoint base, SweepAxis... axes) {
+		long size = 1;
+		for (SweepAxis axis : axes) {
+			size = Math.multiplyExact(size, axis.size());
+		}
+		return new DesignSweep(base, axes, size, false, 0);
+	}
+
+	// samples points, each axis range cut in samples strata used exactly once
+	public static DesignSweep latinHypercube(DesignPoint base, int samples, long seed, SweepAxis... axes) {
+		if (samples < 1) {
+			throw new IllegalArgumentException("samples= " + samples);
+		}
+		return new DesignSweep(base, axes, samples, true, seed);
+	}
+
+	public long size() {
+		return size;
+	}
+
+	public DesignPoint point(long index) {
+		return point(index, base.toBuilder());
+	}
+
+	// design point of index, set on a builder copied from the base point
+	public DesignPoint point(long index, DesignPoint.Builder b) {
+		if (lhs) {
+			for (int d = 0; d < axes.length; d++) {
+				SweepAxis axis = axes[d];
+				long stratum = (mult[d] * index + shift[d]) % size;
+				// jitter inside the stratum, reproducible from seed, index and axis
+				double u = (mix(seed ^ mix(index * axes.length + d)) >>> 11) * 0x1.0p-53;
+				axis.parameter.apply(b, axis.from() + (axis.to() - axis.from()) * (stratum + u) / size);
+			}
+		} else {
+			long i = index;
+			for (int d = axes.length - 1; d >= 0; d--) {
+				SweepAxis axis = axes[d];
+				axis.parameter.apply(b, axis.value((int) (i % axis.size())));
+				i = i / axis.size();
+			}
+		}
+		return b.build();
+	}
+
+	// solve every point on the common pool
+	public long run(Function<DesignPoint, SteadyState> solver, Sink sink) {
+		return run(ForkJoinPool.commonPool(), solver, sink);
+	}
+
+	// solve every point on pool, returns the number of points solved
+	public long run(ForkJoinPool pool, Function<DesignPoint, SteadyState> solver, Sink sink) {
+		LongAdder count = new LongAdder();
+		pool.invoke(new Chunk(0, size, solver, null, 0, null, sink, count));
+		return count.sum();
+	}
+
+	// solve every point warm started by continuation from the previous point
+	// along the last axis of a cartesian sweep. Each chunk walks its range in
+	// order and starts cold at its first point and wherever the last axis wraps,
+	// so results do not depend on the pool or on work stealing (latin hypercube
+	// points have no neighbours and all start cold)
+	public long run(ForkJoinPool pool, Continuation continuation, Sink sink) {
+		LongAdder count = new LongAdder();
+		pool.invoke(new Chunk(0, size, null, null, 0, continuation, sink, count));
+		return count.sum();
+	}
+
+	// solve batches of up to batch points at once (e.g. VectorEngine::solve)
+	public long run(ForkJoinPool pool, int batch, Function<DesignPoint[], SteadyState[]> solver, Sink sink) {
+		if (batch < 1) {
+			throw new IllegalArgumentException("batch= " + batch);
+		}
+		LongAdder count = new LongAdder();
+		pool.invoke(new Chunk(0, size, null, solver, batch, null, sink, count));
+		return count.sum();
+	}
+
+	private final class Chunk extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final long lo, hi;
+		private final Function<DesignPoint, SteadyState> solver;
+		private final Function<DesignPoint[], SteadyState[]> batchSolver;
+		private final int batch;
+		private final Continuation continuation;
+		private final Sink sink;
+		private final LongAdder count;
+
+		Chunk(long lo, long hi, Function<DesignPoint, SteadyState> solver,
+				Function<DesignPoint[], SteadyState[]> batchSolver, int batch, Continuation continuation,
+				Sink sink, LongAdder count) {
+			this.lo = lo;
+			this.hi = hi;
+			this.solver = solver;
+			this.batchSolver = batchSolver;
+			this.batch = batch;
+			this.continuation = continuation;
+			this.sink = sink;
+			this.count = count;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > GRAIN) {
+				long mid = (lo + hi) >>> 1;
+				invokeAll(new Chunk(lo, mid, solver, batchSolver, batch, continuation, sink, count),
+						new Chunk(mid, hi, solver, batchSolver, batch, continuation, sink, count));
+				return;
+			}
+			DesignPoint.Builder b = base.toBuilder();
+			if (continuation != null) {
+				long row = lhs || axes.length == 0 ? 1 : axes[axes.length - 1].size();
+				SteadyState prev = null;
+				for (long i = lo; i < hi; i++) {
+					if (i % row == 0) {
+						prev = null;
+					}
+					prev = continuation.warm(point(i, b), prev);
+					sink.accept(i, prev);
+				}
+			} else if (batchSolver == null) {
+				for (long i = lo; i < hi; i++) {
+					sink.accept(i, solver.apply(point(i, b)));
+				}
+			} else {
+				for (long i = lo; i < hi; i += batch) {
+					DesignPoint[] points = new DesignPoint[(int) Math.min(batch, hi - i)];
+					for (int j = 0; j < points.length; j++) {
+						points[j] = point(i + j, b);
+					}
+					SteadyState[] results = batchSolver.apply(points);
+					for (int j = 0; j < points.length; j++) {
+						sink.accept(i + j, results[j]);
+					}
+				}
+			}
+			count.add(hi - lo);
+		}
+	}
+
+	// SplitMix64 finalizer
+	static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private static long gcd(long a, long b) {
+		while (b != 0) {
+			long t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+}
@@ -0,0 +1,81 @@
+//=============================================================================
+// Title:        DormandPrince45.java
+// Description:  Explicit Runge-Kutta 5(4) of Dormand & Prince with step size
+//               control. First same as last: k1 is the derivative the state
+//               already carries, k7 comes with the new state. Steps are kept
+//               inside the stability region (Hairer's stiffness estimate), else
+//               the error control chatters around stiff equilibria.
+//=============================================================================
+
+public class DormandPrince45 extends AdaptiveIntegrator {
+
+	static final double c2 = 1.0 / 5, c3 = 3.0 / 10, c4 = 4.0 / 5, c5 = 8.0 / 9;
+	static final double a21 = 1.0 / 5;
+	static final double a31 = 3.0 / 40, a32 = 9.0 / 40;
+	static final double a41 = 44.0 / 45, a42 = -56.0 / 15, a43 = 32.0 / 9;
+	static final double a51 = 19372.0 / 6561, a52 = -25360.0 / 2187, a53 = 64448.0 / 6561, a54 = -212.0 / 729;
+	static final double a61 = 9017.0 / 3168, a62 = -355.0 / 33, a63 = 46732.0 / 5247, a64 = 49.0 / 176,
+			a65 = -5103.0 / 18656;
+	static final double b1 = 35.0 / 384, b3 = 500.0 / 1113, b4 = 125.0 / 192, b5 = -2187.0 / 6784, b6 = 11.0 / 84;
+	// 5th minus 4th order weights
+	static final double e1 = 71.0 / 57600, e3 = -71.0 / 16695, e4 = 71.0 / 1920, e5 = -17253.0 / 339200,
+			e6 = 22.0 / 525, e7 = -1.0 / 40;
+	// h * |lambda| the next step may take, inside the real stability interval (~3.3)
+	static final double STABLE_HL = 3.0;
+
+	public DormandPrince45() {
+		this(RTOL);
+	}
+
+	public DormandPrince45(double rtol) {
+		super(rtol, 4);
+	}
+
+	@Override
+	protected PlasmaState attempt(PlasmaEngine engine, DesignPoint p, PlasmaState s, double h, double[] err) {
+		double W = s.W_MJ, n = s.n20_, t = s.Time;
+		double[] k = new double[2];
+		double k1W = s.dW_MW_dt, k1n = s.dn20_dt;
+
+		if (!engine.derivatives(p, t + c2 * h, W + h * a21 * k1W, n + h * a21 * k1n, k))
+			return null;
+		double k2W = k[0], k2n = k[1];
+
+		if (!engine.derivatives(p, t + c3 * h, W + h * (a31 * k1W + a32 * k2W), n + h * (a31 * k1n + a32 * k2n), k))
+			return null;
+		double k3W = k[0], k3n = k[1];
+
+		if (!engine.derivatives(p, t + c4 * h, W + h * (a41 * k1W + a42 * k2W + a43 * k3W),
+				n + h * (a41 * k1n + a42 * k2n + a43 * k3n), k))
+			return null;
+		double k4W = k[0], k4n = k[1];
+
+		if (!engine.derivatives(p, t + c5 * h, W + h * (a51 * k1W + a52 * k2W + a53 * k3W + a54 * k4W),
+				n + h * (a51 * k1n + a52 * k2n + a53 * k3n + a54 * k4n), k))
+			return null;
+		double k5W = k[0], k5n = k[1];
+
+		double W6 = W + h * (a61 * k1W + a62 * k2W + a63 * k3W + a64 * k4W + a65 * k5W);
+		double n6 = n + h * (a61 * k1n + a62 * k2n + a63 * k3n + a64 * k4n + a65 * k5n);
+		if (!engine.derivatives(p, t + h, W6, n6, k))
+			return null;
+		double k6W = k[0], k6n = k[1];
+
+		double W5 = W + h * (b1 * k1W + b3 * k3W + b4 * k4W + b5 * k5W + b6 * k6W);
+		double n5 = n + h * (b1 * k1n + b3 * k3n + b4 * k4n + b5 * k5n + b6 * k6n);
+		if (!valid(W5, n5))
+			return null;
+		PlasmaState y = engine.evaluate(p, W5, n5, t + h, h);
+		// k7 = f(y5)
+		err[0] = h * (e1 * k1W + e3 * k3W + e4 * k4W + e5 * k5W + e6 * k6W + e7 * y.dW_MW_dt);
+		err[1] = h * (e1 * k1n + e3 * k3n + e4 * k4n + e5 * k5n + e6 * k6n + e7 * y.dn20_dt);
+		// |lambda| ~ |k7 - k6| / |y5 - y6|, scaled like the error norm
+		double sW = p.W_MJo, sN = DesignPoint.n20o;
+		double dk = Math.hypot((y.dW_MW_dt - k6W) / sW, (y.dn20_dt - k6n) / sN);
+		double dy = Math.hypot((W5 - W6) / sW, (n5 - n6) / sN);
+		if (dk > 0 && dy > 0) {
+			err[2] = STABLE_HL * dy / dk;
+		}
+		return y;
+	}
+}
@@ -0,0 +1,50 @@
+//=============================================================================
+// Title:        EulerIntegrator.java
+// Description:  Fixed step (dt = 1 s) forward Euler of the original run() loop,
+//               including its reset to the initial conditions on collapse.
+//=============================================================================
+
+public class EulerIntegrator implements Integrator {
+
+	@Override
+	public PlasmaState step(PlasmaEngine engine, DesignPoint p, PlasmaState s) {
+		double dt = DesignPoint.dt;
+		double n_new = s.n20_ + s.dn20_dt * dt;
+		double n20_ = (n_new <= 0.001 * p.n20_o) ? p.n20_o : n_new;
+		double W_new = s.W_MJ + s.dW_MW_dt * dt;
+		double W_MJ = (W_new <= 0.001 * p.W_MJ_o) ? p.W_MJ_o : W_new;
+		return engine.evaluate(p, W_MJ, n20_, s.Time + dt, dt);
+	}
+
+	// same steps as the state loop, on primitives: one PlasmaState at the end
+	@Override
+	public SteadyState solve(PlasmaEngine engine, DesignPoint p, PlasmaState from, double tol, int maxSteps) {
+		double dt = DesignPoint.dt;
+		double W_MJ = from.W_MJ, n20_ = from.n20_, Time = from.Time;
+		double dW_MW_dt = from.dW_MW_dt, dn20_dt = from.dn20_dt;
+		double Pgain_MW = from.Pgain_MW, n20_in_rat = from.n20_in_rat;
+		double[] f = new double[4];
+		int itt = 0;
+		while (!(Math.abs(dW_MW_dt) <= tol * Math.abs(Pgain_MW) && Math.abs(dn20_dt) <= tol * n20_in_rat)) {
+			if (itt >= maxSteps) {
+				break;
+			}
+			itt = itt + 1;
+			double n_new = n20_ + dn20_dt * dt;
+			n20_ = (n_new <= 0.001 * p.n20_o) ? p.n20_o : n_new;
+			double W_new = W_MJ + dW_MW_dt * dt;
+			W_MJ = (W_new <= 0.001 * p.W_MJ_o) ? p.W_MJ_o : W_new;
+			Time = Time + dt;
+			PlasmaState.rates(p, W_MJ, n20_, f);
+			dW_MW_dt = f[0];
+			dn20_dt = f[1];
+			Pgain_MW = f[2];
+			n20_in_rat = f[3];
+		}
+		if (itt == 0) {
+			return new SteadyState(p, from, 0, true);
+		}
+		PlasmaState s = engine.evaluate(p, W_MJ, n20_, Time, dt);
+		return new SteadyState(p, s, itt, engine.isSteady(s, tol));
+	}
+}
@@ -0,0 +1,502 @@
+//=============================================================================
+// Title:        EvaluationServer.java
+// Description:  Local HTTP/JSON server exposing the Java model to the React
+//               front end (instead of the calculations.js copy of the physics),
+//               on the JDK's built-in com.sun.net.httpserver. One virtual
+//               thread per exchange where the JDK has them (21+), a cached
+//               pool otherwise. Requests are stateless; steady states are
+//               shared through a SteadyStateCache. Listens on the loopback
+//               interface only, unless given another address to bind.
+//
+//   GET /evaluate  state at W_MJ, n20_ or after steps Euler steps from the
+//                  initial conditions (steps=301 is the calculations.js loop)
+//   GET /solve     steady state (solver=newton, cached, transient, or radial:
+//                  the 1-D RadialTransport, radialPoints cells)
+//   GET /ticks     transient as server-sent events, one every `every` steps,
+//                  millis apart, until steady or steps; engine=radial steps the
+//                  1-D profiles
+//   GET /sweep     cartesian sweep, axis=pwS:0:80:81 (repeatable), streamed as
+//                  one JSON object per line; at most MAX_SWEEP points, solved
+//                  on a pool of half the processors so that /solve keeps the
+//                  others
+//   GET /metrics   Metrics.text(): solver counter totals and histograms, cache
+//                  gauges
+//   POST /scenario Scenario file as the body, its time series streamed as one
+//                  JSON object per line, every `every` steps of dt seconds
+//
+//   Design inputs are query parameters named as SweepParameter (sv1..sv4,
+//   boS, pwS, mdS, q_edg, h_mult, ...), machine preset=R8|R6; columns=P_e,Q
+//   limits the ResultColumns returned. With -Djstar.coolingRates=file every
+//   design radiates, species=Kr:1e-5 (repeatable) adds species of the table.
+//   Bad input gives 400 {"error":...}, any other failure 500.
+//=============================================================================
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+public class EvaluationServer {
+
+	// largest sweep one request may ask for: seconds of Newton solves, not
+	// minutes
+	static final long MAX_SWEEP = 1 << 16;
+	// largest pause between transient events (ms)
+	static final long MAX_MILLIS = 1000;
+	// most steps of one scenario run
+	static final long MAX_SCENARIO = 1 << 24;
+	// cells of a radial request
+	static final int MAX_POINTS = 4096;
+
+	// the JDK server defaults suit a few clients: Nagle's algorithm on (the body
+	// waits ~40 ms for the ACK of the headers) and 200 idle keep-alive
+	// connections. Read once, when the first server is created
+	static {
+		defaultProperty("sun.net.httpserver.nodelay", "true");
+		defaultProperty("sun.net.httpserver.maxIdleConnections", "16384");
+	}
+
+	private static void defaultProperty(String key, String value) {
+		if (System.getProperty(key) == null) {
+			System.setProperty(key, value);
+		}
+	}
+
+	// line radiation tables of every design, null: bremsstrahlung only
+	static volatile CoolingRates radiation;
+
+	private final PlasmaEngine engine = new PlasmaEngine();
+	private final SteadyStateSolver newton = new SteadyStateSolver(engine);
+	private final SteadyStateCache cache;
+	// the transient where Newton finds no root from the nominal point
+	private final Function<DesignPoint, SteadyState> solveNewton = p -> {
+		SteadyState s = newton.solve(p);
+		return s.converged ? s : engine.solve(p);
+	};
+	private final Function<DesignPoint, SteadyState> solveTransient = engine::solve;
+	private final HttpServer server;
+	private final ExecutorService executor = executor();
+	// the sweeps of all requests, bounded to half the processors
+	private final ForkJoinPool sweeps = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+
+	// on the loopback interface: the front end runs on the same machine
+	public EvaluationServer(int port, int cacheSize) throws IOException {
+		this(InetAddress.getLoopbackAddress(), port, cacheSize);
+	}
+
+	// on address, e.g. the wildcard address to serve other machines
+	public EvaluationServer(InetAddress address, int port, int cacheSize) throws IOException {
+		cache = new SteadyStateCache(cacheSize);
+		server = HttpServer.create(new InetSocketAddress(address, port), 1024);
+		server.createContext("/evaluate", handler(this::evaluate));
+		server.createContext("/solve", handler(this::solve));
+		server.createContext("/ticks", handler(this::ticks));
+		server.createContext("/sweep", handler(this::sweep));
+		server.createContext("/scenario", handler(this::scenario));
+		server.createContext("/metrics", handler(this::metrics));
+		Metrics.gauge("cache.hitRate", cache::hitRate);
+		Metrics.gauge("cache.size", cache::size);
+		server.setExecutor(executor);
+	}
+
+	// virtual thread per task on JDK 21+, cached platform threads before
+	static ExecutorService executor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	public void start() {
+		server.start();
+	}
+
+	public void stop() {
+		server.stop(0);
+		executor.shutdown();
+		sweeps.shutdown();
+	}
+
+	public int port() {
+		return server.getAddress().getPort();
+	}
+
+	public SteadyStateCache getCache() {
+		return cache;
+	}
+
+	// a request after its query was parsed
+	private interface Endpoint {
+		void handle(HttpExchange ex, Map<String, List<String>> query) throws IOException;
+	}
+
+	private HttpHandler handler(Endpoint endpoint) {
+		return ex -> {
+			try {
+				ex.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+				endpoint.handle(ex, query(ex.getRequestURI().getRawQuery()));
+			} catch (IllegalArgumentException e) {
+				send(ex, 400, "{\"error\":" + quote(String.valueOf(e.getMessage())) + "}");
+			} catch (IOException e) {
+				// client went away
+			} catch (RuntimeException e) {
+				System.err.println(ex.getRequestURI() + ": " + e);
+				// a streamed response already sent its status
+				if (ex.getResponseCode() == -1) {
+					try {
+						send(ex, 500, "{\"error\":" + quote(String.valueOf(e)) + "}");
+					} catch (IOException ignored) {
+						// client went away
+					}
+				}
+			} finally {
+				ex.close();
+			}
+		};
+	}
+
+	private void evaluate(HttpExchange ex, Map<String, List<String>> q) throws IOException {
+		DesignPoint p = design(q);
+		PlasmaState s;
+		if (q.containsKey("W_MJ") || q.containsKey("n20_")) {
+			s = engine.evaluate(p, number(q, "W_MJ", p.W_MJ_o), number(q, "n20_", p.n20_o));
+		} else {
+			s = engine.advance(p, engine.initial(p), steps(q, "steps", 0));
+		}
+		send(ex, 200, json(new SteadyState(p, s, 0, engine.isSteady(s, PlasmaEngine.TOL)), columns(q)));
+	}
+
+	// newton answers are cached, transient ones depend on the start and are not
+	private void solve(HttpExchange ex, Map<String, List<String>> q) throws IOException {
+		DesignPoint p = design(q);
+		Function<DesignPoint, SteadyState> solver = solver(q);
+		SteadyState s = solver == solveNewton ? cache.solve(p, solver) : solver.apply(p);
+		send(ex, 200, json(s, columns(q)));
+	}
+
+	private void ticks(HttpExchange ex, Map<String, List<String>> q) throws IOException {
+		DesignPoint p = design(q);
+		String name = first(q, "engine", "0d");
+		if (!name.equals("0d") && !name.equals("radial")) {
+			throw new IllegalArgumentException("engine=0d or radial, not " + name);
+		}
+		RadialTransport radial = name.equals("radial") ? new RadialTransport(radialPoints(q)) : null;
+		Set<ResultColumn> columns = columns(q);
+		int steps = steps(q, "steps", PlasmaEngine.ITT_MAX);
+		int every = Math.max(1, (int) number(q, "every", 1));
+		long millis = Math.min(MAX_MILLIS, Math.max(0, (long) number(q, "millis", 0)));
+		ex.getResponseHeaders().set("Content-Type", "text/event-stream");
+		ex.getResponseHeaders().set("Cache-Control", "no-cache");
+		ex.sendResponseHeaders(200, 0);
+		OutputStream out = ex.getResponseBody();
+		PlasmaState s = radial == null ? engine.initial(p) : radial.start(p);
+		boolean steady = false;
+		for (int itt = 0; itt <= steps && !steady; itt++) {
+			if (itt > 0) {
+				s = radial == null ? engine.step(s, p) : radial.step(p);
+			}
+			steady = engine.isSteady(s, PlasmaEngine.TOL);
+			if (itt % every == 0 || steady || itt == steps) {
+				String data = json(new SteadyState(p, s, itt, steady), columns);
+				out.write(("event: " + (steady ? "steady" : "tick") + "\ndata: " + data + "\n\n")
+						.getBytes(StandardCharsets.UTF_8));
+				out.flush();
+				if (millis > 0 && !steady) {
+					try {
+						Thread.sleep(millis);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			}
+		}
+		out.write("event: end\ndata: {}\n\n".getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void sweep(HttpExchange ex, Map<String, List<String>> q) throws IOException {
+		DesignPoint base = design(q);
+		List<String> specs = q.get("axis");
+		if (specs == null) {
+			throw new IllegalArgumentException("axis=parameter:from:to:count missing");
+		}
+		SweepAxis[] axes = new SweepAxis[specs.size()];
+		for (int i = 0; i < axes.length; i++) {
+			String[] f = specs.get(i).split(":");
+			if (f.length != 4) {
+				throw new IllegalArgumentException("axis=parameter:from:to:count, not " + specs.get(i));
+			}
+			int count = (int) parse(f[3]);
+			if (count < 1) {
+				throw new IllegalArgumentException("axis count= " + f[3]);
+			}
+			axes[i] = SweepAxis.range(parameter(f[0]), parse(f[1]), parse(f[2]), count);
+		}
+		DesignSweep sweep = DesignSweep.cartesian(base, axes);
+		if (sweep.size() > MAX_SWEEP) {
+			throw new IllegalArgumentException("sweep of " + sweep.size() + " points, at most " + MAX_SWEEP);
+		}
+		Function<DesignPoint, SteadyState> solver = solver(q);
+		Set<ResultColumn> columns = columns(q);
+		columns.add(ResultColumn.index);
+		ex.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+		ex.sendResponseHeaders(200, 0);
+		OutputStream out = ex.getResponseBody();
+		IOException[] failed = new IOException[1];
+		sweep.run(sweeps, solver, (index, result) -> {
+			byte[] line = (json(index, result, columns) + "\n").getBytes(StandardCharsets.UTF_8);
+			synchronized (out) {
+				if (failed[0] == null) {
+					try {
+						out.write(line);
+					} catch (IOException e) {
+						failed[0] = e;
+					}
+				}
+			}
+		});
+		if (failed[0] != null) {
+			throw failed[0];
+		}
+	}
+
+	private void scenario(HttpExchange ex, Map<String, List<String>> q) throws IOException {
+		DesignPoint p = design(q);
+		Scenario scenario = Scenario.parse(new InputStreamReader(ex.getRequestBody(), StandardCharsets.UTF_8));
+		double dt = number(q, "dt", DesignPoint.dt);
+		double until = number(q, "until", scenario.duration());
+		int every = Math.max(1, (int) number(q, "every", 1));
+		if (!(dt > 0) || until / dt > MAX_SCENARIO) {
+			throw new IllegalArgumentException("until= " + until + " dt= " + dt + ", at most " + MAX_SCENARIO
+					+ " steps");
+		}
+		Set<ResultColumn> columns = first(q, "columns", null) == null ? EnumSet.copyOf(Scenario.DEFAULT_COLUMNS)
+				: columns(q);
+		ex.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+		ex.sendResponseHeaders(200, 0);
+		OutputStream out = new BufferedOutputStream(ex.getResponseBody());
+		scenario.run(p, until, dt, every, s -> out.write((json(s, columns) + "\n").getBytes(StandardCharsets.UTF_8)));
+		out.flush();
+	}
+
+	private void metrics(HttpExchange ex, Map<String, List<String>> q) throws IOException {
+		byte[] bytes = Metrics.text().getBytes(StandardCharsets.UTF_8);
+		ex.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		ex.sendResponseHeaders(200, bytes.length);
+		ex.getResponseBody().write(bytes);
+	}
+
+	// ------------------------------------------------------------------------
+	// requests
+	// ------------------------------------------------------------------------
+
+	static Map<String, List<String>> query(String raw) {
+		Map<String, List<String>> q = new HashMap<String, List<String>>();
+		if (raw == null || raw.isEmpty()) {
+			return q;
+		}
+		for (String pair : raw.split("&")) {
+			int eq = pair.indexOf('=');
+			String key = decode(eq < 0 ? pair : pair.substring(0, eq));
+			String value = eq < 0 ? "" : decode(pair.substring(eq + 1));
+			q.computeIfAbsent(key, k -> new ArrayList<String>()).add(value);
+		}
+		return q;
+	}
+
+	private static String decode(String s) {
+		try {
+			return URLDecoder.decode(s, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// design of the preset with every SweepParameter the query names
+	static DesignPoint design(Map<String, List<String>> q) {
+		String preset = first(q, "preset", "R8");
+		DesignPoint.Builder b;
+		if (preset.equals("R8")) {
+			b = DesignPoint.iterR8();
+		} else if (preset.equals("R6")) {
+			b = DesignPoint.iterR6();
+		} else {
+			throw new IllegalArgumentException("preset=R8 or R6, not " + preset);
+		}
+		for (SweepParameter parameter : SweepParameter.values()) {
+			if (q.containsKey(parameter.name())) {
+				parameter.apply(b, number(q, parameter.name(), 0));
+			}
+		}
+		b.radiation(radiation);
+		for (String s : q.getOrDefault("species", new ArrayList<String>())) {
+			b.species(s);
+		}
+		return b.build();
+	}
+
+	private Function<DesignPoint, SteadyState> solver(Map<String, List<String>> q) {
+		String name = first(q, "solver", "newton");
+		if (name.equals("transient")) {
+			return solveTransient;
+		} else if (name.equals("newton")) {
+			return solveNewton;
+		} else if (name.equals("radial")) {
+			int points = radialPoints(q);
+			return p -> new RadialTransport(points).solve(p, PlasmaEngine.TOL, PlasmaEngine.MAX_STEPS);
+		}
+		throw new IllegalArgumentException("solver=newton, transient or radial, not " + name);
+	}
+
+	// cells of the profiles of a request, radialPoints (at most MAX_POINTS)
+	private static int radialPoints(Map<String, List<String>> q) {
+		double points = number(q, "radialPoints", RadialTransport.POINTS);
+		if (!(points >= 2 && points <= MAX_POINTS)) {
+			throw new IllegalArgumentException("radialPoints= " + points);
+		}
+		return (int) points;
+	}
+
+	// requested columns, all but index by default
+	static Set<ResultColumn> columns(Map<String, List<String>> q) {
+		Set<ResultColumn> columns = EnumSet.noneOf(ResultColumn.class);
+		String names = first(q, "columns", null);
+		if (names == null) {
+			columns.addAll(EnumSet.complementOf(EnumSet.of(ResultColumn.index)));
+			return columns;
+		}
+		for (String name : names.split(",")) {
+			try {
+				columns.add(ResultColumn.valueOf(name.trim()));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("unknown column: " + name);
+			}
+		}
+		return columns;
+	}
+
+	private static SweepParameter parameter(String name) {
+		try {
+			return SweepParameter.valueOf(name);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("unknown parameter: " + name);
+		}
+	}
+
+	private static String first(Map<String, List<String>> q, String key, String otherwise) {
+		List<String> v = q.get(key);
+		return v == null ? otherwise : v.get(0);
+	}
+
+	private static double number(Map<String, List<String>> q, String key, double otherwise) {
+		String v = first(q, key, null);
+		return v == null ? otherwise : parse(v);
+	}
+
+	// a step count, at most PlasmaEngine.MAX_STEPS
+	private static int steps(Map<String, List<String>> q, String key, int otherwise) {
+		return (int) Math.max(0, Math.min(PlasmaEngine.MAX_STEPS, number(q, key, otherwise)));
+	}
+
+	private static double parse(String v) {
+		try {
+			double d = Double.parseDouble(v);
+			if (Double.isFinite(d)) {
+				return d;
+			}
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new IllegalArgumentException("not a number: " + v);
+	}
+
+	// ------------------------------------------------------------------------
+	// responses
+	// ------------------------------------------------------------------------
+
+	static String json(SteadyState s, Set<ResultColumn> columns) {
+		return json(0, s, columns);
+	}
+
+	// {"column":value,...}, NaN and infinities as null
+	static String json(long index, SteadyState s, Set<ResultColumn> columns) {
+		StringBuilder sb = new StringBuilder(32 * columns.size());
+		sb.append('{');
+		for (ResultColumn c : columns) {
+			if (sb.length() > 1) {
+				sb.append(',');
+			}
+			sb.append('"').append(c.name()).append("\":");
+			double v = c.value(index, s);
+			if (c == ResultColumn.converged) {
+				sb.append(v != 0);
+			} else if (v == (long) v && Math.abs(v) < 1e15) {
+				sb.append((long) v);
+			} else if (Double.isFinite(v)) {
+				sb.append(v);
+			} else {
+				sb.append("null");
+			}
+		}
+		return sb.append('}').toString();
+	}
+
+	private static String quote(String s) {
+		StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			} else if (c < 0x20) {
+				sb.append(String.format("\\u%04x", (int) c));
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.append('"').toString();
+	}
+
+	private static void send(HttpExchange ex, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		ex.getResponseHeaders().set("Content-Type", "application/json");
+		ex.sendResponseHeaders(status, bytes.length);
+		ex.getResponseBody().write(bytes);
+	}
+
+	// ------------------ main -----------------------------
+	// java EvaluationServer [port], -Djstar.cacheSize=... (default 65536),
+	// -Djstar.coolingRates=file, -Djstar.bind=address to listen on another
+	// interface than loopback (0.0.0.0: all of them)
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+		String bind = System.getProperty("jstar.bind");
+		InetAddress address = bind == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(bind);
+		String rates = System.getProperty("jstar.coolingRates");
+		if (rates != null) {
+			radiation = CoolingRates.read(java.nio.file.Paths.get(rates));
+		}
+		EvaluationServer server = new EvaluationServer(address, port, Integer.getInteger("jstar.cacheSize", 1 << 16));
+		server.start();
+		System.out.println("jstar evaluation server on " + address.getHostAddress() + " port " + server.port());
+	}
+}
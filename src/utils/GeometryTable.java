@@ -0,0 +1,167 @@
+//=============================================================================
+// Title:        GeometryTable.java
+// Description:  The shape dependent part of the calculate() preamble (a3, Vol,
+//               Area, I_B, q_star, fdiv and the tau_98, tau_89 factors) for all
+//               41^4 dee slider positions of one machine (Rmax, Rmin, kMax,
+//               q_edg), column by column. Built in parallel from DesignPoints,
+//               so points built with the table are bit for bit those built
+//               without it; save() and open() keep it in a memory mapped file
+//               (~180 MB). Set it on a
+//               DesignPoint.Builder with geometry(); other machines and
+//               fractional slider positions are computed as before.
+//=============================================================================
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+public final class GeometryTable {
+
+	// positions of a dee slider, entries of a table
+	public static final int POSITIONS = 41;
+	public static final int SIZE = POSITIONS * POSITIONS * POSITIONS * POSITIONS;
+
+	static final byte[] MAGIC = "JSTARGEO".getBytes(StandardCharsets.US_ASCII);
+	static final int VERSION = 1;
+	static final int COLUMNS = 8, HEADER = 48;
+	static final int A3 = 0, VOL = 1, AREA = 2, I_B = 3, Q_STAR = 4, FDIV = 5, TAU98 = 6, TAU89 = 7;
+
+	// the machine the table is valid for
+	public final double Rmax, Rmin, kMax, q_edg;
+	private final DoubleBuffer[] columns;
+
+	private GeometryTable(double Rmax, double Rmin, double kMax, double q_edg, DoubleBuffer[] columns) {
+		this.Rmax = Rmax;
+		this.Rmin = Rmin;
+		this.kMax = kMax;
+		this.q_edg = q_edg;
+		this.columns = columns;
+	}
+
+	// table of the machine of builder (its shape and other inputs do not matter)
+	public static GeometryTable build(DesignPoint.Builder machine) {
+		DesignPoint m = machine.build();
+		double[][] c = new double[COLUMNS][SIZE];
+		int sq = POSITIONS * POSITIONS;
+		// sv1, sv2 in parallel, sv3, sv4 in each task
+		IntStream.range(0, sq).parallel().forEach(hi -> {
+			DesignPoint.Builder b = m.toBuilder().geometry(null).tau98_n(DesignPoint.tau98_no);
+			for (int lo = 0; lo < sq; lo++) {
+				int i = hi * sq + lo;
+				DesignPoint p = b.shape(hi / POSITIONS, hi % POSITIONS, lo / POSITIONS, lo % POSITIONS).build();
+				c[A3][i] = p.a3;
+				c[VOL][i] = p.Vol;
+				c[AREA][i] = p.Area;
+				c[I_B][i] = p.I_B;
+				c[Q_STAR][i] = p.q_star;
+				c[FDIV][i] = p.fdiv;
+				c[TAU98][i] = p.tau98_fac;
+				c[TAU89][i] = p.tau89_fac;
+			}
+		});
+		DoubleBuffer[] columns = new DoubleBuffer[COLUMNS];
+		for (int k = 0; k < COLUMNS; k++) {
+			columns[k] = DoubleBuffer.wrap(c[k]);
+		}
+		return new GeometryTable(m.Rmax, m.Rmin, m.kMax, m.q_edg, columns);
+	}
+
+	public void save(Path file) throws IOException {
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer head = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+			head.put(MAGIC).putInt(VERSION).putInt(COLUMNS).putDouble(Rmax).putDouble(Rmin).putDouble(kMax)
+					.putDouble(q_edg);
+			head.flip();
+			for (long pos = 0; head.hasRemaining();) {
+				pos += ch.write(head, pos);
+			}
+			for (int k = 0; k < COLUMNS; k++) {
+				ch.map(FileChannel.MapMode.READ_WRITE, HEADER + 8L * SIZE * k, 8L * SIZE)
+						.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().put(columns[k].duplicate().clear());
+			}
+			ch.force(false);
+		}
+	}
+
+	// map a saved table read only
+	public static GeometryTable open(Path file) throws IOException {
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (ch.size() != HEADER + 8L * SIZE * COLUMNS) {
+				throw new IOException(file + ": not a geometry table");
+			}
+			ByteBuffer head = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER).order(ByteOrder.LITTLE_ENDIAN);
+			byte[] magic = new byte[MAGIC.length];
+			head.get(magic);
+			int version = head.getInt();
+			if (!Arrays.equals(magic, MAGIC) || version != VERSION || head.getInt() != COLUMNS) {
+				throw new IOException(file + ": not a geometry table");
+			}
+			double Rmax = head.getDouble(), Rmin = head.getDouble(), kMax = head.getDouble(), q_edg = head.getDouble();
+			DoubleBuffer[] columns = new DoubleBuffer[COLUMNS];
+			for (int k = 0; k < COLUMNS; k++) {
+				// the mapping stays valid after the channel is closed
+				columns[k] = ch.map(FileChannel.MapMode.READ_ONLY, HEADER + 8L * SIZE * k, 8L * SIZE)
+						.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+			}
+			return new GeometryTable(Rmax, Rmin, kMax, q_edg, columns);
+		}
+	}
+
+	// entry of p's shape, or -1 if the table does not cover p
+	int index(DesignPoint p) {
+		if (p.Rmax != Rmax || p.Rmin != Rmin || p.kMax != kMax || p.q_edg != q_edg) {
+			return -1;
+		}
+		int i1 = position(p.sv1), i2 = position(p.sv2), i3 = position(p.sv3), i4 = position(p.sv4);
+		if ((i1 | i2 | i3 | i4) < 0) {
+			return -1;
+		}
+		return ((i1 * POSITIONS + i2) * POSITIONS + i3) * POSITIONS + i4;
+	}
+
+	// whole slider position, or -1
+	private static int position(double sv) {
+		int pos = (int) sv;
+		return pos == sv && pos >= 0 && pos < POSITIONS ? pos : -1;
+	}
+
+	double a3(int i) {
+		return columns[A3].get(i);
+	}
+
+	double Vol(int i) {
+		return columns[VOL].get(i);
+	}
+
+	double Area(int i) {
+		return columns[AREA].get(i);
+	}
+
+	double I_B(int i) {
+		return columns[I_B].get(i);
+	}
+
+	double q_star(int i) {
+		return columns[Q_STAR].get(i);
+	}
+
+	double fdiv(int i) {
+		return columns[FDIV].get(i);
+	}
+
+	double tau98_fac(int i) {
+		return columns[TAU98].get(i);
+	}
+
+	double tau89_fac(int i) {
+		return columns[TAU89].get(i);
+	}
+}
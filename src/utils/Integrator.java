@@ -0,0 +1,42 @@
+//=============================================================================
+// Title:        Integrator.java
+// Description:  Time integration of the energy (W_MJ) & particle (n20_) balance.
+//               An integrator is stateless: the step it proposes next travels
+//               with the state (PlasmaState.dt), so one instance may be shared.
+//=============================================================================
+
+public interface Integrator {
+
+	// one accepted step of the balance of design p from state s
+	PlasmaState step(PlasmaEngine engine, DesignPoint p, PlasmaState s);
+
+	// step from s until engine.isSteady(tol) or maxSteps steps were taken
+	default SteadyState solve(PlasmaEngine engine, DesignPoint p, PlasmaState from, double tol, int maxSteps) {
+		PlasmaState s = from;
+		int itt = 0;
+		while (!engine.isSteady(s, tol)) {
+			if (itt >= maxSteps) {
+				return new SteadyState(p, s, itt, false);
+			}
+			itt = itt + 1;
+			s = step(engine, p, s);
+		}
+		return new SteadyState(p, s, itt, true);
+	}
+
+	// euler (the GUI default), rk45 (Dormand-Prince) or rosenbrock (stiff)
+	static Integrator named(String name) {
+		switch (name.toLowerCase()) {
+		case "euler":
+			return new EulerIntegrator();
+		case "rk45":
+		case "dopri":
+			return new DormandPrince45();
+		case "rosenbrock":
+		case "ros2":
+			return new Rosenbrock2();
+		default:
+			throw new IllegalArgumentException("unknown integrator: " + name);
+		}
+	}
+}
@@ -21,25 +21,88 @@ import java.util.EventListener;
 import java.text.DecimalFormat;
 import javax.swing.*;
 import java.awt.Color;
-import java.util.concurrent.CompletableFuture;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class JStarApp extends Frame implements EventListener, ItemListener {
 
 	private String title = "JStarApp13 J1.13: Fusion Power Plant Simulator JAL17Sep2024";
 
-	private boolean isCalculating = false; // Used in “CompletableFuture”
+	// integration tick: run() is scheduled every tickMillis instead of spinning
+	// Response: 1=instantaneous 10=fast 100=nominal, -Djstar.tickMillis=...
+	private volatile long tickMillis = Math.max(1, Long.getLong("jstar.tickMillis", 100));
+	private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "JStarApp-tick");
+		t.setDaemon(true);
+		return t;
+	});
+	private ScheduledFuture<?> tick; // non null while run() is scheduled
+	private long tickPeriod; // period tick was scheduled with
+
+	// one simulation generation per input change; calculate() publishes it and the
+	// tick thread starts it at its next tick, so a burst of slider events coalesces
+	// into one run on the latest inputs and the run it replaces is abandoned
+	private static final class Generation {
+		final DesignPoint design;
+		final boolean fastForward;
+		// stepped by the 1-D RadialTransport rather than the 0-D engine
+		final boolean radial;
+
+		Generation(DesignPoint design, boolean fastForward, boolean radial) {
+			this.design = design;
+			this.fastForward = fastForward;
+			this.radial = radial;
+		}
+	}
+
+	private final AtomicReference<Generation> pending = new AtomicReference<>();
+
+	// fast-forward: integrate to steady state as fast as the CPU allows and only
+	// redraw at most maxFps times a second, -Djstar.fastForward -Djstar.maxFps=...
+	private boolean fastForward = Boolean.getBoolean("jstar.fastForward");
+	// 1-D density & temperature profiles instead of the 0-D balance, from the
+	// next run on, -Djstar.engine=radial -Djstar.radialPoints=...
+	private boolean radialEngine = "radial".equals(System.getProperty("jstar.engine"));
+	private long frameMillis = Math.max(1, 1000 / Math.max(1, Integer.getInteger("jstar.maxFps", 30)));
+
+	// what the display shows: the tick thread publishes the newest plasma state,
+	// the event thread pulls it every frame and only touches widgets that change
+	private static final class Snapshot {
+		final DesignPoint design;
+		final PlasmaState state;
+		final int colorIndex;
+		// publication count: a gap between two shown snapshots is dropped frames
+		final long seq;
+
+		Snapshot(DesignPoint design, PlasmaState state, int colorIndex, long seq) {
+			this.design = design;
+			this.state = state;
+			this.colorIndex = colorIndex;
+			this.seq = seq;
+		}
+	}
+
+	private final AtomicReference<Snapshot> published = new AtomicReference<>();
+	private long publications; // tick thread only
+	private Snapshot shown; // event thread only
+	private Timer display; // pulls every frameMillis
 	private boolean doiterR8 = false; // if true then ITER_R=8m geometry (Slider1-4) will be set
 	private boolean doiterR6 = false; // if true then ITER_R=6m geometry (Slider1-4) will be set
 
-	// magnet slider vars
-	private double i1min = 1, i2min = 1, i3min = .1, i4min = .1;
-	private double i1max = .1, i2max = .1, i3max = 1.0, i4max = 1.0;
-	private double i1, i2, i3, i4;
-
-	// field, power and fuel slider vars
-	private double Bomin = 1, Bomax = 6, Boran = 80; // 20; //jal2024 Note must change 20=>81 below
-	private double Pwmin = 1, Pwmax = 100, Pwran = 80; // 20;
-	private double Mdmin = 0.005, Mdmax = 0.4, Mdran = 80; // 20;
+	// field and fuel slider maxima
+	private double Bomax = 6;
+	private double Mdmax = 0.4;
 
 	// initial dee calculation vars
 	private double Rmax = 11, Rmin = 5; // ITER EDA
@@ -47,125 +110,84 @@ public class JStarApp extends Frame implements EventListener, ItemListener {
 	private double kMax = 1.8;
 	private double k_o = kMax;
 	private double Z_o = 0;
-	private double zo = 0, d_min = 0.0; // Dont let d go negative
-	private double faMax, f_k, f_i1pi2, fa, f;
-	private double a2, a3;
 	private double R_o = 0.5 * (Rmax + Rmin);
 	private double a_o = 0.5 * (Rmax - Rmin);
-	private double Vol_o = 2 * Math.PI * R_o * Math.PI * Math.pow(a_o, 2) * k_o;
-	private double zMax = a_o * k_o;
-	private double k_x = 0.4 * k_o + 0.6;
-
-	// main plasma initialization design constants
-	private double Muo = 4 * Math.PI * 0.0000001;
 
 	// nominal plasma design parameters
-	private double Bo = 5.7;
 	private double q_edg = 3.0;
 	private double Troy_c = 2.5;
+	private double h_mult = 1;
 
-	// nominal initial design temperature, density & mass change factor
-	private double t10o = 1.0;
-	private double n20o = 1.2;
-	private double IC_fac = 0.01;
-
-	// calculate nDT_ne, Zeff
+	// impurity fractions: nDT_ne, Zeff are derived in DesignPoint
 	private int idZeff = 1; // 1= O,C,Fe, 0= Be,Ar
 	private double nAlp_ne = idZeff * 0.1; // Helium ~ 0.05; //minimum =>Zeff=1.5
 	private double nO_ne = idZeff * 0.001;
-	private double dum1 = idZeff * (0.009 + 0.006 * Math.pow((0.7 / n20o), 2.6));
-	double scale1 = Math.pow(10, Math.floor(Math.log10(Math.abs(dum1))) + 1 - 4);// 4digits
-	double nC_ne = Math.round(dum1 / scale1) * scale1;// rounded to 4 digits
+	private double dum1 = idZeff * (0.009 + 0.006 * Math.pow((0.7 / DesignPoint.n20o), 2.6));
+	double nC_ne = DesignPoint.round4(dum1);// rounded to 4 digits
 
-	private double dum2 = idZeff * (0.0005 * Math.pow((0.7 / n20o), 2.3));
-	double scale2 = Math.pow(10, Math.floor(Math.log10(Math.abs(dum2))) + 1 - 4);// 4digits
-	double nFe_ne = Math.round(dum2 / scale2) * scale2;// rounded to 4 digits
+	private double dum2 = idZeff * (0.0005 * Math.pow((0.7 / DesignPoint.n20o), 2.3));
+	double nFe_ne = DesignPoint.round4(dum2);// rounded to 4 digits
 	private double nBe_ne = (1 - idZeff) * 0.02; // 2024
 	private double nAr_ne = (1 - idZeff) * 0.0016; // 2024
-	private double nDT_ne = 1.0 - 2 * nAlp_ne - 4 * nBe_ne - 6 * nC_ne - 8 * nO_ne - 18 * nAr_ne - 26 * nFe_ne;
-	private double nI_ne = nAlp_ne + nBe_ne + nC_ne + nO_ne + nAr_ne + nFe_ne + nDT_ne;
-	private double Zeff = 1 + 2 * nAlp_ne + 4 * 3 * nBe_ne + 6 * 5 * nC_ne + 8 * 7 * nO_ne + 18 * 17 * nAr_ne
-			+ 26 * 25 * nFe_ne;
-
-	// calculate charge info
-	private double D_frac = 0.5;
-	private double T_frac = 0.5;
-	private double H_frac = 1.0 - D_frac - T_frac;
-	private double P_mass = 1.6726E-27;
-	private double m_den_chrg = P_mass * (2 * D_frac + 3 * T_frac + 4 * H_frac);
-	private double m_den_n20 = m_den_chrg / 1E-20;
-
-	// plasma profile info
-	private double Alp_t = 1.0;
-	private double Alp_n = 0.5;
-	private double f_an_at = Math.pow((1 + Alp_n), 2) * Math.pow((1 + 2 * Alp_n + 3 * Alp_t), 2)
-			/ Math.pow((1 + 2 * Alp_n + 2 * Alp_t), 3);
-	private double T10c = ((1 + Alp_n) * (1 + 2 * Alp_n + 3 * Alp_t))
-			/ ((1 + Alp_n + Alp_t) * (1 + 2 * Alp_n + 2 * Alp_t));
-
-	// plant efficiancy info
-	private double F_aux = 3;
-	private double F_plant = 0.4; // old 0.3 2024 based on typical modern coal/gas plants
-
-	private double d_used, Ro_a, Vol, Area;
-	// plasma current, rational q_edge, major radius, minor radius, elongation
-	private double I_B, Ro, a, k;
-	// design current(MA), q_star, triangularity, optional geometyry flag *flag is
-	// currently static*
-	private double Ip_MAo, q_star, d, mag;
-	// max beta from Troyon, Greenwald density limit, design beta from n20 + t10,
-	// beta margin to Troyon
-	private double Bta_mxo, n20_gwo, Betao, Beta_mrg;
-	// design total mass, total mass, design energy density, design energy
-	private double M_toto, M_tot_Gro, W_den_MJo, W_MJo;
-	// Plasma to 1st wall Gaps: gmin Inner, g Inner, g Outer, g div
-	private double gmin, gin, got, gdiv;
-	// ???, confinement H-factor, design confinement time, check of beta
-	private double fdiv, H_fac, Conf_to, Bta_chk, h_mult = 1;
-	// design input power(MW), design input field, mass change out factor rate,
-	// design fus power factor
-	private double Pw_in_MWo, B_ino, mdot_V_fac, F_alpo;
-	// desing fusion power density, design fusion power, design alpha power, design
-	// neutron power
-	private double Pfus_d_MWo, Pfus_MWo, Palp_MWo, PNeut_MWo;
-	// delta Time, Time, Temp?, neutron wall loading(MW/m^2)
-	private double dt, Time, T10, N_wal_load;
-	// total energy, density(ne/10^20), temperature(T/10^20), ???
-	private double W_MJ, n20_, T10_, T_c_mil;
-	// Temp Million C?, input power, inout mass rate(kg/s), input magnetic field
-	private double T_log10_c_mil, P_in_MW, mdot_in, B_in;
-	// plasma current, fusion power temperature factor, fusion power density, fusion pow
-	private double Ip_MA, F_alp, Pfus_MW_m3, Pfus_MW, Pfus_GW;
-	// neutron power, total power gain, confinement time, alpha power, a few more
-	// power variables
-	private double PNeut_MW, Pgain_MW, Conf_t, Palp_MW, Ptrans_MW, Pbrem_MW, tau_89, tau_98;
-	// power loss, total power, density input ratio
-	private double Plos_MW, dW_MW_dt, n20_in_rat;
-	// density loss ratio, ???, total mass, density rate
-	private double n20_los_rat, d20_dt, Mtot_Gr, dn20_dt;
-	// Neutron wall load, Injected Power, Gross Power, Troyon beta density ratio
-	private double n_wall, P_e_in, P_e_gross, n20_n20_bet;
-	// electric power generation, Gain?, Greenwald density ration, beta
-	private double P_e, G, n20_n20_gw, Bet;
-	// Updated Density, Updated energy, Inital/Stable Density, Intial/stable energy
-	private double n_new, W_new, n20_o, W_MJ_o;
-	// 0 to 100% for Mdot slider for print out
-	private double mdot100;
-	// colorIndex for deeCanvas: ratio of P_e to 1000MW and ratio'ed from 0 to 20
-	private int p_e_color_index;
 
-	// current magnet slider values
-	private int sv1, sv2, sv3, sv4, sv5, sv6, thread_flag;
-	// current dee parameters
-	private double R1, z1, a1, k1, d1;
-	// itteration parameters for new run()
-	private int itt, ittmax = 100;
+	// headless physics: design point from the widgets and the current plasma state,
+	// integrator euler (default), rk45 or rosenbrock via -Djstar.integrator=...
+	private final PlasmaEngine engine = new PlasmaEngine(
+			Integrator.named(System.getProperty("jstar.integrator", "euler")));
+	// steady states of settings already visited show at once, -Djstar.cacheSize=... (0=off).
+	// Only runs that pass isSteady(TOL) are put, keyed by runStart: a run that is
+	// still moving when done() ends it (ITT_MAX steps, or MAX_STEPS fast-forward)
+	// is not cached, and the same setting integrates again the next time
+	private final int cacheSize = Integer.getInteger("jstar.cacheSize", 4096);
+	private final SteadyStateCache cache = cacheSize > 0 ? new SteadyStateCache(cacheSize) : null;
+	// fast-forward slider drags continue from the previous operating point
+	private final Continuation continuation = new Continuation(engine);
+	// operating point the current run started from, null: the design initial
+	// conditions (tick thread only, keys its cache entry)
+	private PlasmaState runStart;
+	// profiles of radial runs, created by the first one (tick thread only)
+	private RadialTransport radial;
+	// shape geometry tables by machine (Rmax, Rmin, kMax, q_edg), kept in the
+	// directory -Djstar.geometry=dir: the first design of a machine opens its
+	// table there, or builds and saves it, on a background thread; designs
+	// compute their geometry until it is ready
+	private final String geometryDir = System.getProperty("jstar.geometry");
+	private final Map<String, GeometryTable> geometry = new ConcurrentHashMap<String, GeometryTable>();
+	private final Set<String> geometryRequested = ConcurrentHashMap.newKeySet();
+	private final ExecutorService geometryLoader = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "JStarApp-geometry");
+		t.setDaemon(true);
+		return t;
+	});
+	// impurity line radiation, -Djstar.coolingRates=file, with the table species
+	// beyond the six impurity fields from -Djstar.species=Kr:1e-5,W:1e-6
+	private final CoolingRates radiation = loadCoolingRates(System.getProperty("jstar.coolingRates"));
+	private final String species = System.getProperty("jstar.species", "");
 
-	// New Constants H98y2, H89P
-	private double H98y2, H89P;
+	// current magnet slider values
+	private int sv1, sv2, sv3, sv4, sv5, sv6;
 
-	// Input Physics SLiders: boS,pwS,mdS
-	private double boS, pwS, mdS;
+	// the running generation, only touched by the tick thread
+	private Generation current;
+	private PlasmaState state;
+	// itteration parameters for new run()
+	private int itt;
+	private boolean steady; // reached steady state
+	private SimulationEvents.SimulationRun runEvent; // of current, null once committed
+
+	// hot path figures (see Metrics), -Djstar.metricsMillis=... prints them that often
+	private static final Metrics.Counter GENERATIONS = Metrics.counter("run.generations");
+	private static final Metrics.Counter COALESCED = Metrics.counter("run.coalesced");
+	private static final Metrics.Counter RESTARTS = Metrics.counter("run.restarts");
+	private static final Metrics.Counter STEPS = Metrics.counter("run.steps");
+	private static final Metrics.Histogram TICK_NANOS = Metrics.histogram("run.tickNanos");
+	private static final Metrics.Histogram CONVERGENCE = Metrics.histogram("run.convergenceSteps");
+	private static final Metrics.Counter UNDERFLOWS = Metrics.counter("run.underflows");
+	private static final Metrics.Counter REFRESHES = Metrics.counter("ui.refreshes");
+	private static final Metrics.Counter DROPPED = Metrics.counter("ui.droppedFrames");
+	private static final Metrics.Histogram REFRESH_NANOS = Metrics.histogram("ui.refreshNanos");
+	private int colorIndex; // dee color of the generation's first state
+	private boolean cached; // generation's steady state is (or came from) the cache
 
 	// Needle Gauges for power in and out
 	NeedleGauge PowerOutGauge = new NeedleGauge();
@@ -730,9 +752,6 @@ public class JStarApp extends Frame implements EventListener, ItemListener {
 		// recalculate with new values of Rmax, Rmin, k_o
 		R_o = 0.5 * (Rmax + Rmin);
 		a_o = 0.5 * (Rmax - Rmin);
-		Vol_o = 2 * Math.PI * R_o * Math.PI * Math.pow(a_o, 2) * k_o;
-		zMax = a_o * k_o;
-		k_x = 0.4 * k_o + 0.6;
 		kMax = k_o;
 		deeCanvas.setAll(R_o, Z_o, a_o, 1.1, 0);
 		deeCanvas.setMinMax(R_o, Z_o, a_o, 1.1, 0);
@@ -813,10 +832,25 @@ public class JStarApp extends Frame implements EventListener, ItemListener {
 		System.out.println("nC_ne, rounded " + (float) dum1 + "  " + (float) nC_ne);
 		System.out.println("nFe_ne, rounded " + (float) dum2 + "  " + (float) nFe_ne);
 
-		thread_flag = 0;
-
 		setTitle(title);
 
+		if (cache != null) {
+			Metrics.gauge("cache.hitRate", cache::hitRate);
+			Metrics.gauge("cache.size", cache::size);
+		}
+		long metricsMillis = Long.getLong("jstar.metricsMillis", 0);
+		if (metricsMillis > 0) {
+			// on a thread of its own: console output blocks, the tick thread must not
+			Metrics.Reader metrics = new Metrics.Reader();
+			ScheduledExecutorService printer = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "JStarApp-metrics");
+				t.setDaemon(true);
+				return t;
+			});
+			printer.scheduleAtFixedRate(() -> System.out.print(metrics.text()), metricsMillis, metricsMillis,
+					TimeUnit.MILLISECONDS);
+		}
+
 		// Get Parameters
 		Rmax = 11.0;
 		Rmin = 5.0;
@@ -824,9 +858,6 @@ public class JStarApp extends Frame implements EventListener, ItemListener {
 		// recalculate with new values of Rmax, Rmin, k_o
 		R_o = 0.5 * (Rmax + Rmin);
 		a_o = 0.5 * (Rmax - Rmin);
-		Vol_o = 2 * Math.PI * R_o * Math.PI * Math.pow(a_o, 2) * k_o;
-		zMax = a_o * k_o;
-		k_x = 0.4 * k_o + 0.6;
 
 		deeCanvas.setAll(R_o, Z_o, a_o, 1.1, 0);
 		deeCanvas.setKo(k_o, a_o, R_o, Z_o, 0);
@@ -919,10 +950,6 @@ public class JStarApp extends Frame implements EventListener, ItemListener {
 					nFe_ne = 0.01 * Double.parseDouble(impF4.getText());
 					nBe_ne = 0.01 * Double.parseDouble(impF5.getText());
 					nAr_ne = 0.01 * Double.parseDouble(impF6.getText());
-					nDT_ne = 1.0 - 2 * nAlp_ne - 4 * nBe_ne - 6 * nC_ne - 8 * nO_ne - 18 * nAr_ne - 26 * nFe_ne;
-					nI_ne = nAlp_ne + nBe_ne + nC_ne + nO_ne + nAr_ne + nFe_ne + nDT_ne;
-					Zeff = 1 + 2 * nAlp_ne + 4 * 3 * nBe_ne + 6 * 5 * nC_ne + 8 * 7 * nO_ne + 18 * 17 * nAr_ne
-							+ 26 * 25 * nFe_ne;
 					calculate(); //
 				} catch (NumberFormatException e1) {
 					System.out.println("Please enter valid decimal numbers.");
@@ -942,7 +969,7 @@ public class JStarApp extends Frame implements EventListener, ItemListener {
 		impPanel.add(impCloseButton);
 
 //======================================================================
-// popupPanel Bo_max, q95, kmax, impButton, saveButton, closeButton
+// popupPanel Bo_max, q95, kmax, impButton, saveButton, fastForwardBox, radialBox, closeButton
 //======================================================================
 		Panel popupPanel = new Panel();
 
@@ -1021,6 +1048,30 @@ public class JStarApp extends Frame implements EventListener, ItemListener {
 		});
 		popupPanel.add(saveButton);
 
+		Checkbox fastForwardBox = new Checkbox("Fast-forward", fastForward);
+		fastForwardBox.setForeground(Color.WHITE);
+		fastForwardBox.setBackground(Color.BLUE);
+		fastForwardBox.addItemListener(new ItemListener() {
+			@Override
+			public void itemStateChanged(ItemEvent e) {
+				fastForward = fastForwardBox.getState();
+				calculate(); // restart from the current state in the new mode
+			}
+		});
+		popupPanel.add(fastForwardBox);
+
+		Checkbox radialBox = new Checkbox("1-D transport", radialEngine);
+		radialBox.setForeground(Color.WHITE);
+		radialBox.setBackground(Color.BLUE);
+		radialBox.addItemListener(new ItemListener() {
+			@Override
+			public void itemStateChanged(ItemEvent e) {
+				radialEngine = radialBox.getState();
+				calculate(); // restart from the current state with the other engine
+			}
+		});
+		popupPanel.add(radialBox);
+
 		Button closeButton = new Button("Close");
 		closeButton.addActionListener(new ActionListener() {
 			@Override
@@ -1112,6 +1163,8 @@ public class JStarApp extends Frame implements EventListener, ItemListener {
 //    System.out.println();
 //    System.out.println("slider1= " + (float) slider1.getValue() );
 		calculate(); // Must Initialize calculations for all numbers to be seen on startup
+		display = new Timer((int) frameMillis, e -> pull());
+		display.start();
 		popupPanel.setVisible(false);
 	}
 
@@ -1124,353 +1177,388 @@ public class JStarApp extends Frame implements EventListener, ItemListener {
 		sv2 = slider2.getValue(); // get slider2 values 2=red INNER
 		sv3 = slider3.getValue(); // get slider3 values 3=blue TOP/BOTTOM INNER
 		sv4 = slider4.getValue(); // get slider4 values 4=yellow TOP/BOTTOM OUTER
-//    System.out.println();
-//    System.out.println("sv1= " + (float) sv1 );
-		// Input Physics Sliders: BoSlider, PwSlider, MdSlider => boS,pwS,mdS
-		boS = BoSlider.getValue();
-		pwS = PwSlider.getValue();
-		mdS = MdSlider.getValue();
-
-		// Dee graph calc ( 2* increases resolution to 40 )
-		i1 = (((i1max - i1min) / (2 * 20)) * sv2) + i1min; // red
-		i2 = (((i2max - i2min) / (2 * 20)) * sv1) + i2min; // green
-		i3 = (((i3max - i3min) / (2 * 20)) * sv4) + i3min; // yellow
-		i4 = (((i4max - i4min) / (2 * 20)) * sv3) + i4min; // blue
-		R1 = R_o + (i2 - i1) * a_o * .9;
-		a1 = Math.min(Rmax - R1, R1 - Rmin);
-		k1 = 1 + 0.5 * (i3 + i4) * (kMax - 1);
-		d1 = i4 - i3;
-//    System.out.println("k_o,k1,d1= " + (float) k_o + ", " + (float) k1 + ", " +  (float) d1 );
-		f_k = (k1 - k_x) / (kMax - k_x);
-		faMax = .5;
-		f_i1pi2 = .5 * (i1 + i2);
-		fa = faMax - faMax * f_i1pi2;
-		f = 1 - f_k * fa;
-		a2 = a1 * f;
-		if (f_k < 0) {
-			a3 = a1;
-		} else {
-			a3 = a2;
-		}
-		deeCanvas.setAll(R1, 0, a3, k1, d1);
+		DesignPoint design = getDesignPoint();
+
+		deeCanvas.setAll(design.R1, 0, design.a3, design.k1, design.d1);
 		deeCanvas.setGreen(sv1);
 		deeCanvas.setRed(sv2);
 		deeCanvas.setBlue(sv3);
 		deeCanvas.setYellow(sv4);
 
-		// Input for B Field, Power, Fuel (New Input: boS,pwS,mdS)
-		B_ino = Bomin + ((Bomax - Bomin) * boS / Boran); // new using boS
-		Pw_in_MWo = Pwmin + (Pwmax - Pwmin) * pwS / Pwran;
-		mdot_V_fac = Mdmin + (Mdmax - Mdmin) * mdS / Mdran;
-
-		st = String.valueOf(B_ino);
+		st = String.valueOf(design.B_ino);
 		if (st.length() <= 3)
 			st = st + "0";// 2024
 		st = st.substring(0, 4);// 2024
 		BoLabel.setText(" B Field = " + st + " Tesla ");
 
-		st = String.valueOf(Pw_in_MWo);
+		st = String.valueOf(design.Pw_in_MWo);
 		st = st.substring(0, 3);
 		PwLabel.setText(" Power  = " + st + " MW ");
 
-		mdot100 = 100.0 * MdSlider.getValue() / Mdran;
-		st = String.valueOf(mdot100);
+		st = String.valueOf(design.mdot100);
 		st = st.substring(0, 3);
 		MdLabel.setText(" Fuel     =  " + st + " % ");
 
-		mag = 1;
-		if (mag <= 0) {
-			Ro = R_o;
+		if (design.isDiverted()) {
+			deeCanvas.changeGraphColor(1);
 		} else {
-			Ro = R1;
+			deeCanvas.changeGraphColor(0);
 		}
-		if (mag <= 0) {
-			a = a_o * 0.95;
-		} else {
-			a = a3;
+		BoundaryProgress.updateBar((float) (1 - design.fdiv));
+
+		// new generation: the tick thread takes it over at its next tick
+		boolean ff = fastForward;
+		GENERATIONS.increment();
+		if (pending.getAndSet(new Generation(design, ff, radialEngine)) != null) {
+			COALESCED.increment(); // the tick thread never started the one before
 		}
-		if (mag <= 0) {
-			k = 0.0;
-		} else {
-			k = k1;
+		startTicks(ff ? frameMillis : tickMillis);
+	}
+
+	// schedule run() every period unless the integration is already ticking at that rate
+	synchronized void startTicks(long period) {
+		if (tick != null && !tick.isDone() && tickPeriod != period) {
+			tick.cancel(false);
 		}
-		if (mag <= 0) {
-			d = k_o;
-		} else {
-			d = d1;
+		if (tick == null || tick.isDone()) {
+			tickPeriod = period;
+			tick = ticker.scheduleAtFixedRate(this::run, period, period, TimeUnit.MILLISECONDS);
 		}
-//    System.out.println("k= " + (float) k );
-
-		// start calculation of main design plasma parameters
-		d_used = Math.max(d, d_min); // Dont let d go negative
-		Ro_a = Ro / a;
-		Vol = 2 * Math.PI * Ro * Math.PI * Math.pow(a, 2) * k;
-		Area = 4 * Math.pow(Math.PI, 2) * Ro * a * Math.sqrt(k);
-		I_B = 0.000001 * (1.17 - 0.065 / Ro_a / Math.pow((1 - 1 / Math.pow(Ro_a, 2)), 2))
-				* (2 * Math.PI * Math.pow(a, 2)) / (Muo * Ro * q_edg)
-				* (1 + Math.pow(k, 2) * (1 + 2 * Math.pow(d_used, 2) - 1.2 * Math.pow(d_used, 3))) / 2;
-		Ip_MAo = I_B * Bo;
-		q_star = 5 * Math.pow(a, 2) * Bo / (Ro * Ip_MAo)
-				* (1 + Math.pow(k, 2) * (1 + 2 * Math.pow(d_used, 2) - 1.2 * Math.pow(d_used, 3))) / 2;
-		Bta_mxo = Troy_c * Ip_MAo / (100 * a * Bo);
-		n20_gwo = 0.27 * Ip_MAo / Math.pow(a, 2);
-		Betao = 0.402 * (1 + nI_ne) * n20o * t10o / Math.pow(Bo, 2);
-		Beta_mrg = 1 - Betao / Bta_mxo; // Beta Margin
-		M_toto = m_den_n20 * n20o * Vol_o; // Initial guess Volume based BIG Rmax,Rmin & ko 
-										   // to remove Volume variation with shape change?
-		M_tot_Gro = M_toto / 0.001;
-		W_den_MJo = 0.2403 * (1 + nI_ne) * n20o * t10o;
-		W_MJo = W_den_MJo * Vol;
-		Bta_chk = W_den_MJo / 0.000001 / (Math.pow(Bo, 2) / (2 * Muo)) * 2 / 3;
-		gin = Ro - a - Rmin;
-		got = Rmax - (Ro + a);
-		gmin = Math.min(gin, got);
-		gdiv = 0.05 * Math.pow(R_o / 8, 2); // 10cm is to large, try 5cm jal2024
-		if (gmin <= 0) {
-			fdiv = 0;
-		} else if (gmin >= gdiv) {
-			fdiv = 1;
-		} else {
-			fdiv = gmin / gdiv;
+	}
+
+	// cancel the schedule once the loop has converged, unless a new generation
+	// was published meanwhile (its startTicks() found this schedule running)
+	synchronized void stopTicks() {
+		if (pending.get() == null) {
+			tick.cancel(false); // calculations are done
 		}
+	}
 
-		if (fdiv <= 0.3) {
-			deeCanvas.changeGraphColor(0);
+	// tick thread: start generation g from the previous W_MJ, n20_ (time loop
+	// one starts from the design initial conditions); fast-forward continues the
+	// previous operating point to the new design at once. A radial run keeps the
+	// profiles of a radial run before it, and neither caches nor continues
+	void begin(Generation g) {
+		boolean replaced = current != null && !done();
+		if (replaced) {
+			RESTARTS.increment();
+		}
+		endRun(replaced);
+		runEvent = new SimulationEvents.SimulationRun();
+		runEvent.begin();
+		// the branch a run settles on depends on where it starts
+		runStart = state;
+		SteadyState hit = cache == null || g.radial ? null : cache.get(g.design, runStart);
+		SteadyState next = null;
+		if (g.radial) {
+			if (radial == null) {
+				radial = new RadialTransport();
+			}
+			if (state == null) {
+				state = radial.start(g.design);
+			} else if (current != null && current.radial) {
+				// the same profiles, their averages and powers on the new design
+				radial.figures(g.design);
+				state = radial.state(g.design);
+			} else {
+				state = radial.start(g.design, state.W_MJ, state.n20_, state.Time);
+			}
+		} else if (hit != null) {
+			state = hit.state;
+		} else if (state == null) {
+			state = engine.initial(g.design);
 		} else {
-			deeCanvas.changeGraphColor(1);
+			state = engine.evaluate(g.design, state.W_MJ, state.n20_);
+			if (g.fastForward) {
+				next = continuation.next(g.design, state);
+			}
+		}
+		colorIndex = state.colorIndex();
+		current = g;
+		cached = hit != null;
+		// a cached or continued steady state needs no steps
+		itt = cached ? PlasmaEngine.ITT_MAX + 1 : 0;
+		steady = cached;
+		if (next != null && next.converged) {
+			state = next.state;
+			itt = next.itt;
+			steady = true;
+			SimulationEvents.steady("continuation", next);
+		} else if (cached) {
+			SimulationEvents.steady("cache", hit);
 		}
+	}
 
-		BoundaryProgress.updateBar((float) (1 - fdiv));
-		H_fac = h_mult * (fdiv + 1.0);
-		Conf_to = H_fac * 0.048 * Math.pow(Ip_MAo, 0.85) * Math.pow(Ro, 1.2) * Math.pow(a, 0.3) * Math.pow(n20o, 0.1)
-				* Math.pow(Bo, 0.2) * Math.pow((2.5 * k / Pw_in_MWo), 0.5);
-		if (t10o < T10c) {
-			F_alpo = Math.pow(t10o / T10c, 3);
-		} else if (t10o < 2 * T10c) {
-			F_alpo = Math.pow(t10o / T10c, 2);
-		} else if (t10o <= 3 * T10c) {
-			F_alpo = 4 * Math.pow(t10o / 2 * T10c, 1.5);
-		} else {
-			F_alpo = 4 * Math.pow(1.5, 1.5);
+	// tick thread: commit the SimulationRun of current, if not done yet
+	private void endRun(boolean replaced) {
+		SimulationEvents.SimulationRun e = runEvent;
+		runEvent = null;
+		if (e == null || !e.shouldCommit()) {
+			return;
+		}
+		e.fastForward = current.fastForward;
+		e.cached = cached;
+		e.steps = itt;
+		e.steady = steady;
+		e.replaced = replaced;
+		e.P_e = state.P_e;
+		e.commit();
+	}
+
+	// tick thread: current settled after itt steps of the transient
+	private void reached() {
+		CONVERGENCE.record(itt);
+		SimulationEvents.steady("transient", new SteadyState(current.design, state, itt, true));
+	}
+
+	// tick thread: the current generation has converged
+	boolean done() {
+		if (current.fastForward) {
+			return steady || itt >= PlasmaEngine.MAX_STEPS;
 		}
-		Pfus_d_MWo = 0.8 * f_an_at * Math.pow(nDT_ne, 2) * Math.pow(n20o, 2) * F_alpo;
-		Pfus_MWo = Pfus_d_MWo * Vol;
-		Palp_MWo = Pfus_MWo * 3.5 / 17.6;
-		PNeut_MWo = Pfus_MWo - Palp_MWo;
-		N_wal_load = PNeut_MWo / Area;
-		dt = 1;
-		Time = 0;
-
-		// time loop one (first state)
-		P_in_MW = Pw_in_MWo;
-		mdot_in = M_toto * mdot_V_fac;
-		B_in = B_ino;
-		n20_o = n20o * IC_fac;
-		if (thread_flag == 0) {
-			n20_ = n20_o;
+		return itt > PlasmaEngine.ITT_MAX; // convergance loop 100=min, 200=>ok 300=>plenty
+	}
+
+	// steady state cache with its hit rate, null if -Djstar.cacheSize=0
+	public SteadyStateCache getCache() {
+		return cache;
+	}
+
+	// tick period for the next integration run
+	public void setTickMillis(long tickMillis) {
+		this.tickMillis = Math.max(1, tickMillis);
+	}
+
+	// Input: slider values (sv1...sv4) from Dee Magnet, Bo,Pw,MdSlider values and options
+	DesignPoint getDesignPoint() {
+		DesignPoint.Builder b = new DesignPoint.Builder().shape(sv1, sv2, sv3, sv4)
+				.physics(BoSlider.getValue(), PwSlider.getValue(), MdSlider.getValue())
+				.Rmax(Rmax).Rmin(Rmin).kMax(kMax).Mdmax(Mdmax).Bomax(Bomax)
+				.q_edg(q_edg).h_mult(h_mult).Troy_c(Troy_c)
+				.impurities(nAlp_ne, nO_ne, nC_ne, nFe_ne, nBe_ne, nAr_ne)
+				.radiation(radiation).species(radiation == null ? "" : species);
+		return b.geometry(geometry(b)).build();
+	}
+
+	static CoolingRates loadCoolingRates(String file) {
+		if (file == null) {
+			return null;
 		}
-		W_MJ_o = W_MJo * IC_fac * IC_fac;
-		if (thread_flag == 0) {
-			W_MJ = W_MJ_o;
+		try {
+			return CoolingRates.read(Paths.get(file));
+		} catch (IOException | IllegalArgumentException e) {
+			System.err.println("cooling rates " + file + ": " + e.getMessage());
+			return null;
 		}
-		T10_ = W_MJ / (0.2403 * (1 + nI_ne) * n20_ * Vol);
-		T_c_mil = T10_ * 116.05;
-		T_log10_c_mil = Math.log(T_c_mil) / Math.log(10);
-		Ip_MA = B_in * I_B;
-		if (T10_ < T10c) {
-			F_alp = Math.pow(T10_ / T10c, 3);
-		} else if (T10_ < 2 * T10c) {
-			F_alp = Math.pow(T10_ / T10c, 2);
-		} else if (T10_ < 3 * T10c) {
-			F_alp = 4 * Math.pow(T10_ / (2 * T10c), 1.5);
-		} else {
-			F_alp = 4 * Math.pow(1.5, 1.5);
+	}
+
+	// the geometry table of the machine of b, null until it is ready; asks for
+	// it the first time (a build takes a while and writes ~180 MB, one table at
+	// a time)
+	private GeometryTable geometry(DesignPoint.Builder b) {
+		if (geometryDir == null) {
+			return null;
 		}
-		Pfus_MW_m3 = 0.8 * f_an_at * Math.pow(nDT_ne, 2) * Math.pow(n20_, 2) * F_alp;
-		Pfus_MW = Pfus_MW_m3 * Vol;
-		Pfus_GW = Pfus_MW * .001;
-		Palp_MW = Pfus_MW * 3.5 / 17.6;
-		PNeut_MW = Pfus_MW - Palp_MW;
-		Pgain_MW = P_in_MW + Palp_MW;
-		Pbrem_MW = 0.0168 * n20_ * n20_ * Zeff * Vol * Math.pow(T10_, 0.5);
-		// 0.1 to keep Ptrans_MW>0
-		Ptrans_MW = Math.max((Pgain_MW - Pbrem_MW), (0.5 * Pgain_MW));
-		tau_89 = 0.048 * Math.pow(Ip_MA, 0.85) * Math.pow(Ro, 1.2) * Math.pow(a, 0.3) * Math.pow(n20_, 0.1)
-				* Math.pow(B_in, 0.2) * Math.pow(2.5 * k / Ptrans_MW, 0.5);
-		tau_98 = 0.0562 * Math.pow(Ip_MA, 0.9) * Math.pow(B_in, 0.15) * Math.pow(Ptrans_MW, -0.69)
-				* Math.pow((10 * n20_), 0.41) * Math.pow(2.5, 0.19) * Math.pow(Ro, 1.97) * Math.pow((Ro / a), -0.58)
-				* Math.pow(k, 0.78);
-		Conf_t = H_fac / 2.0 * tau_98; // old was tau_89, new is tau_98
-
-		// System.out.println("Pgain_MW= " + (float) Pgain_MW + "\tPbrem_MW= " + (float)
-		// Pbrem_MW + "\tPtrans_MW= " + (float) Ptrans_MW + "\ttau_89= " + (float)
-		// tau_89);
-
-		H98y2 = Conf_t / tau_98;
-		H89P = Conf_t / tau_89;
-		Plos_MW = W_MJ / Conf_t;
-		dW_MW_dt = Pgain_MW - Plos_MW;
-		n20_in_rat = mdot_in / (0.000000418 * Vol);
-		n20_los_rat = n20_ / Conf_t;
-		dn20_dt = n20_in_rat - n20_los_rat;
-		Mtot_Gr = n20_ * 0.418 * 0.000001 * Vol / 0.001;
-		n20_n20_gw = n20_ / (0.27 * Ip_MA / Math.pow(a, 2));
-		n20_n20_bet = n20_ / (Troy_c * Ip_MA * B_in / (40.2 * (1 + nI_ne) * a * T10_));
-		Bet = 0.402 * (1 + nI_ne) * n20_ * T10_ / Math.pow(B_in, 2);
-		n_wall = PNeut_MW / Area;
-		P_e_in = P_in_MW * F_aux + B_in / Bo * 100;
-		P_e_gross = PNeut_MW * F_plant;
-		P_e = PNeut_MW * F_plant - P_e_in;
-		p_e_color_index = (int) (20.0 * P_e / 1000.0);
-		p_e_color_index = Math.max(Math.min(20, p_e_color_index), 0); // min max
-		deeCanvas.setColorIndex(p_e_color_index);
-		if (P_in_MW <= 0) {
-			G = 0;
-		} else {
-			G = Pfus_MW / P_in_MW;
+		String name = "geometry_" + Rmax + "_" + Rmin + "_" + kMax + "_" + q_edg + ".bin";
+		GeometryTable t = geometry.get(name);
+		if (t == null && geometryRequested.add(name)) {
+			DesignPoint machine = b.build();
+			geometryLoader.execute(() -> {
+				GeometryTable g = readGeometry(Paths.get(geometryDir, name), machine.toBuilder());
+				if (g != null) {
+					geometry.put(name, g);
+				}
+			});
 		}
-		itt = 0;
+		return t;
+	}
 
-		thread_flag = 1;
-		if (!isCalculating) {
-			isCalculating = true;
-			CompletableFuture.runAsync(this::run);
+	// the table of machine saved in path, built and saved there if missing
+	static GeometryTable readGeometry(Path path, DesignPoint.Builder machine) {
+		try {
+			if (!Files.exists(path)) {
+				GeometryTable.build(machine).save(path);
+			}
+			// mapped, not held on the heap
+			return GeometryTable.open(path);
+		} catch (IOException | IllegalArgumentException e) {
+			System.err.println("geometry table " + path + ": " + e.getMessage());
+			return null;
 		}
 	}
 
 	// ===================================================================================
 	// run() Main integration loop converging Energy(W_MJ) & Particles(n20) 
 	// [Old Thread converted to run() for conversion to Javascript jal2024
+	// One step per call; startTicks() schedules it every tickMillis, or one frame
+	// of fast-forward steps every frameMillis. Runs on the tick thread only, which
+	// owns current, state, itt and steady
 	// ===================================================================================
 	// Thread t1 = new Thread(){
 
 	public void run() {
-		double startTime, endTime;
-		// while (1 != 2){
-		while (itt <= 300) { // convergance loop 100=min, 200=>ok 300=>plenty
-			itt = itt + 1;
-			startTime = System.currentTimeMillis();
-
-			boolean update = false;
-			while (!update) {
-				endTime = System.currentTimeMillis();
-				if ((endTime - startTime) >= 100) { // Response: 1=instantaneous 10=fast 100=nominal
-
-					P_in_MW = Pw_in_MWo;
-					mdot_in = M_toto * mdot_V_fac; // Note: this is rate of input mass of particles based on Md Slider
-					B_in = B_ino;
-					n_new = n20_ + dn20_dt * dt;
-					if (n_new <= 0.001 * n20_o) {
-						n20_ = n20_o;
-					} else {
-						n20_ = n_new;
-					}
-					W_new = W_MJ + dW_MW_dt * dt;
-					if (W_new <= 0.001 * W_MJ_o) {
-						W_MJ = W_MJ_o;
-					} else {
-						W_MJ = W_new;
-					}
-					T10_ = W_MJ / (0.2403 * (1 + nI_ne) * n20_ * Vol);
-					T_c_mil = T10_ * 116.05;
-					T_log10_c_mil = Math.log(T_c_mil) / Math.log(10);
-					Ip_MA = B_in * I_B;
-					if (T10_ < T10c) {
-						F_alp = Math.pow(T10_ / T10c, 3);
-					} else if (T10_ < 2 * T10c) {
-						F_alp = Math.pow(T10_ / T10c, 2);
-					} else if (T10_ < 3 * T10c) {
-						F_alp = 4 * Math.pow(T10_ / (2 * T10c), 1.5);
-					} else {
-						F_alp = 4 * Math.pow(1.5, 1.5);
-					}
-					Pfus_MW_m3 = 0.8 * f_an_at * Math.pow(nDT_ne, 2) * Math.pow(n20_, 2) * F_alp;
-					Pfus_MW = Pfus_MW_m3 * Vol;
-					Pfus_GW = Pfus_MW * .001;
-					Palp_MW = Pfus_MW * 3.5 / 17.6;
-					PNeut_MW = Pfus_MW - Palp_MW;
-					Pgain_MW = P_in_MW + Palp_MW;
-					Pbrem_MW = 0.0168 * n20_ * n20_ * Zeff * Vol * Math.pow(T10_, 0.5);
-					// 0.1 to keep Ptrans_MW>0
-					Ptrans_MW = Math.max((Pgain_MW - Pbrem_MW), (0.5 * Pgain_MW));
-					tau_89 = 0.048 * Math.pow(Ip_MA, 0.85) * Math.pow(Ro, 1.2) * Math.pow(a, 0.3) * Math.pow(n20_, 0.1)
-							* Math.pow(B_in, 0.2) * Math.pow(2.5 * k / Ptrans_MW, 0.5);
-					tau_98 = 0.0562 * Math.pow(Ip_MA, 0.9) * Math.pow(B_in, 0.15) * Math.pow(Ptrans_MW, -0.69)
-							* Math.pow((10 * n20_), 0.41) * Math.pow(2.5, 0.19) * Math.pow(Ro, 1.97)
-							* Math.pow((Ro / a), -0.58) * Math.pow(k, 0.78);
-					Conf_t = H_fac / 2.0 * tau_98; // old was tau_89, new is tau_98
-					// System.out.println((float) Pgain_MW + "\n" + (float) Pbrem_MW + "\n" + (float) Ptrans_MW + "\n" + (float) Conf_t);
-					// System.out.println();
-					// System.out.println("Pgain_MW= " + (float) Pgain_MW + "\tPbrem_MW= " + (float) Pbrem_MW + "\tPtrans_MW= " + (float) Ptrans_MW + "\ttau_89= " + (float) tau_89);
-					// System.out.println(B_in + "\n" + Ip_MA + "\n" + Pfus_MW + "\n" + P_e + "\n" + P_in_MW + "\n" + Conf_t + "\n" + T10_);
-                    // System.out.println();
-					H98y2 = Conf_t / tau_98;
-					H89P = Conf_t / tau_89;
-					Plos_MW = W_MJ / Conf_t;
-					dW_MW_dt = Pgain_MW - Plos_MW;
-					n20_in_rat = mdot_in / (0.000000418 * Vol);
-					n20_los_rat = n20_ / (1.0 * Conf_t); // jal2024 New Multiplier has NO impact, only needs higher
-														 // slider Md value to atain same parameters!!
-					dn20_dt = n20_in_rat - n20_los_rat;
-					Mtot_Gr = n20_ * 0.418 * 0.000001 * Vol / 0.001;
-					n20_n20_gw = n20_ / (0.27 * Ip_MA / Math.pow(a, 2));
-					n20_n20_bet = n20_ / (Troy_c * Ip_MA * B_in / (40.2 * (1 + nI_ne) * a * T10_));
-					Bet = 0.402 * (1 + nI_ne) * n20_ * T10_ / Math.pow(B_in, 2);
-					n_wall = PNeut_MW / Area;
-					P_e_in = P_in_MW * F_aux + B_in / Bo * 100;
-					P_e_gross = PNeut_MW * F_plant;
-					P_e = PNeut_MW * F_plant - P_e_in;
-					if (P_in_MW <= 0) {
-						G = 0;
-					} else {
-						G = Pfus_MW / P_in_MW;
-					}
-
-					PowerInGauge.setValue(P_e_in);
-					PowerInGauge.setLabel("Elec. Pow. In= " + (int) PowerInGauge.getValue() + " MW");
-					PowerOutGauge.setValue(P_e);
-					PowerOutGauge.setLabel("Net Elec. Pow.= " + (int) PowerOutGauge.getTrueValue() + " MW");// 2024
-					TemperatureGauge.setValue(Pfus_GW);
-					TemperatureGauge
-							.setLabel("Fusion Power= " + decFormat.format(TemperatureGauge.getTrueValue()) + " GW");
-
-					// Panel 5 output
-					fieldOnAxisLabel.setText(" Magnetic Field= " + densityFormat.format(B_in) + " T  "); // jal2024
-					ipLabel.setText(" Plasma Current= " + decFormat.format(Ip_MA) + " MA  ");
-					fusionPowerLabel.setText(" Fusion Power= " + Math.round(Pfus_MW) + " MW  ");
-					pinLabel.setText(" Aux. Power= " + decFormat.format(P_in_MW) + " MW  ");
-					wallLoadLabel.setText(" Wall Load= " + decFormat.format(n_wall) + " MW/m^2  ");
-					QplasmaLabel.setText(" Q= Pfusion/Paux= " + intFormat.format((Pfus_MW / P_in_MW)));// 2024
-					bnLabel.setText(
-							" Normalized Beta= " + decFormat.format((Bet * 100 * B_in * a) / Ip_MA) + " %Tm/MA  ");
-					btLabel.setText(" Toroidal Beta= " + decFormat.format(Bet * 100) + " %  ");
-//					nGRLabel.setText(" Greenwald Limit= " + decFormat.format(n20_n20_gw));
-					nGRLabel.setText(" Greenwald Limit= " + densityFormat.format(n20_n20_gw)); //jal17sep2024
-					tauELabel.setText(" Conf. Time= " + decFormat.format(Conf_t) + " s  ");// 2024
-					H98y2Label.setText(" H98y2= " + decFormat.format(H98y2) + "  &  H89P= " + decFormat.format(H89P));// 2024
-					q95Label.setText(" Safety Factor, q95= " + decFormat.format(q_edg));
-//					ZeffLabel.setText(" Zeff= " + decFormat.format(Zeff));
-					ZeffLabel.setText(" Zeff= " + densityFormat.format(Zeff)); //jal17sep2024
-					temperatureLabel.setText(" Temperature= " + decFormat.format((T10_ * 10)) + " keV ");
-					densityLabel.setText(" Density= " + densityFormat.format(n_new) + " ^20/m^3 ");// 2024
-
-					nDT_neLabel.setText(" DT Fraction= " + decFormat.format(nDT_ne * 100) + " %");// 2024
-					PbremLabel.setText(" Bremsstrahlung Rad.= " + intFormat.format(Pbrem_MW) + " MW ");// 2024
-					PtransLabel.setText(" Transport Pow. Loss= " + intFormat.format(Ptrans_MW) + " MW ");// 2024
-					VolLabel.setText(" Plasma Volume= " + intFormat.format(Vol) + " m^3 ");// 2024
-					P_eLabel.setText(" Net Elec. Pow.= " + intFormat.format(P_e) + " MW ");// 2024
-
-					DensityProgress.updateBar((float) n20_n20_gw);
-					PressureProgress.updateBar((float) n20_n20_bet);
-					update = true;
-
-				} // if ((endTime-startTime)>=100
-			} // while ( !update )
-		} // while (itt<=100)
-		isCalculating = false; // Reset the flag when calculations are done
+		long t0 = System.nanoTime();
+		Generation g = pending.getAndSet(null);
+		if (g != null) {
+			begin(g);
+			if (steady) {
+				if (!cached && cache != null) {
+					cache.put(new SteadyState(current.design, state, itt, true), runStart);
+					cached = true;
+				}
+				published.set(new Snapshot(current.design, state, colorIndex, ++publications));
+				endRun(false);
+				return;
+			}
+		} else if (current == null || done()) {
+			if (current != null) {
+				endRun(false);
+			}
+			stopTicks();
+			return;
+		}
+		SimulationEvents.IntegrationStep event = new SimulationEvents.IntegrationStep();
+		event.begin();
+		int taken;
+		DesignPoint p = current.design;
+		try {
+			taken = advance(p);
+		} catch (ArithmeticException e) {
+			// the adaptive integrators give up below their smallest step: the
+			// generation ends unconverged at its last state, as a sweep point
+			// does, and the next tick stops
+			UNDERFLOWS.increment();
+			itt = current.fastForward ? PlasmaEngine.MAX_STEPS : PlasmaEngine.ITT_MAX + 1;
+			taken = 0;
+		}
+		if (cache != null && !cached && !current.radial && engine.isSteady(state, PlasmaEngine.TOL)) {
+			cache.put(new SteadyState(p, state, itt, true), runStart);
+			cached = true;
+		}
+		published.set(new Snapshot(p, state, colorIndex, ++publications));
+		STEPS.add(taken);
+		TICK_NANOS.record(System.nanoTime() - t0);
+		if (event.shouldCommit()) {
+			event.steps = taken;
+			event.itt = itt;
+			event.W_MJ = state.W_MJ;
+			event.n20_ = state.n20_;
+			event.commit();
+		}
 	} // Run
 	// }; // Thread
 
+	// tick thread: the steps of one tick of current; returns how many were taken
+	private int advance(DesignPoint p) {
+		if (current.fastForward) {
+			// integrate for half a frame, then draw the last state once; a newer
+			// generation cancels the frame
+			long frameEnd = System.nanoTime() + frameMillis * 500000L;
+			PlasmaState s = state;
+			int steps = 0;
+			boolean done;
+			do {
+				s = current.radial ? radial.step(p) : engine.step(s, p);
+				steps = steps + 1;
+				done = engine.isSteady(s, PlasmaEngine.TOL);
+			} while (!done && itt + steps < PlasmaEngine.MAX_STEPS && System.nanoTime() < frameEnd
+					&& pending.get() == null);
+			state = s;
+			itt = itt + steps;
+			steady = done;
+			if (steady) {
+				reached();
+			}
+			return steps;
+		}
+		itt = itt + 1;
+		state = current.radial ? radial.step(p) : engine.step(state, p);
+		if (!steady && engine.isSteady(state, PlasmaEngine.TOL)) {
+			steady = true;
+			reached();
+		}
+		return 1;
+	}
+
+	// event thread (display timer): show the newest snapshot unless it is shown already
+	void pull() {
+		Snapshot snap = published.get();
+		if (snap == null || snap == shown) {
+			return;
+		}
+		long t0 = System.nanoTime();
+		SimulationEvents.UiRefresh event = new SimulationEvents.UiRefresh();
+		event.begin();
+		Snapshot last = shown;
+		shown = snap;
+		if (last == null || last.colorIndex != snap.colorIndex) {
+			deeCanvas.setColorIndex(snap.colorIndex);
+		}
+		showState(snap.design, snap.state, last == null ? null : last.state);
+		long dropped = last == null ? 0 : snap.seq - last.seq - 1;
+		REFRESHES.increment();
+		DROPPED.add(dropped);
+		REFRESH_NANOS.record(System.nanoTime() - t0);
+		if (event.shouldCommit()) {
+			event.dropped = dropped;
+			event.commit();
+		}
+	}
+
+	// gauges, Panel 5 output and limit bars for plasma state s, shown in place of
+	// last (null: nothing shown yet)
+	void showState(DesignPoint p, PlasmaState s, PlasmaState last) {
+		if (last == null || last.P_e_in != s.P_e_in) {
+			PowerInGauge.setValue(s.P_e_in);
+			PowerInGauge.setLabel("Elec. Pow. In= " + (int) PowerInGauge.getValue() + " MW");
+		}
+		if (last == null || last.P_e != s.P_e) {
+			PowerOutGauge.setValue(s.P_e);
+			PowerOutGauge.setLabel("Net Elec. Pow.= " + (int) PowerOutGauge.getTrueValue() + " MW");// 2024
+		}
+		if (last == null || last.Pfus_GW != s.Pfus_GW) {
+			TemperatureGauge.setValue(s.Pfus_GW);
+			TemperatureGauge.setLabel("Fusion Power= " + decFormat.format(TemperatureGauge.getTrueValue()) + " GW");
+		}
+
+		// Panel 5 output
+		show(fieldOnAxisLabel, " Magnetic Field= " + densityFormat.format(s.B_in) + " T  "); // jal2024
+		show(ipLabel, " Plasma Current= " + decFormat.format(s.Ip_MA) + " MA  ");
+		show(fusionPowerLabel, " Fusion Power= " + Math.round(s.Pfus_MW) + " MW  ");
+		show(pinLabel, " Aux. Power= " + decFormat.format(s.P_in_MW) + " MW  ");
+		show(wallLoadLabel, " Wall Load= " + decFormat.format(s.n_wall) + " MW/m^2  ");
+		show(QplasmaLabel, " Q= Pfusion/Paux= " + intFormat.format((s.Pfus_MW / s.P_in_MW)));// 2024
+		show(bnLabel, " Normalized Beta= " + decFormat.format(s.betaN(p)) + " %Tm/MA  ");
+		show(btLabel, " Toroidal Beta= " + decFormat.format(s.Bet * 100) + " %  ");
+		show(nGRLabel, " Greenwald Limit= " + densityFormat.format(s.n20_n20_gw)); //jal17sep2024
+		show(tauELabel, " Conf. Time= " + decFormat.format(s.Conf_t) + " s  ");// 2024
+		show(H98y2Label, " H98y2= " + decFormat.format(s.H98y2) + "  &  H89P= " + decFormat.format(s.H89P));// 2024
+		show(q95Label, " Safety Factor, q95= " + decFormat.format(p.q_edg));
+		show(ZeffLabel, " Zeff= " + densityFormat.format(p.Zeff)); //jal17sep2024
+		show(temperatureLabel, " Temperature= " + decFormat.format((s.T10_ * 10)) + " keV ");
+		show(densityLabel, " Density= " + densityFormat.format(s.n20_) + " ^20/m^3 ");// 2024
+
+		show(nDT_neLabel, " DT Fraction= " + decFormat.format(p.nDT_ne * 100) + " %");// 2024
+		show(PbremLabel, " Bremsstrahlung Rad.= " + intFormat.format(s.Pbrem_MW) + " MW ");// 2024
+		show(PtransLabel, " Transport Pow. Loss= " + intFormat.format(s.Ptrans_MW) + " MW ");// 2024
+		show(VolLabel, " Plasma Volume= " + intFormat.format(p.Vol) + " m^3 ");// 2024
+		show(P_eLabel, " Net Elec. Pow.= " + intFormat.format(s.P_e) + " MW ");// 2024
+
+		if (last == null || (float) last.n20_n20_gw != (float) s.n20_n20_gw) {
+			DensityProgress.updateBar((float) s.n20_n20_gw);
+		}
+		if (last == null || (float) last.n20_n20_bet != (float) s.n20_n20_bet) {
+			PressureProgress.updateBar((float) s.n20_n20_bet);
+		}
+	}
+
+	// set the label text only if it changed
+	static void show(Label label, String text) {
+		if (!text.equals(label.getText())) {
+			label.setText(text);
+		}
+	}
+
 	// ------------------ main -----------------------------
 	public static void main(String[] args) {
 		new JStarApp();
@@ -0,0 +1,198 @@
+//=============================================================================
+// Title:        Metrics.java
+// Description:  In-process metrics registry: named Counters (LongAdder; a
+//               Reader adds their rate per second since its own previous
+//               report, so readers do not reset each other), Histograms (log-linear
+//               buckets, 8 per power of two, so quantiles are within ~6%) and
+//               Gauges read when reported. An update is one or two uncontended
+//               adds, made once per tick, frame or solve rather than per step;
+//               histogram buckets are LongAdders too, so threads recording the
+//               same value do not share a counter.
+//               -Djstar.metrics=false turns every update into a no-op.
+//=============================================================================
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+public final class Metrics {
+
+	public static final boolean ENABLED = !"false".equals(System.getProperty("jstar.metrics"));
+
+	private static final Map<String, Counter> counters = new ConcurrentSkipListMap<String, Counter>();
+	private static final Map<String, Histogram> histograms = new ConcurrentSkipListMap<String, Histogram>();
+	private static final Map<String, DoubleSupplier> gauges = new ConcurrentSkipListMap<String, DoubleSupplier>();
+
+	private Metrics() {
+	}
+
+	// the counter of that name, registered on first use
+	public static Counter counter(String name) {
+		return counters.computeIfAbsent(name, k -> new Counter());
+	}
+
+	public static Histogram histogram(String name) {
+		return histograms.computeIfAbsent(name, k -> new Histogram());
+	}
+
+	// read at every report; replaces a gauge of the same name
+	public static void gauge(String name, DoubleSupplier gauge) {
+		gauges.put(name, gauge);
+	}
+
+	public static final class Counter {
+		private final LongAdder count = new LongAdder();
+
+		Counter() {
+		}
+
+		public void increment() {
+			if (ENABLED) {
+				count.increment();
+			}
+		}
+
+		public void add(long n) {
+			if (ENABLED) {
+				count.add(n);
+			}
+		}
+
+		public long count() {
+			return count.sum();
+		}
+	}
+
+	// a periodic reporter, e.g. the -Djstar.metricsMillis printer: text() with
+	// the rate of every counter since this reader's previous text()
+	public static final class Reader {
+		// counts and time at the previous text()
+		private final Map<String, Long> last = new HashMap<String, Long>();
+		private long lastNanos = System.nanoTime();
+
+		public Reader() {
+			for (Map.Entry<String, Counter> e : counters.entrySet()) {
+				last.put(e.getKey(), e.getValue().count());
+			}
+		}
+
+		public synchronized String text() {
+			long t = System.nanoTime();
+			String s = Metrics.text(last, (t - lastNanos) * 1e-9);
+			lastNanos = t;
+			return s;
+		}
+	}
+
+	public static final class Histogram {
+		// values below 8 exactly, then 8 buckets per power of two up to 2^63
+		static final int SUB = 8;
+		private final LongAdder[] buckets = new LongAdder[SUB * 62];
+		private final LongAdder sum = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		Histogram() {
+			for (int b = 0; b < buckets.length; b++) {
+				buckets[b] = new LongAdder();
+			}
+		}
+
+		// a value >= 0 (negative ones count as 0)
+		public void record(long v) {
+			if (!ENABLED) {
+				return;
+			}
+			v = Math.max(0, v);
+			buckets[bucket(v)].increment();
+			sum.add(v);
+			max.accumulate(v);
+		}
+
+		static int bucket(long v) {
+			if (v < SUB) {
+				return (int) v;
+			}
+			int msb = 63 - Long.numberOfLeadingZeros(v);
+			return (msb - 2) * SUB + (int) ((v >>> (msb - 3)) & (SUB - 1));
+		}
+
+		// middle of bucket b
+		static double value(int b) {
+			if (b < SUB) {
+				return b;
+			}
+			int shift = b / SUB - 1;
+			long lo = (long) (SUB + b % SUB) << shift;
+			return lo + ((1L << shift) - 1) / 2.0;
+		}
+
+		// the sum of the buckets, so a record costs two adds
+		public long count() {
+			long n = 0;
+			for (int b = 0; b < buckets.length; b++) {
+				n += buckets[b].sum();
+			}
+			return n;
+		}
+
+		public double mean() {
+			long n = count();
+			return n == 0 ? 0 : (double) sum.sum() / n;
+		}
+
+		public long max() {
+			return max.get();
+		}
+
+		// value below which a fraction q of the records lie (0 if none)
+		public double quantile(double q) {
+			long n = count();
+			long rank = (long) Math.ceil(q * n), seen = 0;
+			for (int b = 0; b < buckets.length; b++) {
+				seen += buckets[b].sum();
+				if (seen >= rank && seen > 0) {
+					return Math.min(value(b), max.get());
+				}
+			}
+			return 0;
+		}
+	}
+
+	// one "name value" line per figure: counters, histogram count / mean / p50 /
+	// p99 / max, gauges. Counters are totals; a client polling this takes
+	// their rate itself
+	public static String text() {
+		return text(null, 0);
+	}
+
+	// the same with the rate of each counter since the counts in last (null:
+	// no rates) seconds ago, which become the current counts
+	private static String text(Map<String, Long> last, double seconds) {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, Counter> e : counters.entrySet()) {
+			long c = e.getValue().count();
+			sb.append(e.getKey()).append(' ').append(c).append('\n');
+			if (last != null) {
+				Long before = last.put(e.getKey(), c);
+				double r = seconds <= 0 ? 0 : (c - (before == null ? 0 : before)) / seconds;
+				sb.append(e.getKey()).append(".perSecond ").append((float) r).append('\n');
+			}
+		}
+		for (Map.Entry<String, Histogram> e : histograms.entrySet()) {
+			Histogram h = e.getValue();
+			String k = e.getKey();
+			sb.append(k).append(".count ").append(h.count()).append('\n');
+			sb.append(k).append(".mean ").append((float) h.mean()).append('\n');
+			sb.append(k).append(".p50 ").append((float) h.quantile(0.5)).append('\n');
+			sb.append(k).append(".p99 ").append((float) h.quantile(0.99)).append('\n');
+			sb.append(k).append(".max ").append(h.max()).append('\n');
+		}
+		for (Map.Entry<String, DoubleSupplier> e : gauges.entrySet()) {
+			sb.append(e.getKey()).append(' ').append((float) e.getValue().getAsDouble()).append('\n');
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,287 @@
+//=============================================================================
+// Title:        ParetoExplorer.java
+// Description:  NSGA-II search of the P_e / Q / n_wall / Vol trade-off over the
+//               design inputs of some SweepAxis ranges. Every generation's
+//               offspring are solved in parallel on a ForkJoinPool and offered
+//               to a ParetoFront, which keeps every non-dominated feasible
+//               design seen; a Listener gets the front whenever it changed.
+//               Selection is constrained domination: within the plasma limits
+//               beats outside, less DesignOptimizer.violation() beats more.
+//=============================================================================
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+public class ParetoExplorer {
+
+	// simulated binary crossover and polynomial mutation distribution indices
+	static final double ETA_C = 15;
+	static final double ETA_M = 20;
+	// probability a pair of parents is crossed
+	static final double P_CROSS = 0.9;
+	// candidates one task solves before it stops splitting
+	static final int GRAIN = 16;
+
+	// front updates, called on the thread running run()
+	public interface Listener {
+		void update(int generation, long evaluations, List<SteadyState> front);
+	}
+
+	// one member of the population: inputs in the unit cube and their solution
+	static final class Candidate {
+		final double[] x;
+		SteadyState steady;
+		double[] objectives;
+		double violation;
+		int rank;
+		double crowding;
+
+		Candidate(double[] x) {
+			this.x = x;
+		}
+	}
+
+	private final DesignPoint base;
+	private final SweepAxis[] axes;
+	private final Function<DesignPoint, SteadyState> solver;
+
+	// explore the inputs of axes, each between its first and last value, the
+	// other inputs as in base; solver is called from many threads at once
+	public ParetoExplorer(DesignPoint base, Function<DesignPoint, SteadyState> solver, SweepAxis... axes) {
+		if (axes.length == 0) {
+			throw new IllegalArgumentException("no inputs to explore");
+		}
+		this.base = base;
+		this.solver = solver;
+		this.axes = axes.clone();
+	}
+
+	// population candidates per generation until evaluations were solved;
+	// returns front, which may already hold states of earlier runs or sweeps
+	public ParetoFront run(ForkJoinPool pool, int population, long evaluations, long seed, ParetoFront front,
+			Listener listener) {
+		if (population < 4 || population % 2 != 0) {
+			throw new IllegalArgumentException("population= " + population);
+		}
+		SplittableRandom random = new SplittableRandom(seed);
+		Candidate[] parents = new Candidate[population];
+		for (int i = 0; i < population; i++) {
+			double[] x = new double[axes.length];
+			for (int d = 0; d < x.length; d++) {
+				x[d] = random.nextDouble();
+			}
+			parents[i] = new Candidate(x);
+		}
+		pool.invoke(new Solve(parents, 0, population, front));
+		long evaluated = population;
+		select(parents, population);
+		long changes = front.changes();
+		int generation = 0;
+		if (listener != null) {
+			listener.update(generation, evaluated, front.members());
+		}
+		while (evaluated < evaluations) {
+			generation++;
+			Candidate[] children = breed(parents, random);
+			pool.invoke(new Solve(children, 0, children.length, front));
+			evaluated += children.length;
+			Candidate[] all = Arrays.copyOf(parents, 2 * population);
+			System.arraycopy(children, 0, all, population, population);
+			parents = select(all, population);
+			if (listener != null && front.changes() != changes) {
+				changes = front.changes();
+				listener.update(generation, evaluated, front.members());
+			}
+		}
+		return front;
+	}
+
+	public ParetoFront run(int population, long evaluations, long seed, Listener listener) {
+		return run(ForkJoinPool.commonPool(), population, evaluations, seed, new ParetoFront(), listener);
+	}
+
+	// design at x in the unit cube of the axis ranges
+	DesignPoint design(double[] x) {
+		DesignPoint.Builder b = base.toBuilder();
+		for (int d = 0; d < axes.length; d++) {
+			SweepAxis axis = axes[d];
+			axis.parameter.apply(b, axis.from() + (axis.to() - axis.from()) * x[d]);
+		}
+		return b.build();
+	}
+
+	// a beats b: feasible over infeasible, less violation, then Pareto dominance
+	static boolean beats(Candidate a, Candidate b) {
+		if (a.violation != b.violation) {
+			return a.violation < b.violation;
+		}
+		return a.violation == 0 && ParetoFront.dominates(a.objectives, b.objectives);
+	}
+
+	// rank all (fast non-dominated sort) and crowding per rank, returns the
+	// best size of them by rank, then by crowding
+	static Candidate[] select(Candidate[] all, int size) {
+		int n = all.length;
+		int[] beaten = new int[n];
+		int[][] beats = new int[n][];
+		int[] count = new int[n];
+		for (int i = 0; i < n; i++) {
+			beats[i] = new int[4];
+		}
+		for (int i = 0; i < n; i++) {
+			for (int j = i + 1; j < n; j++) {
+				if (beats(all[i], all[j])) {
+					beats[i] = push(beats[i], count[i]++, j);
+					beaten[j]++;
+				} else if (beats(all[j], all[i])) {
+					beats[j] = push(beats[j], count[j]++, i);
+					beaten[i]++;
+				}
+			}
+		}
+		Candidate[] next = new Candidate[size];
+		int filled = 0;
+		List<Candidate> rank = new ArrayList<Candidate>();
+		List<Integer> current = new ArrayList<Integer>();
+		for (int i = 0; i < n; i++) {
+			if (beaten[i] == 0) {
+				current.add(i);
+			}
+		}
+		for (int r = 0; !current.isEmpty(); r++) {
+			rank.clear();
+			List<Integer> following = new ArrayList<Integer>();
+			for (int i : current) {
+				all[i].rank = r;
+				rank.add(all[i]);
+				for (int k = 0; k < count[i]; k++) {
+					int j = beats[i][k];
+					if (--beaten[j] == 0) {
+						following.add(j);
+					}
+				}
+			}
+			List<double[]> points = new ArrayList<double[]>(rank.size());
+			for (Candidate c : rank) {
+				points.add(c.objectives);
+			}
+			double[] d = ParetoFront.crowding(points);
+			for (int i = 0; i < d.length; i++) {
+				rank.get(i).crowding = d[i];
+			}
+			if (filled < size) {
+				rank.sort((a, b) -> Double.compare(b.crowding, a.crowding));
+				for (int i = 0; i < rank.size() && filled < size; i++) {
+					next[filled++] = rank.get(i);
+				}
+			}
+			current = following;
+		}
+		return next;
+	}
+
+	private static int[] push(int[] a, int i, int v) {
+		if (i == a.length) {
+			a = Arrays.copyOf(a, 2 * a.length);
+		}
+		a[i] = v;
+		return a;
+	}
+
+	// offspring by binary tournaments, simulated binary crossover and
+	// polynomial mutation
+	Candidate[] breed(Candidate[] parents, SplittableRandom random) {
+		int n = axes.length;
+		Candidate[] children = new Candidate[parents.length];
+		for (int i = 0; i < children.length; i += 2) {
+			double[] a = tournament(parents, random).x.clone();
+			double[] b = tournament(parents, random).x.clone();
+			if (random.nextDouble() < P_CROSS) {
+				for (int d = 0; d < n; d++) {
+					if (random.nextBoolean()) {
+						double u = random.nextDouble();
+						double beta = u <= 0.5 ? Math.pow(2 * u, 1 / (ETA_C + 1))
+								: Math.pow(1 / (2 * (1 - u)), 1 / (ETA_C + 1));
+						double ad = a[d], bd = b[d];
+						a[d] = clamp(0.5 * ((1 + beta) * ad + (1 - beta) * bd));
+						b[d] = clamp(0.5 * ((1 - beta) * ad + (1 + beta) * bd));
+					}
+				}
+			}
+			mutate(a, random);
+			mutate(b, random);
+			children[i] = new Candidate(a);
+			children[i + 1] = new Candidate(b);
+		}
+		return children;
+	}
+
+	private void mutate(double[] x, SplittableRandom random) {
+		for (int d = 0; d < x.length; d++) {
+			if (random.nextInt(x.length) == 0) {
+				double u = random.nextDouble();
+				double delta = u < 0.5 ? Math.pow(2 * u, 1 / (ETA_M + 1)) - 1
+						: 1 - Math.pow(2 * (1 - u), 1 / (ETA_M + 1));
+				x[d] = clamp(x[d] + delta);
+			}
+		}
+	}
+
+	// the better of two random parents by rank, then by crowding
+	private static Candidate tournament(Candidate[] parents, SplittableRandom random) {
+		Candidate a = parents[random.nextInt(parents.length)];
+		Candidate b = parents[random.nextInt(parents.length)];
+		if (a.rank != b.rank) {
+			return a.rank < b.rank ? a : b;
+		}
+		return a.crowding >= b.crowding ? a : b;
+	}
+
+	private static double clamp(double v) {
+		return Math.min(1, Math.max(0, v));
+	}
+
+	// solves candidates lo..hi and offers them to the front
+	private final class Solve extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Candidate[] candidates;
+		private final int lo, hi;
+		private final ParetoFront front;
+
+		Solve(Candidate[] candidates, int lo, int hi, ParetoFront front) {
+			this.candidates = candidates;
+			this.lo = lo;
+			this.hi = hi;
+			this.front = front;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new Solve(candidates, lo, mid, front), new Solve(candidates, mid, hi, front));
+				return;
+			}
+			for (int i = lo; i < hi; i++) {
+				Candidate c = candidates[i];
+				SteadyState s = solver.apply(design(c.x));
+				c.steady = s;
+				if (s.converged && Double.isFinite(s.state.P_e) && Double.isFinite(s.state.G)) {
+					c.objectives = ParetoFront.objectives(s);
+					c.violation = DesignOptimizer.violation(s);
+				} else {
+					// worse than any solution
+					c.objectives = new double[ParetoFront.OBJECTIVES];
+					Arrays.fill(c.objectives, Double.POSITIVE_INFINITY);
+					c.violation = Double.POSITIVE_INFINITY;
+				}
+				front.add(s);
+			}
+		}
+	}
+}
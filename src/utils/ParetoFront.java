@@ -0,0 +1,162 @@
+//=============================================================================
+// Title:        ParetoFront.java
+// Description:  Non-dominated set of steady states for the trade-off of net
+//               electric power P_e, gain Q (G = Pfus_MW / P_in_MW), neutron
+//               wall load n_wall and plasma Vol: more P_e and Q, less n_wall
+//               and Vol. Only converged states within the plasma limits
+//               (DesignOptimizer.violation() == 0) enter. Kept up to date one
+//               state at a time, from many threads, so it also serves as the
+//               Sink of a DesignSweep.
+//=============================================================================
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+public class ParetoFront implements DesignSweep.Sink {
+
+	// -P_e, -Q, n_wall, Vol: all minimized
+	public static final int OBJECTIVES = 4;
+
+	private final int capacity;
+	private final List<SteadyState> members = new ArrayList<SteadyState>();
+	private final List<double[]> keys = new ArrayList<double[]>();
+	private long offered;
+	private long changes;
+
+	public ParetoFront() {
+		this(Integer.MAX_VALUE);
+	}
+
+	// about capacity members: once it holds half as many more, the most
+	// crowded are dropped down to capacity
+	public ParetoFront(int capacity) {
+		if (capacity < 2) {
+			throw new IllegalArgumentException("capacity= " + capacity);
+		}
+		this.capacity = capacity;
+	}
+
+	// objectives of s, all to be minimized
+	static double[] objectives(SteadyState s) {
+		PlasmaState st = s.state;
+		return new double[] { -st.P_e, -st.G, st.n_wall, s.design.Vol };
+	}
+
+	// a is no worse than b in every objective and better in one
+	static boolean dominates(double[] a, double[] b) {
+		boolean better = false;
+		for (int m = 0; m < a.length; m++) {
+			if (a[m] > b[m]) {
+				return false;
+			}
+			better |= a[m] < b[m];
+		}
+		return better;
+	}
+
+	// crowding distance of every point: sum over the objectives of the gap
+	// between its neighbours, infinite at the extremes
+	static double[] crowding(List<double[]> points) {
+		int n = points.size();
+		double[] d = new double[n];
+		Integer[] order = new Integer[n];
+		for (int m = 0; m < OBJECTIVES; m++) {
+			final int k = m;
+			for (int i = 0; i < n; i++) {
+				order[i] = i;
+			}
+			Arrays.sort(order, Comparator.comparingDouble(i -> points.get(i)[k]));
+			double lo = points.get(order[0])[k], hi = points.get(order[n - 1])[k];
+			d[order[0]] = Double.POSITIVE_INFINITY;
+			d[order[n - 1]] = Double.POSITIVE_INFINITY;
+			if (hi > lo) {
+				for (int i = 1; i < n - 1; i++) {
+					d[order[i]] += (points.get(order[i + 1])[k] - points.get(order[i - 1])[k]) / (hi - lo);
+				}
+			}
+		}
+		return d;
+	}
+
+	@Override
+	public void accept(long index, SteadyState result) {
+		add(result);
+	}
+
+	// true if s joined the front (dropping the members it dominates)
+	public boolean add(SteadyState s) {
+		double[] o = s.converged && DesignOptimizer.violation(s) == 0 ? objectives(s) : null;
+		synchronized (this) {
+			offered++;
+			if (o == null || !(Double.isFinite(o[0]) && Double.isFinite(o[1]) && Double.isFinite(o[2]))) {
+				return false;
+			}
+			for (double[] k : keys) {
+				if (dominates(k, o) || Arrays.equals(k, o)) {
+					return false;
+				}
+			}
+			for (int i = keys.size() - 1; i >= 0; i--) {
+				if (dominates(o, keys.get(i))) {
+					remove(i);
+				}
+			}
+			members.add(s);
+			keys.add(o);
+			changes++;
+			if (members.size() - capacity > capacity / 2) {
+				prune();
+			}
+			return true;
+		}
+	}
+
+	// back to capacity members, dropping the most crowded ones
+	private void prune() {
+		double[] d = crowding(keys);
+		Integer[] order = new Integer[d.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, Comparator.comparingDouble(i -> -d[i]));
+		List<SteadyState> m = new ArrayList<SteadyState>(capacity);
+		List<double[]> k = new ArrayList<double[]>(capacity);
+		for (int i = 0; i < capacity; i++) {
+			m.add(members.get(order[i]));
+			k.add(keys.get(order[i]));
+		}
+		members.clear();
+		members.addAll(m);
+		keys.clear();
+		keys.addAll(k);
+	}
+
+	private void remove(int i) {
+		int last = members.size() - 1;
+		members.set(i, members.get(last));
+		keys.set(i, keys.get(last));
+		members.remove(last);
+		keys.remove(last);
+	}
+
+	// copy of the current members, in no particular order
+	public synchronized List<SteadyState> members() {
+		return new ArrayList<SteadyState>(members);
+	}
+
+	public synchronized int size() {
+		return members.size();
+	}
+
+	// states offered to add(), accepted or not
+	public synchronized long offered() {
+		return offered;
+	}
+
+	// number of accepted states so far: the front changed if this did
+	public synchronized long changes() {
+		return changes;
+	}
+}
@@ -0,0 +1,104 @@
+//=============================================================================
+// Title:        PlasmaEngine.java
+// Description:  Headless JStarApp physics: the energy (W_MJ) & particle (n20_)
+//               balance of run() on immutable DesignPoint / PlasmaState values,
+//               advanced by a pluggable Integrator (forward Euler by default).
+//               Stateless, so one engine may be shared by any number of threads.
+//=============================================================================
+
+public class PlasmaEngine {
+
+	// convergance loop 100=min, 200=>ok 300=>plenty
+	public static final int ITT_MAX = 300;
+
+	// fast-forward steady state: relative tolerance on dW_MW_dt (vs. Pgain_MW)
+	// and dn20_dt (vs. n20_in_rat), and the step budget
+	public static final double TOL = 1e-6;
+	public static final int MAX_STEPS = 20000;
+
+	// solve() figures, see Metrics
+	private static final Metrics.Counter SOLVES = Metrics.counter("engine.solves");
+	private static final Metrics.Counter STEPS = Metrics.counter("engine.steps");
+	private static final Metrics.Counter UNCONVERGED = Metrics.counter("engine.unconverged");
+	private static final Metrics.Histogram CONVERGENCE = Metrics.histogram("engine.convergenceSteps");
+
+	private final Integrator integrator;
+
+	public PlasmaEngine() {
+		this(new EulerIntegrator());
+	}
+
+	public PlasmaEngine(Integrator integrator) {
+		this.integrator = integrator;
+	}
+
+	public Integrator getIntegrator() {
+		return integrator;
+	}
+
+	// first state: design initial conditions n20_o, W_MJ_o
+	public PlasmaState initial(DesignPoint p) {
+		return evaluate(p, p.W_MJ_o, p.n20_o);
+	}
+
+	// state at (W_MJ, n20_) with the slider actuators of the design
+	public PlasmaState evaluate(DesignPoint p, double W_MJ, double n20_) {
+		return evaluate(p, W_MJ, n20_, 0, DesignPoint.dt);
+	}
+
+	// state at (W_MJ, n20_) at Time, proposing the next step dt
+	public PlasmaState evaluate(DesignPoint p, double W_MJ, double n20_, double Time, double dt) {
+		return new PlasmaState(p, W_MJ, n20_, p.Pw_in_MWo, p.mdot_in, p.B_ino, Time, dt);
+	}
+
+	// dW_MW_dt, dn20_dt at (W_MJ, n20_) into f; false outside the physical domain
+	public boolean derivatives(DesignPoint p, double Time, double W_MJ, double n20_, double[] f) {
+		if (!(W_MJ > 0 && n20_ > 0)) {
+			return false;
+		}
+		PlasmaState.rates(p, W_MJ, n20_, f);
+		return Double.isFinite(f[0]) && Double.isFinite(f[1]);
+	}
+
+	// one step of the balance, as in the run() loop body
+	public PlasmaState step(PlasmaState s, DesignPoint p) {
+		return integrator.step(this, p, s);
+	}
+
+	// fixed number of steps from an existing state, as the GUI loop does
+	public PlasmaState advance(DesignPoint p, PlasmaState from, int steps) {
+		PlasmaState s = from;
+		for (int itt = 0; itt < steps; itt++) {
+			s = step(s, p);
+		}
+		return s;
+	}
+
+	// energy & particle balance settled to the relative tolerance
+	public boolean isSteady(PlasmaState s, double tol) {
+		return Math.abs(s.dW_MW_dt) <= tol * Math.abs(s.Pgain_MW) && Math.abs(s.dn20_dt) <= tol * s.n20_in_rat;
+	}
+
+	// fast-forward from the design initial conditions to steady state
+	public SteadyState solve(DesignPoint p) {
+		return solve(p, initial(p), TOL, MAX_STEPS);
+	}
+
+	// fast-forward from an existing state (e.g. the previous operating point)
+	public SteadyState solve(DesignPoint p, PlasmaState from) {
+		return solve(p, from, TOL, MAX_STEPS);
+	}
+
+	// step as fast as possible until isSteady(tol) or maxSteps
+	public SteadyState solve(DesignPoint p, PlasmaState from, double tol, int maxSteps) {
+		SteadyState s = integrator.solve(this, p, from, tol, maxSteps);
+		SOLVES.increment();
+		STEPS.add(s.itt);
+		if (s.converged) {
+			CONVERGENCE.record(s.itt);
+		} else {
+			UNCONVERGED.increment();
+		}
+		return s;
+	}
+}
@@ -0,0 +1,219 @@
+//=============================================================================
+// Title:        PlasmaState.java
+// Description:  Immutable state of the energy (W_MJ) & particle (n20_) balance
+//               for one DesignPoint, with every quantity run() derives from it.
+//               From a RadialTransport it takes the powers and rates of the
+//               profiles instead, W_MJ and n20_ being their volume averages.
+//=============================================================================
+
+public final class PlasmaState {
+
+	// total energy (MJ), density (ne/10^20)
+	public final double W_MJ, n20_;
+	// time (s), step the integrator proposes from this state (s)
+	public final double Time, dt;
+	// input power (MW), input mass rate (kg/s), input magnetic field (T)
+	public final double P_in_MW, mdot_in, B_in;
+	// temperature (T/10keV), temperature million C, log10 of it
+	public final double T10_, T_c_mil, T_log10_c_mil;
+	// plasma current, fusion power temperature factor, fusion power density, fusion power
+	public final double Ip_MA, F_alp, Pfus_MW_m3, Pfus_MW, Pfus_GW;
+	// neutron power, total power gain, alpha power, a few more power variables
+	public final double PNeut_MW, Pgain_MW, Palp_MW, Ptrans_MW, Pbrem_MW;
+	// impurity line radiation (0 without DesignPoint.radiation)
+	public final double Pline_MW;
+	// confinement scalings and the confinement time used
+	public final double tau_89, tau_98, Conf_t, H98y2, H89P;
+	// power loss, energy rate, density input ratio, density loss ratio, density rate
+	public final double Plos_MW, dW_MW_dt, n20_in_rat, n20_los_rat, dn20_dt;
+	// total mass (g), Greenwald density ratio, Troyon beta density ratio, beta
+	public final double Mtot_Gr, n20_n20_gw, n20_n20_bet, Bet;
+	// neutron wall load, injected electric power, gross electric power, net electric power, gain
+	public final double n_wall, P_e_in, P_e_gross, P_e, G;
+
+	// Evaluate the 0-D model at (W_MJ, n20_) with the given actuators
+	PlasmaState(DesignPoint p, double W_MJ, double n20_, double P_in_MW, double mdot_in, double B_in, double Time,
+			double dt) {
+		this(p, W_MJ, n20_, P_in_MW, mdot_in, B_in, Time, dt, null);
+	}
+
+	// the same with Pfus_MW, Pbrem_MW, Pline_MW, dW_MW_dt and dn20_dt of the
+	// profiles of r (null: the 0-D model)
+	PlasmaState(DesignPoint p, double W_MJ, double n20_, double P_in_MW, double mdot_in, double B_in, double Time,
+			double dt, RadialTransport r) {
+		this.W_MJ = W_MJ;
+		this.n20_ = n20_;
+		this.Time = Time;
+		this.dt = dt;
+		this.P_in_MW = P_in_MW;
+		this.mdot_in = mdot_in;
+		this.B_in = B_in;
+
+		T10_ = T10(p, W_MJ, n20_);
+		T_c_mil = T10_ * 116.05;
+		T_log10_c_mil = Math.log10(T_c_mil);
+		Ip_MA = B_in * p.I_B;
+		if (r == null) {
+			F_alp = F_alp(T10_);
+			Pfus_MW_m3 = p.Pfus_fac * n20_ * n20_ * F_alp;
+			Pfus_MW = Pfus_MW_m3 * p.Vol;
+		} else {
+			Pfus_MW = r.Pfus_MW;
+			Pfus_MW_m3 = Pfus_MW / p.Vol;
+			// the 0-D factor that gives the same fusion power
+			F_alp = Pfus_MW_m3 / (p.Pfus_fac * n20_ * n20_);
+		}
+		Pfus_GW = Pfus_MW * .001;
+		Palp_MW = Pfus_MW * 3.5 / 17.6;
+		PNeut_MW = Pfus_MW - Palp_MW;
+		Pgain_MW = P_in_MW + Palp_MW;
+		double sqrtT = Math.sqrt(T10_);
+		Pbrem_MW = r == null ? p.Pbrem_fac * n20_ * n20_ * sqrtT : r.Pbrem_MW;
+		Pline_MW = r == null ? Pline(p, n20_, sqrtT) : r.Pline_MW;
+		// 0.1 to keep Ptrans_MW>0
+		Ptrans_MW = Math.max((Pgain_MW - Pbrem_MW - Pline_MW), (0.5 * Pgain_MW));
+		// both scalings in log space: B_in^1.05 (Ip_MA^0.9 B_in^0.15, Ip_MA^0.85 B_in^0.2)
+		double lnP = Math.log(Ptrans_MW), lnN = Math.log(n20_);
+		tau_89 = p.tau89_fac * Math.exp(1.05 * Math.log(B_in) - 0.5 * lnP + 0.1 * lnN);
+		tau_98 = tau_98(p, B_in, lnP, lnN);
+		Conf_t = p.H_fac / 2.0 * tau_98; // old was tau_89, new is tau_98
+		H98y2 = Conf_t / tau_98;
+		H89P = Conf_t / tau_89;
+		Plos_MW = W_MJ / Conf_t;
+		dW_MW_dt = r == null ? Pgain_MW - Plos_MW : r.dW_MW_dt;
+		n20_in_rat = mdot_in * p.n_in_fac;
+		n20_los_rat = n20_ / (1.0 * Conf_t); // jal2024 New Multiplier has NO impact
+		dn20_dt = r == null ? n20_in_rat - n20_los_rat : r.dn20_dt;
+		Mtot_Gr = n20_ * p.Mtot_fac;
+		n20_n20_gw = n20_ * p.n_gw_fac / B_in;
+		n20_n20_bet = n20_ * T10_ * p.n_bet_fac / (B_in * B_in);
+		Bet = p.Bet_fac * n20_ * T10_ / (B_in * B_in);
+		n_wall = PNeut_MW / p.Area;
+		P_e_in = P_in_MW * p.F_aux + B_in / DesignPoint.Bo * 100;
+		P_e_gross = PNeut_MW * p.F_plant;
+		P_e = PNeut_MW * p.F_plant - P_e_in;
+		if (P_in_MW <= 0) {
+			G = 0;
+		} else {
+			G = Pfus_MW / P_in_MW;
+		}
+	}
+
+	// dW_MW_dt, dn20_dt of the state at (W_MJ, n20_) with the slider actuators
+	// into f[0], f[1] without building it, and Pgain_MW, n20_in_rat into f[2],
+	// f[3] if f has room
+	static void rates(DesignPoint p, double W_MJ, double n20_, double[] f) {
+		double P_in_MW = p.Pw_in_MWo;
+		double T10_ = T10(p, W_MJ, n20_);
+		double Palp_MW = p.Pfus_fac * n20_ * n20_ * F_alp(T10_) * p.Vol * 3.5 / 17.6;
+		double Pgain_MW = P_in_MW + Palp_MW;
+		double sqrtT = Math.sqrt(T10_);
+		double Pbrem_MW = p.Pbrem_fac * n20_ * n20_ * sqrtT;
+		double Ptrans_MW = Math.max((Pgain_MW - Pbrem_MW - Pline(p, n20_, sqrtT)), (0.5 * Pgain_MW));
+		double Conf_t = p.H_fac / 2.0 * tau_98(p, p.B_ino, Math.log(Ptrans_MW), Math.log(n20_));
+		double n20_in_rat = p.mdot_in * p.n_in_fac;
+		f[0] = Pgain_MW - W_MJ / Conf_t;
+		f[1] = n20_in_rat - n20_ / (1.0 * Conf_t);
+		if (f.length > 3) {
+			f[2] = Pgain_MW;
+			f[3] = n20_in_rat;
+		}
+	}
+
+	// line radiation from the tables of the design at sqrt(T10_) = sqrtT
+	static double Pline(DesignPoint p, double n20_, double sqrtT) {
+		return p.radiation == null ? 0 : p.radiation.line(p.Lrad_fac, sqrtT) * n20_ * n20_ * p.Vol;
+	}
+
+	// temperature (T/10keV)
+	static double T10(DesignPoint p, double W_MJ, double n20_) {
+		return W_MJ * p.T10_fac / n20_;
+	}
+
+	// fusion power temperature factor
+	static double F_alp(double T10_) {
+		double T10c = DesignPoint.T10c;
+		if (T10_ < T10c) {
+			double x = T10_ / T10c;
+			return x * x * x;
+		} else if (T10_ < 2 * T10c) {
+			double x = T10_ / T10c;
+			return x * x;
+		} else if (T10_ < 3 * T10c) {
+			double x = T10_ / (2 * T10c);
+			return 4 * x * Math.sqrt(x);
+		} else {
+			return F_ALP_MAX;
+		}
+	}
+
+	// 4 * 1.5^1.5
+	private static final double F_ALP_MAX = 4 * 1.5 * Math.sqrt(1.5);
+
+	// IPB98(y,2) from B_in, ln(Ptrans_MW), ln(n20_)
+	static double tau_98(DesignPoint p, double B_in, double lnP, double lnN) {
+		if (B_in == p.B_ino) {
+			return p.tau98_Bfac * Math.exp(p.tau98_P * lnP + p.tau98_n * lnN);
+		}
+		return p.tau98_fac * Math.exp(1.05 * Math.log(B_in) + p.tau98_P * lnP + p.tau98_n * lnN);
+	}
+
+	// same state with another proposed step
+	PlasmaState withDt(double dt) {
+		return new PlasmaState(this, dt);
+	}
+
+	private PlasmaState(PlasmaState o, double dt) {
+		W_MJ = o.W_MJ;
+		n20_ = o.n20_;
+		Time = o.Time;
+		this.dt = dt;
+		P_in_MW = o.P_in_MW;
+		mdot_in = o.mdot_in;
+		B_in = o.B_in;
+		T10_ = o.T10_;
+		T_c_mil = o.T_c_mil;
+		T_log10_c_mil = o.T_log10_c_mil;
+		Ip_MA = o.Ip_MA;
+		F_alp = o.F_alp;
+		Pfus_MW_m3 = o.Pfus_MW_m3;
+		Pfus_MW = o.Pfus_MW;
+		Pfus_GW = o.Pfus_GW;
+		PNeut_MW = o.PNeut_MW;
+		Pgain_MW = o.Pgain_MW;
+		Palp_MW = o.Palp_MW;
+		Ptrans_MW = o.Ptrans_MW;
+		Pbrem_MW = o.Pbrem_MW;
+		Pline_MW = o.Pline_MW;
+		tau_89 = o.tau_89;
+		tau_98 = o.tau_98;
+		Conf_t = o.Conf_t;
+		H98y2 = o.H98y2;
+		H89P = o.H89P;
+		Plos_MW = o.Plos_MW;
+		dW_MW_dt = o.dW_MW_dt;
+		n20_in_rat = o.n20_in_rat;
+		n20_los_rat = o.n20_los_rat;
+		dn20_dt = o.dn20_dt;
+		Mtot_Gr = o.Mtot_Gr;
+		n20_n20_gw = o.n20_n20_gw;
+		n20_n20_bet = o.n20_n20_bet;
+		Bet = o.Bet;
+		n_wall = o.n_wall;
+		P_e_in = o.P_e_in;
+		P_e_gross = o.P_e_gross;
+		P_e = o.P_e;
+		G = o.G;
+	}
+
+	// normalized beta (%Tm/MA)
+	public double betaN(DesignPoint p) {
+		return (Bet * 100 * B_in * p.a) / Ip_MA;
+	}
+
+	// colorIndex for deeCanvas: ratio of P_e to 1000MW and ratio'ed from 0 to 20
+	public int colorIndex() {
+		int p_e_color_index = (int) (20.0 * P_e / 1000.0);
+		return Math.max(Math.min(20, p_e_color_index), 0); // min max
+	}
+}
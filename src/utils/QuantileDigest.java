@@ -0,0 +1,227 @@
+//=============================================================================
+// Title:        QuantileDigest.java
+// Description:  Streaming quantile estimate of a stream of doubles (a merging
+//               t-digest): values are buffered, then merged into a few hundred
+//               sorted centroids whose size shrinks towards both tails, so the
+//               median and the 1% / 99% quantiles stay accurate for any number
+//               of values in constant memory. Not thread safe: one digest per
+//               thread, combined with add(QuantileDigest).
+//=============================================================================
+
+import java.util.Arrays;
+
+public final class QuantileDigest {
+
+	// delta: about delta/2 centroids, relative quantile error ~ 1/delta
+	public static final double COMPRESSION = 200;
+
+	private final double compression;
+	private double[] mean, weight;
+	private int centroids;
+	private double merged;
+	private final double[] buffer;
+	private int buffered;
+	private double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY, sum;
+
+	public QuantileDigest() {
+		this(COMPRESSION);
+	}
+
+	public QuantileDigest(double compression) {
+		if (!(compression >= 10)) {
+			throw new IllegalArgumentException("compression= " + compression);
+		}
+		this.compression = compression;
+		int size = (int) Math.ceil(compression) + 8;
+		mean = new double[size];
+		weight = new double[size];
+		buffer = new double[5 * size];
+	}
+
+	// one value; NaN is ignored
+	public void add(double x) {
+		if (Double.isNaN(x)) {
+			return;
+		}
+		if (buffered == buffer.length) {
+			flush();
+		}
+		buffer[buffered++] = x;
+		min = Math.min(min, x);
+		max = Math.max(max, x);
+		sum += x;
+	}
+
+	// every value of other (which is left as it is)
+	public void add(QuantileDigest other) {
+		other.flush();
+		flush();
+		if (other.centroids == 0) {
+			return;
+		}
+		merge(other.mean, other.weight, other.centroids, other.merged);
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		sum += other.sum;
+	}
+
+	public long count() {
+		return (long) (merged + buffered);
+	}
+
+	public double min() {
+		return count() == 0 ? Double.NaN : min;
+	}
+
+	public double max() {
+		return count() == 0 ? Double.NaN : max;
+	}
+
+	public double mean() {
+		return sum / count();
+	}
+
+	// value below which a fraction q of the values lie (NaN if empty)
+	public double quantile(double q) {
+		flush();
+		if (centroids == 0) {
+			return Double.NaN;
+		}
+		if (q <= 0) {
+			return min;
+		}
+		if (q >= 1) {
+			return max;
+		}
+		double target = q * merged;
+		// centroid i covers its weight centred on mean[i]; min and max are the ends
+		double left = 0;
+		if (target < weight[0] / 2) {
+			return min + (mean[0] - min) * target / (weight[0] / 2);
+		}
+		for (int i = 0; i < centroids - 1; i++) {
+			double c0 = left + weight[i] / 2, c1 = left + weight[i] + weight[i + 1] / 2;
+			if (target < c1) {
+				return mean[i] + (mean[i + 1] - mean[i]) * (target - c0) / (c1 - c0);
+			}
+			left += weight[i];
+		}
+		int last = centroids - 1;
+		double c = merged - weight[last] / 2;
+		return mean[last] + (max - mean[last]) * (target - c) / (weight[last] / 2);
+	}
+
+	// fraction of the values below x (NaN if empty)
+	public double cdf(double x) {
+		flush();
+		if (centroids == 0) {
+			return Double.NaN;
+		}
+		if (x < min) {
+			return 0;
+		}
+		if (x >= max) {
+			return 1;
+		}
+		if (x < mean[0]) {
+			return mean[0] > min ? weight[0] / 2 * (x - min) / (mean[0] - min) / merged : 0;
+		}
+		double left = 0;
+		for (int i = 0; i < centroids - 1; i++) {
+			if (x < mean[i + 1]) {
+				double c0 = left + weight[i] / 2, c1 = left + weight[i] + weight[i + 1] / 2;
+				double t = mean[i + 1] > mean[i] ? (x - mean[i]) / (mean[i + 1] - mean[i]) : 0;
+				return (c0 + t * (c1 - c0)) / merged;
+			}
+			left += weight[i];
+		}
+		int last = centroids - 1;
+		double c = merged - weight[last] / 2;
+		return (c + weight[last] / 2 * (x - mean[last]) / (max - mean[last])) / merged;
+	}
+
+	// estimated number of values in each of bins equal bins from lo to hi
+	public double[] histogram(double lo, double hi, int bins) {
+		double[] h = new double[bins];
+		double n = count();
+		double below = cdf(lo);
+		for (int b = 0; b < bins; b++) {
+			double above = cdf(lo + (hi - lo) * (b + 1) / bins);
+			h[b] = (above - below) * n;
+			below = above;
+		}
+		return h;
+	}
+
+	// sort the buffer into the centroids
+	private void flush() {
+		if (buffered == 0) {
+			return;
+		}
+		Arrays.sort(buffer, 0, buffered);
+		double[] ones = new double[buffered];
+		Arrays.fill(ones, 1);
+		int n = buffered;
+		buffered = 0;
+		merge(buffer, ones, n, n);
+	}
+
+	// merge sorted (m, w) of total weight into the centroids: walk both in order
+	// and join neighbours while the k1 scale (delta/2pi asin(2q-1)) of the
+	// joint centroid spans at most 1
+	private void merge(double[] m, double[] w, int n, double total) {
+		double all = merged + total;
+		double[] om = new double[mean.length], ow = new double[mean.length];
+		int out = 0;
+		int i = 0, j = 0;
+		double cm = 0, cw = 0, done = 0, limit = 0;
+		while (i < centroids || j < n) {
+			double x, xw;
+			if (j >= n || (i < centroids && mean[i] <= m[j])) {
+				x = mean[i];
+				xw = weight[i++];
+			} else {
+				x = m[j];
+				xw = w[j++];
+			}
+			if (cw == 0) {
+				cm = x;
+				cw = xw;
+				limit = all * limit(done / all);
+			} else if (done + cw + xw <= limit) {
+				cw += xw;
+				cm += (x - cm) * xw / cw;
+			} else {
+				if (out == om.length) {
+					om = Arrays.copyOf(om, 2 * out);
+					ow = Arrays.copyOf(ow, 2 * out);
+				}
+				om[out] = cm;
+				ow[out++] = cw;
+				done += cw;
+				cm = x;
+				cw = xw;
+				limit = all * limit(done / all);
+			}
+		}
+		if (out == om.length) {
+			om = Arrays.copyOf(om, 2 * out);
+			ow = Arrays.copyOf(ow, 2 * out);
+		}
+		om[out] = cm;
+		ow[out++] = cw;
+		mean = om;
+		weight = ow;
+		centroids = out;
+		merged = all;
+	}
+
+	// quantile one unit of the k1 scale above q
+	private double limit(double q) {
+		double k = compression / (2 * Math.PI) * Math.asin(2 * q - 1) + 1;
+		if (k >= compression / 4) {
+			return 1;
+		}
+		return (Math.sin(2 * Math.PI * k / compression) + 1) / 2;
+	}
+}
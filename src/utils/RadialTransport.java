@@ -0,0 +1,252 @@
+//=============================================================================
+// Title:        RadialTransport.java
+// Description:  1-D engine: flux surface averaged density n20_(rho) and
+//               temperature T10_(rho) on a grid of cells in rho = r/a, instead
+//               of the 0-D balance with its fixed profile constants (Alp_t,
+//               Alp_n, f_an_at, T10c). Each step is implicit in the diffusion
+//               (two tridiagonal systems, solved by the Thomas algorithm into
+//               arrays allocated once) with the radiation linearized, so the
+//               run() step dt = 1 s is stable on any grid.
+//
+//               Local alpha heating, bremsstrahlung and line radiation are the
+//               0-D formulas at the local n20_, T10_; heating is deposited as
+//               1 - rho^2, fuel uniformly, n and n T vanish at the edge. The
+//               diffusivities chi = D = KAPPA / Conf_t (a^2/s) reuse the scaling
+//               of the 0-D model (H_fac/2 tau_98 at the transported power of
+//               the profiles): flat sources then keep the 0-D confinement
+//               time, and the profiles are what the sources make of it.
+//
+//               Holds the profiles, so one instance per run and thread.
+//=============================================================================
+
+public final class RadialTransport {
+
+	// grid cells unless -Djstar.radialPoints=...
+	public static final int POINTS = Integer.getInteger("jstar.radialPoints", 200);
+	// chi a^-2 Conf_t: a flat source on a flat profile loses W in Conf_t
+	static final double KAPPA = 1.0 / 8;
+	// floor of the temperature profile (T/10keV, 100 eV)
+	static final double T_MIN = 0.01;
+
+	private final int N;
+	private final double h;
+	// per cell: rho, volume fraction (sums to 1), heating profile (sum v dep = 1)
+	private final double[] rho, v, dep;
+	// conductance 2 rho_f / h of the faces below and above each cell per its
+	// volume fraction (the top face of the last cell is the edge, half a cell out)
+	private final double[] below, above;
+	// profiles
+	private final double[] n, T;
+	// per step: local alpha heating and radiation per n T (MW/m^3), tridiagonal
+	// coefficients and Thomas scratch
+	private final double[] palp, prad, a, b, c, d, w;
+
+	private double Time;
+	// figures of the profiles, read by PlasmaState
+	double W_MJ, n20_, Pfus_MW, Pbrem_MW, Pline_MW, dW_MW_dt, dn20_dt;
+
+	public RadialTransport() {
+		this(POINTS);
+	}
+
+	public RadialTransport(int points) {
+		if (points < 2) {
+			throw new IllegalArgumentException("radial points= " + points);
+		}
+		N = points;
+		h = 1.0 / N;
+		rho = new double[N];
+		v = new double[N];
+		dep = new double[N];
+		below = new double[N];
+		above = new double[N];
+		double sum = 0;
+		for (int i = 0; i < N; i++) {
+			rho[i] = (i + 0.5) * h;
+			v[i] = 2 * rho[i] * h;
+			dep[i] = 1 - rho[i] * rho[i];
+			sum += v[i] * dep[i];
+			below[i] = 2 * i / v[i];
+			above[i] = (i < N - 1 ? 2 * (i + 1) : 2 / (0.5 * h)) / v[i];
+		}
+		for (int i = 0; i < N; i++) {
+			dep[i] /= sum;
+		}
+		n = new double[N];
+		T = new double[N];
+		palp = new double[N];
+		prad = new double[N];
+		a = new double[N];
+		b = new double[N];
+		c = new double[N];
+		d = new double[N];
+		w = new double[N];
+	}
+
+	public int points() {
+		return N;
+	}
+
+	// cell centre (r/a), density (ne/10^20) and temperature (T/10keV) of cell i
+	public double rho(int i) {
+		return rho[i];
+	}
+
+	public double n20_(int i) {
+		return n[i];
+	}
+
+	public double T10_(int i) {
+		return T[i];
+	}
+
+	// profiles from the design initial conditions
+	public PlasmaState start(DesignPoint p) {
+		return start(p, p.W_MJ_o, p.n20_o, 0);
+	}
+
+	// the 0-D profiles (1 - rho^2)^Alp_n, ^Alp_t with volume averages W_MJ, n20_
+	public PlasmaState start(DesignPoint p, double W_MJ, double n20_, double Time) {
+		double sn = 0, snt = 0;
+		for (int i = 0; i < N; i++) {
+			double x = 1 - rho[i] * rho[i];
+			n[i] = Math.pow(x, DesignPoint.Alp_n);
+			T[i] = Math.pow(x, DesignPoint.Alp_t);
+			sn += v[i] * n[i];
+			snt += v[i] * n[i] * T[i];
+		}
+		double fn = n20_ / sn, fT = W_MJ * p.T10_fac * sn / snt / n20_;
+		for (int i = 0; i < N; i++) {
+			n[i] *= fn;
+			T[i] = Math.max(T[i] * fT, T_MIN);
+		}
+		this.Time = Time;
+		figures(p);
+		// no step yet: the rates of the 0-D balance
+		double[] f = new double[2];
+		PlasmaState.rates(p, this.W_MJ, this.n20_, f);
+		dW_MW_dt = f[0];
+		dn20_dt = f[1];
+		return state(p);
+	}
+
+	// one implicit step of dt = DesignPoint.dt with the slider actuators
+	public PlasmaState step(DesignPoint p) {
+		advance(p, DesignPoint.dt);
+		return state(p);
+	}
+
+	// PlasmaState of the profiles, W_MJ and n20_ their volume averages
+	public PlasmaState state(DesignPoint p) {
+		return new PlasmaState(p, W_MJ, n20_, p.Pw_in_MWo, p.mdot_in, p.B_ino, Time, DesignPoint.dt, this);
+	}
+
+	// steps from the design initial conditions until the volume averages
+	// settle as PlasmaEngine.isSteady(tol) or after maxSteps
+	public SteadyState solve(DesignPoint p, double tol, int maxSteps) {
+		start(p);
+		double P_in = p.Pw_in_MWo, n_in = p.mdot_in * p.n_in_fac;
+		int itt = 0;
+		boolean steady = false;
+		while (itt < maxSteps) {
+			advance(p, DesignPoint.dt);
+			itt++;
+			double Pgain = P_in + Pfus_MW * 3.5 / 17.6;
+			if (Math.abs(dW_MW_dt) <= tol * Math.abs(Pgain) && Math.abs(dn20_dt) <= tol * n_in) {
+				steady = true;
+				break;
+			}
+		}
+		return new SteadyState(p, state(p), itt, steady);
+	}
+
+	// backward Euler of density, then of n T on the new density
+	void advance(DesignPoint p, double dt) {
+		double W0 = W_MJ, n0 = n20_;
+		double Vol = p.Vol;
+		double cW = 1 / (p.T10_fac * Vol); // MJ/m^3 per n20_ T10_
+		// scaling confinement time at the powers of the profiles (as PlasmaState)
+		double Palp = 0;
+		for (int i = 0; i < N; i++) {
+			Palp += v[i] * palp[i];
+		}
+		Palp *= Vol;
+		double Pgain = p.Pw_in_MWo + Palp;
+		double Ptrans = Math.max(Pgain - Pbrem_MW - Pline_MW, 0.5 * Pgain);
+		double Conf_t = p.H_fac / 2.0 * PlasmaState.tau_98(p, p.B_ino, Math.log(Ptrans), Math.log(n20_));
+		double k = dt * KAPPA / Conf_t;
+		// density, n = 0 at the edge:
+		// (n' - n) v = dt (D g (n'_{i+1} - n'_i) - D g (n'_i - n'_{i-1}) + s v)
+		double s = dt * p.mdot_in * p.n_in_fac;
+		for (int i = 0; i < N; i++) {
+			a[i] = -k * below[i];
+			c[i] = -k * above[i];
+			b[i] = 1 + k * (below[i] + above[i]);
+			d[i] = n[i] + s;
+		}
+		c[N - 1] = 0;
+		// n T of the old profiles into T, n takes the new density
+		for (int i = 0; i < N; i++) {
+			T[i] *= n[i];
+		}
+		thomas(a, b, c, d, w, n, N);
+		// energy in p = n T, diffusing as n (flat sources keep Conf_t whatever
+		// the density profile), radiation linear in p': the same matrix plus
+		// dt prad on the diagonal, p = 0 at the edge
+		double q = dt * p.Pw_in_MWo / Vol / cW;
+		for (int i = 0; i < N; i++) {
+			b[i] += dt * prad[i] / cW;
+			d[i] = T[i] + q * dep[i] + dt * palp[i] / cW;
+		}
+		thomas(a, b, c, d, w, T, N);
+		for (int i = 0; i < N; i++) {
+			T[i] = Math.max(T[i] / n[i], T_MIN);
+		}
+		Time += dt;
+		figures(p);
+		dW_MW_dt = (W_MJ - W0) / dt;
+		dn20_dt = (n20_ - n0) / dt;
+	}
+
+	// volume averages, powers of the profiles, and the local sources of the
+	// next step, on design p (again after a design change, before state(p))
+	void figures(DesignPoint p) {
+		double Vol = p.Vol;
+		double fus = p.Pfus_fac / DesignPoint.f_an_at, brem = p.Pbrem_fac / Vol;
+		double sn = 0, snt = 0, sfus = 0, sbrem = 0, sline = 0;
+		for (int i = 0; i < N; i++) {
+			double nn = n[i] * n[i], sqrtT = Math.sqrt(T[i]);
+			// the 0-D reactivity fit is in T10_ / T10c
+			double pf = fus * nn * PlasmaState.F_alp(DesignPoint.T10c * T[i]);
+			double pb = brem * nn * sqrtT;
+			double pl = p.radiation == null ? 0 : p.radiation.line(p.Lrad_fac, sqrtT) * nn;
+			palp[i] = pf * 3.5 / 17.6;
+			prad[i] = (pb + pl) / (n[i] * T[i]);
+			sn += v[i] * n[i];
+			snt += v[i] * n[i] * T[i];
+			sfus += v[i] * pf;
+			sbrem += v[i] * pb;
+			sline += v[i] * pl;
+		}
+		n20_ = sn;
+		W_MJ = snt / p.T10_fac;
+		Pfus_MW = sfus * Vol;
+		Pbrem_MW = sbrem * Vol;
+		Pline_MW = sline * Vol;
+	}
+
+	// Thomas algorithm: x of the tridiagonal a x_{i-1} + b x_i + c x_{i+1} = d,
+	// with w as scratch (diagonally dominant systems only, no pivoting)
+	static void thomas(double[] a, double[] b, double[] c, double[] d, double[] w, double[] x, int n) {
+		double r = 1 / b[0];
+		x[0] = d[0] * r;
+		for (int i = 1; i < n; i++) {
+			w[i] = c[i - 1] * r;
+			r = 1 / (b[i] - a[i] * w[i]);
+			x[i] = (d[i] - a[i] * x[i - 1]) * r;
+		}
+		for (int i = n - 2; i >= 0; i--) {
+			x[i] -= w[i + 1] * x[i + 1];
+		}
+	}
+}
@@ -0,0 +1,225 @@
+//=============================================================================
+// Title:        ResultColumn.java
+// Description:  Quantities a ResultStore keeps per solved design point: the
+//               sweep index, the design inputs and everything JStarApp shows.
+//=============================================================================
+
+public enum ResultColumn {
+
+	index {
+		double value(long i, SteadyState s) {
+			return i;
+		}
+	},
+	// inputs
+	sv1 {
+		double value(long i, SteadyState s) {
+			return s.design.sv1;
+		}
+	},
+	sv2 {
+		double value(long i, SteadyState s) {
+			return s.design.sv2;
+		}
+	},
+	sv3 {
+		double value(long i, SteadyState s) {
+			return s.design.sv3;
+		}
+	},
+	sv4 {
+		double value(long i, SteadyState s) {
+			return s.design.sv4;
+		}
+	},
+	boS {
+		double value(long i, SteadyState s) {
+			return s.design.boS;
+		}
+	},
+	pwS {
+		double value(long i, SteadyState s) {
+			return s.design.pwS;
+		}
+	},
+	mdS {
+		double value(long i, SteadyState s) {
+			return s.design.mdS;
+		}
+	},
+	q_edg {
+		double value(long i, SteadyState s) {
+			return s.design.q_edg;
+		}
+	},
+	Bomax {
+		double value(long i, SteadyState s) {
+			return s.design.Bomax;
+		}
+	},
+	kMax {
+		double value(long i, SteadyState s) {
+			return s.design.kMax;
+		}
+	},
+	h_mult {
+		double value(long i, SteadyState s) {
+			return s.design.h_mult;
+		}
+	},
+	Troy_c {
+		double value(long i, SteadyState s) {
+			return s.design.Troy_c;
+		}
+	},
+	// design constants
+	Vol {
+		double value(long i, SteadyState s) {
+			return s.design.Vol;
+		}
+	},
+	fdiv {
+		double value(long i, SteadyState s) {
+			return s.design.fdiv;
+		}
+	},
+	Zeff {
+		double value(long i, SteadyState s) {
+			return s.design.Zeff;
+		}
+	},
+	nDT_ne {
+		double value(long i, SteadyState s) {
+			return s.design.nDT_ne;
+		}
+	},
+	// operating point
+	Time {
+		double value(long i, SteadyState s) {
+			return s.state.Time;
+		}
+	},
+	W_MJ {
+		double value(long i, SteadyState s) {
+			return s.state.W_MJ;
+		}
+	},
+	n20_ {
+		double value(long i, SteadyState s) {
+			return s.state.n20_;
+		}
+	},
+	T10_ {
+		double value(long i, SteadyState s) {
+			return s.state.T10_;
+		}
+	},
+	B_in {
+		double value(long i, SteadyState s) {
+			return s.state.B_in;
+		}
+	},
+	Ip_MA {
+		double value(long i, SteadyState s) {
+			return s.state.Ip_MA;
+		}
+	},
+	P_in_MW {
+		double value(long i, SteadyState s) {
+			return s.state.P_in_MW;
+		}
+	},
+	mdot_in {
+		double value(long i, SteadyState s) {
+			return s.state.mdot_in;
+		}
+	},
+	Pfus_MW {
+		double value(long i, SteadyState s) {
+			return s.state.Pfus_MW;
+		}
+	},
+	Pbrem_MW {
+		double value(long i, SteadyState s) {
+			return s.state.Pbrem_MW;
+		}
+	},
+	Pline_MW {
+		double value(long i, SteadyState s) {
+			return s.state.Pline_MW;
+		}
+	},
+	Ptrans_MW {
+		double value(long i, SteadyState s) {
+			return s.state.Ptrans_MW;
+		}
+	},
+	P_e_in {
+		double value(long i, SteadyState s) {
+			return s.state.P_e_in;
+		}
+	},
+	P_e {
+		double value(long i, SteadyState s) {
+			return s.state.P_e;
+		}
+	},
+	Q {
+		double value(long i, SteadyState s) {
+			return s.state.G;
+		}
+	},
+	n_wall {
+		double value(long i, SteadyState s) {
+			return s.state.n_wall;
+		}
+	},
+	Bet {
+		double value(long i, SteadyState s) {
+			return s.state.Bet;
+		}
+	},
+	betaN {
+		double value(long i, SteadyState s) {
+			return s.state.betaN(s.design);
+		}
+	},
+	Conf_t {
+		double value(long i, SteadyState s) {
+			return s.state.Conf_t;
+		}
+	},
+	H98y2 {
+		double value(long i, SteadyState s) {
+			return s.state.H98y2;
+		}
+	},
+	H89P {
+		double value(long i, SteadyState s) {
+			return s.state.H89P;
+		}
+	},
+	n20_n20_gw {
+		double value(long i, SteadyState s) {
+			return s.state.n20_n20_gw;
+		}
+	},
+	n20_n20_bet {
+		double value(long i, SteadyState s) {
+			return s.state.n20_n20_bet;
+		}
+	},
+	// solver
+	itt {
+		double value(long i, SteadyState s) {
+			return s.itt;
+		}
+	},
+	converged {
+		double value(long i, SteadyState s) {
+			return s.converged ? 1 : 0;
+		}
+	};
+
+	abstract double value(long index, SteadyState s);
+}
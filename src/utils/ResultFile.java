@@ -0,0 +1,255 @@
+//=============================================================================
+// Title:        ResultFile.java
+// Description:  Columnar binary file for ResultStore contents. A small self
+//               describing header (magic, version, row count, column names)
+//               is followed by one contiguous little-endian double block per
+//               column. Files are written and read through memory mapped
+//               FileChannel regions, so a reload costs no parsing and queries
+//               touch only the columns they use.
+//=============================================================================
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+public final class ResultFile implements AutoCloseable {
+
+	static final byte[] MAGIC = "JSTARRES".getBytes(StandardCharsets.US_ASCII);
+	static final int VERSION = 1;
+	// rows per mapped region: 2^27 doubles, 1 GB
+	static final int SEGMENT_BITS = 27;
+	static final int SEGMENT = 1 << SEGMENT_BITS;
+
+	// receives a read-only, zero-copy view of rows row0 ... of a column
+	public interface BufferVisitor {
+		void visit(DoubleBuffer rows, long row0);
+	}
+
+	private final FileChannel channel;
+	private final String[] names;
+	private final long rows;
+	// rows per mapped region, 1 << bits
+	private final int bits, segment;
+	// column data: segments[column][s] covers rows s * segment ...
+	private final DoubleBuffer[][] segments;
+
+	private ResultFile(FileChannel channel, String[] names, long rows, long dataOffset, int bits) throws IOException {
+		this.channel = channel;
+		this.names = names;
+		this.rows = rows;
+		this.bits = bits;
+		this.segment = 1 << bits;
+		int n = (int) ((rows + segment - 1) >>> bits);
+		segments = new DoubleBuffer[names.length][n];
+		for (int k = 0; k < names.length; k++) {
+			long base = dataOffset + 8L * rows * k;
+			for (int s = 0; s < n; s++) {
+				long row0 = (long) s << bits;
+				long len = Math.min(segment, rows - row0);
+				segments[k][s] = channel.map(FileChannel.MapMode.READ_ONLY, base + 8 * row0, 8 * len)
+						.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+			}
+		}
+	}
+
+	// write every stored column of the store to file
+	public static void write(ResultStore store, Path file) throws IOException {
+		write(store, file, SEGMENT_BITS);
+	}
+
+	// write through mapped regions of 1 << bits rows (small ones in tests)
+	static void write(ResultStore store, Path file, int bits) throws IOException {
+		ResultColumn[] columns = store.columns();
+		long rows = store.size();
+		byte[][] names = new byte[columns.length][];
+		long header = 32;
+		for (int k = 0; k < columns.length; k++) {
+			names[k] = columns[k].name().getBytes(StandardCharsets.UTF_8);
+			header += 2 + names[k].length;
+		}
+		long dataOffset = (header + 7) & ~7L;
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer head = ByteBuffer.allocate((int) dataOffset).order(ByteOrder.LITTLE_ENDIAN);
+			head.put(MAGIC).putInt(VERSION).putInt(columns.length).putLong(rows).putLong(dataOffset);
+			for (byte[] name : names) {
+				head.putShort((short) name.length).put(name);
+			}
+			head.clear();
+			for (long pos = 0; head.hasRemaining();) {
+				pos += ch.write(head, pos);
+			}
+			for (int k = 0; k < columns.length; k++) {
+				ColumnWriter w = new ColumnWriter(ch, dataOffset + 8L * rows * k, rows, 1 << bits);
+				store.scan(columns[k], w);
+				w.force();
+			}
+			ch.force(false);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	// writes a column through mapped regions of segment rows, each forced to
+	// the file before the next is mapped (FileChannel.force() need not write
+	// mapped pages)
+	private static final class ColumnWriter implements ResultStore.ChunkVisitor {
+		private final FileChannel ch;
+		private final long base, rows;
+		private final int segment;
+		private MappedByteBuffer map;
+		private long mapRow0;
+
+		ColumnWriter(FileChannel ch, long base, long rows, int segment) {
+			this.ch = ch;
+			this.base = base;
+			this.rows = rows;
+			this.segment = segment;
+		}
+
+		@Override
+		public void visit(double[] chunk, int from, int to, long row0) {
+			try {
+				for (int i = from; i < to; i++) {
+					long row = row0 + i;
+					if (map == null || row - mapRow0 >= segment) {
+						force();
+						mapRow0 = row;
+						long len = Math.min(segment, rows - row);
+						map = ch.map(FileChannel.MapMode.READ_WRITE, base + 8 * row, 8 * len);
+						map.order(ByteOrder.LITTLE_ENDIAN);
+					}
+					map.putDouble((int) (8 * (row - mapRow0)), chunk[i]);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		void force() {
+			if (map != null) {
+				map.force();
+			}
+		}
+	}
+
+	// map a result file for querying; close() releases the channel
+	public static ResultFile open(Path file) throws IOException {
+		return open(file, SEGMENT_BITS);
+	}
+
+	// map in regions of 1 << bits rows
+	static ResultFile open(Path file, int bits) throws IOException {
+		FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			ByteBuffer head = ch.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(ch.size(), 32))
+					.order(ByteOrder.LITTLE_ENDIAN);
+			byte[] magic = new byte[MAGIC.length];
+			if (head.remaining() == 32) {
+				head.get(magic);
+			}
+			if (!Arrays.equals(magic, MAGIC)) {
+				throw new IOException(file + ": not a result file");
+			}
+			int version = head.getInt();
+			if (version != VERSION) {
+				throw new IOException(file + ": unsupported version " + version);
+			}
+			int columns = head.getInt();
+			long rows = head.getLong();
+			long dataOffset = head.getLong();
+			if (columns < 0 || rows < 0 || dataOffset + 8 * rows * columns > ch.size()) {
+				throw new IOException(file + ": truncated");
+			}
+			ByteBuffer list = ch.map(FileChannel.MapMode.READ_ONLY, 32, dataOffset - 32)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			String[] names = new String[columns];
+			for (int k = 0; k < columns; k++) {
+				byte[] name = new byte[list.getShort()];
+				list.get(name);
+				names[k] = new String(name, StandardCharsets.UTF_8);
+			}
+			return new ResultFile(ch, names, rows, dataOffset, bits);
+		} catch (IOException | RuntimeException e) {
+			ch.close();
+			throw e;
+		}
+	}
+
+	// load a result file back into an in-memory store; columns not in ResultColumn are dropped
+	public static ResultStore read(Path file) throws IOException {
+		try (ResultFile f = open(file)) {
+			return f.toStore();
+		}
+	}
+
+	public String[] names() {
+		return names.clone();
+	}
+
+	public long size() {
+		return rows;
+	}
+
+	public int column(String name) {
+		for (int k = 0; k < names.length; k++) {
+			if (names[k].equals(name)) {
+				return k;
+			}
+		}
+		return -1;
+	}
+
+	public int column(ResultColumn column) {
+		return column(column.name());
+	}
+
+	public double get(int column, long row) {
+		return segments[column][(int) (row >>> bits)].get((int) row & (segment - 1));
+	}
+
+	// hand every mapped region of a column to the visitor, without copying
+	public void scan(int column, BufferVisitor visitor) {
+		DoubleBuffer[] segs = segments[column];
+		for (int s = 0; s < segs.length; s++) {
+			visitor.visit(segs[s].asReadOnlyBuffer(), (long) s << bits);
+		}
+	}
+
+	public ResultStore toStore() {
+		EnumSet<ResultColumn> known = EnumSet.noneOf(ResultColumn.class);
+		for (ResultColumn c : ResultColumn.values()) {
+			if (column(c) >= 0) {
+				known.add(c);
+			}
+		}
+		ResultStore store = new ResultStore(known);
+		ResultColumn[] columns = store.columns();
+		int[] at = new int[columns.length];
+		for (int k = 0; k < at.length; k++) {
+			at[k] = column(columns[k]);
+		}
+		double[] row = new double[at.length];
+		for (long r = 0; r < rows; r++) {
+			for (int k = 0; k < at.length; k++) {
+				row[k] = get(at[k], r);
+			}
+			store.append(row);
+		}
+		return store;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,140 @@
+//=============================================================================
+// Title:        ResultStore.java
+// Description:  Append-only, column oriented store of solved design points:
+//               one double[] chunk per column per CHUNK rows (struct of arrays),
+//               no boxing and no per point objects. Any number of threads may
+//               append at once (e.g. as a DesignSweep.Sink); scans hand out the
+//               chunk arrays themselves and are meant for after the writers are
+//               done (e.g. after DesignSweep.run returns).
+//=============================================================================
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class ResultStore implements DesignSweep.Sink {
+
+	// rows per chunk: 2^16 rows, 512 kB per column chunk
+	static final int SHIFT = 16;
+	public static final int CHUNK = 1 << SHIFT;
+	static final int MASK = CHUNK - 1;
+
+	// receives a column chunk: rows [from, to) of the chunk hold store rows row0 + from ...
+	public interface ChunkVisitor {
+		void visit(double[] chunk, int from, int to, long row0);
+	}
+
+	private final ResultColumn[] columns;
+	// slot of each ResultColumn in a chunk, -1 if not stored
+	private final int[] slot = new int[ResultColumn.values().length];
+	private final AtomicLong rows = new AtomicLong();
+	// chunks.get(c)[slot] holds rows c * CHUNK ...; the directory doubles when
+	// it grows, a chunk is allocated when its first row is appended
+	private volatile AtomicReferenceArray<double[][]> chunks = new AtomicReferenceArray<double[][]>(0);
+
+	public ResultStore() {
+		this(EnumSet.allOf(ResultColumn.class));
+	}
+
+	public ResultStore(Set<ResultColumn> columns) {
+		this.columns = columns.toArray(new ResultColumn[0]);
+		Arrays.fill(slot, -1);
+		for (int k = 0; k < this.columns.length; k++) {
+			slot[this.columns[k].ordinal()] = k;
+		}
+	}
+
+	public ResultColumn[] columns() {
+		return columns.clone();
+	}
+
+	public boolean has(ResultColumn column) {
+		return slot[column.ordinal()] >= 0;
+	}
+
+	// rows appended so far
+	public long size() {
+		return rows.get();
+	}
+
+	@Override
+	public void accept(long index, SteadyState result) {
+		append(index, result);
+	}
+
+	// store one solved point, returns its row
+	public long append(long index, SteadyState s) {
+		long row = rows.getAndIncrement();
+		double[][] chunk = chunk((int) (row >>> SHIFT));
+		int r = (int) (row & MASK);
+		for (int k = 0; k < columns.length; k++) {
+			chunk[k][r] = columns[k].value(index, s);
+		}
+		return row;
+	}
+
+	// store one row of raw column values (in columns() order), returns its row
+	public long append(double... values) {
+		if (values.length != columns.length) {
+			throw new IllegalArgumentException(values.length + " values for " + columns.length + " columns");
+		}
+		long row = rows.getAndIncrement();
+		double[][] chunk = chunk((int) (row >>> SHIFT));
+		int r = (int) (row & MASK);
+		for (int k = 0; k < columns.length; k++) {
+			chunk[k][r] = values[k];
+		}
+		return row;
+	}
+
+	public double get(ResultColumn column, long row) {
+		return chunks.get((int) (row >>> SHIFT))[slot(column)][(int) (row & MASK)];
+	}
+
+	// hand every chunk of a column to the visitor, without copying
+	public void scan(ResultColumn column, ChunkVisitor visitor) {
+		int k = slot(column);
+		AtomicReferenceArray<double[][]> all = chunks;
+		long n = rows.get();
+		for (int c = 0; (long) c * CHUNK < n; c++) {
+			long row0 = (long) c * CHUNK;
+			visitor.visit(all.get(c)[k], 0, (int) Math.min(CHUNK, n - row0), row0);
+		}
+	}
+
+	private int slot(ResultColumn column) {
+		int k = slot[column.ordinal()];
+		if (k < 0) {
+			throw new IllegalArgumentException("column not stored: " + column);
+		}
+		return k;
+	}
+
+	private double[][] chunk(int c) {
+		AtomicReferenceArray<double[][]> all = chunks;
+		double[][] chunk = c < all.length() ? all.get(c) : null;
+		return chunk != null ? chunk : grow(c);
+	}
+
+	// double the directory if c is beyond it, allocate chunk c if still missing
+	private synchronized double[][] grow(int c) {
+		AtomicReferenceArray<double[][]> all = chunks;
+		if (c >= all.length()) {
+			AtomicReferenceArray<double[][]> more = new AtomicReferenceArray<double[][]>(
+					Math.max(c + 1, 2 * all.length()));
+			for (int i = 0; i < all.length(); i++) {
+				more.set(i, all.get(i));
+			}
+			chunks = more;
+			all = more;
+		}
+		double[][] chunk = all.get(c);
+		if (chunk == null) {
+			chunk = new double[columns.length][CHUNK];
+			all.set(c, chunk);
+		}
+		return chunk;
+	}
+}
@@ -0,0 +1,63 @@
+//=============================================================================
+// Title:        Rosenbrock2.java
+// Description:  Two stage, L-stable Rosenbrock method ROS2 (Verwer et al.) for
+//               stiff ignition transients, with the linearly implicit Euler
+//               solution as embedded 1st order error estimate. The 2x2 Jacobian
+//               of (dW_MW_dt, dn20_dt) is taken by finite differences.
+//=============================================================================
+
+public class Rosenbrock2 extends AdaptiveIntegrator {
+
+	static final double gamma = 1 + 1 / Math.sqrt(2);
+	static final double SQRT_EPS = Math.sqrt(Math.ulp(1.0));
+
+	public Rosenbrock2() {
+		this(RTOL);
+	}
+
+	public Rosenbrock2(double rtol) {
+		super(rtol, 1);
+	}
+
+	@Override
+	protected PlasmaState attempt(PlasmaEngine engine, DesignPoint p, PlasmaState s, double h, double[] err) {
+		double W = s.W_MJ, n = s.n20_, t = s.Time;
+		double f0W = s.dW_MW_dt, f0n = s.dn20_dt;
+		double[] f = new double[2];
+
+		// Jacobian J = d(fW, fn)/d(W, n)
+		double dW = SQRT_EPS * Math.max(W, p.W_MJ_o);
+		double dn = SQRT_EPS * Math.max(n, p.n20_o);
+		if (!engine.derivatives(p, t, W + dW, n, f))
+			return null;
+		double jWW = (f[0] - f0W) / dW, jnW = (f[1] - f0n) / dW;
+		if (!engine.derivatives(p, t, W, n + dn, f))
+			return null;
+		double jWn = (f[0] - f0W) / dn, jnn = (f[1] - f0n) / dn;
+
+		// M = I - gamma h J, solved by Cramer's rule
+		double gh = gamma * h;
+		double m11 = 1 - gh * jWW, m12 = -gh * jWn, m21 = -gh * jnW, m22 = 1 - gh * jnn;
+		double det = m11 * m22 - m12 * m21;
+		if (det == 0 || !Double.isFinite(det))
+			return null;
+
+		double k1W = (m22 * f0W - m12 * f0n) / det;
+		double k1n = (m11 * f0n - m21 * f0W) / det;
+		double W2 = W + h * k1W, n2 = n + h * k1n;
+		if (!engine.derivatives(p, t + h, W2, n2, f))
+			return null;
+		double rW = f[0] - 2 * k1W, rn = f[1] - 2 * k1n;
+		double k2W = (m22 * rW - m12 * rn) / det;
+		double k2n = (m11 * rn - m21 * rW) / det;
+
+		double W1 = W + h * (1.5 * k1W + 0.5 * k2W);
+		double n1 = n + h * (1.5 * k1n + 0.5 * k2n);
+		if (!valid(W1, n1))
+			return null;
+		// ROS2 minus linearly implicit Euler (W + h k1)
+		err[0] = 0.5 * h * (k1W + k2W);
+		err[1] = 0.5 * h * (k1n + k2n);
+		return engine.evaluate(p, W1, n1, t + h, h);
+	}
+}
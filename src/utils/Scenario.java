@@ -0,0 +1,310 @@
+//=============================================================================
+// Title:        Scenario.java
+// Description:  Time dependent pulse (ramp-up, flat-top, ramp-down, impurity
+//               puffs) for the energy & particle balance. Each channel is a
+//               piecewise linear Waveform: the actuators P_in_MW, mdot_in and
+//               B_in override the design values, any SweepParameter (sliders,
+//               impurity fractions) rebuilds the design when its value moves.
+//               run() integrates as the run() time loop does, forward Euler
+//               with its reset on collapse, as fast as it can, and hands every
+//               every-th state to a Sink while it goes.
+//
+//               Scenario file: a header "time, channel, ..." then one row per
+//               breakpoint time (s); an empty cell is no breakpoint for that
+//               channel, # starts a comment.
+//=============================================================================
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public final class Scenario {
+
+	// actuators the design only sets through its sliders
+	public enum Actuator {
+		P_in_MW, mdot_in, B_in
+	}
+
+	// piecewise linear in time, held before the first and after the last breakpoint
+	public static final class Waveform {
+		private final double[] t, v;
+
+		public Waveform(double[] t, double[] v) {
+			if (t.length == 0 || t.length != v.length) {
+				throw new IllegalArgumentException("waveform of " + t.length + " times and " + v.length + " values");
+			}
+			for (int i = 0; i < t.length; i++) {
+				if (!Double.isFinite(t[i]) || !Double.isFinite(v[i]) || (i > 0 && !(t[i] > t[i - 1]))) {
+					throw new IllegalArgumentException("waveform breakpoint " + i + ": " + t[i] + ", " + v[i]);
+				}
+			}
+			this.t = t.clone();
+			this.v = v.clone();
+		}
+
+		// constant
+		public Waveform(double v) {
+			this(new double[] { 0 }, new double[] { v });
+		}
+
+		public double at(double time) {
+			if (time <= t[0]) {
+				return v[0];
+			}
+			int last = t.length - 1;
+			if (time >= t[last]) {
+				return v[last];
+			}
+			int i = Arrays.binarySearch(t, time);
+			if (i >= 0) {
+				return v[i];
+			}
+			int hi = -i - 1, lo = hi - 1;
+			return v[lo] + (v[hi] - v[lo]) * (time - t[lo]) / (t[hi] - t[lo]);
+		}
+
+		public double end() {
+			return t[t.length - 1];
+		}
+
+		double min() {
+			double m = v[0];
+			for (double x : v) {
+				m = Math.min(m, x);
+			}
+			return m;
+		}
+	}
+
+	// receives the states of a run in time order; may stop it by throwing
+	public interface Sink {
+		void accept(SteadyState s) throws IOException;
+	}
+
+	// default columns of a time series (main(), POST /scenario)
+	public static final Set<ResultColumn> DEFAULT_COLUMNS = EnumSet.of(ResultColumn.Time, ResultColumn.P_in_MW,
+			ResultColumn.mdot_in, ResultColumn.B_in, ResultColumn.W_MJ, ResultColumn.n20_, ResultColumn.T10_,
+			ResultColumn.Pfus_MW, ResultColumn.Pbrem_MW, ResultColumn.Pline_MW, ResultColumn.P_e, ResultColumn.Q,
+			ResultColumn.n20_n20_gw, ResultColumn.n20_n20_bet);
+
+	private static final PlasmaEngine ENGINE = new PlasmaEngine();
+
+	private final Map<Actuator, Waveform> actuators = new EnumMap<Actuator, Waveform>(Actuator.class);
+	private final Map<SweepParameter, Waveform> inputs = new EnumMap<SweepParameter, Waveform>(
+			SweepParameter.class);
+
+	public Scenario set(Actuator a, Waveform w) {
+		if (a == Actuator.B_in ? !(w.min() > 0) : !(w.min() >= 0)) {
+			throw new IllegalArgumentException(a + " down to " + w.min());
+		}
+		actuators.put(a, w);
+		return this;
+	}
+
+	public Scenario set(SweepParameter p, Waveform w) {
+		inputs.put(p, w);
+		return this;
+	}
+
+	// an Actuator or SweepParameter by name
+	public Scenario set(String channel, Waveform w) {
+		for (Actuator a : Actuator.values()) {
+			if (a.name().equals(channel)) {
+				return set(a, w);
+			}
+		}
+		for (SweepParameter p : SweepParameter.values()) {
+			if (p.name().equals(channel)) {
+				return set(p, w);
+			}
+		}
+		throw new IllegalArgumentException("unknown channel: " + channel);
+	}
+
+	// time of the last breakpoint (s)
+	public double duration() {
+		double d = 0;
+		for (Waveform w : actuators.values()) {
+			d = Math.max(d, w.end());
+		}
+		for (Waveform w : inputs.values()) {
+			d = Math.max(d, w.end());
+		}
+		return d;
+	}
+
+	public static Scenario read(Path file) throws IOException {
+		try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			return parse(in);
+		}
+	}
+
+	public static Scenario parse(Reader in) throws IOException {
+		BufferedReader r = new BufferedReader(in);
+		String[] header = null;
+		List<List<double[]>> points = new ArrayList<List<double[]>>();
+		int number = 0;
+		for (String line; (line = r.readLine()) != null;) {
+			number++;
+			int hash = line.indexOf('#');
+			if (hash >= 0) {
+				line = line.substring(0, hash);
+			}
+			if (line.trim().isEmpty()) {
+				continue;
+			}
+			String[] cells = line.split(",", -1);
+			if (header == null) {
+				header = cells;
+				if (!header[0].trim().equals("time")) {
+					throw new IllegalArgumentException("line " + number + ": header starts with time, not " + header[0]);
+				}
+				for (int c = 1; c < header.length; c++) {
+					header[c] = header[c].trim();
+					points.add(new ArrayList<double[]>());
+				}
+				continue;
+			}
+			if (cells.length > header.length) {
+				throw new IllegalArgumentException("line " + number + ": " + cells.length + " cells, header has "
+						+ header.length);
+			}
+			double time = number(cells[0], number);
+			for (int c = 1; c < cells.length; c++) {
+				if (!cells[c].trim().isEmpty()) {
+					points.get(c - 1).add(new double[] { time, number(cells[c], number) });
+				}
+			}
+		}
+		if (header == null) {
+			throw new IllegalArgumentException("empty scenario");
+		}
+		Scenario s = new Scenario();
+		for (int c = 1; c < header.length; c++) {
+			List<double[]> p = points.get(c - 1);
+			if (p.isEmpty()) {
+				continue;
+			}
+			double[] t = new double[p.size()], v = new double[p.size()];
+			for (int i = 0; i < t.length; i++) {
+				t[i] = p.get(i)[0];
+				v[i] = p.get(i)[1];
+			}
+			s.set(header[c], new Waveform(t, v));
+		}
+		return s;
+	}
+
+	private static double number(String cell, int line) {
+		try {
+			double d = Double.parseDouble(cell.trim());
+			if (Double.isFinite(d)) {
+				return d;
+			}
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new IllegalArgumentException("line " + line + ": not a number: " + cell.trim());
+	}
+
+	public PlasmaState run(DesignPoint base, Sink sink) throws IOException {
+		return run(base, duration(), DesignPoint.dt, 1, sink);
+	}
+
+	// integrate from the initial conditions of the design at time 0 to until
+	// with step dt, handing states 0, every, 2 every, ... and the last to sink
+	public PlasmaState run(DesignPoint base, double until, double dt, int every, Sink sink) throws IOException {
+		if (!(dt > 0) || !(until >= 0) || every < 1) {
+			throw new IllegalArgumentException("until= " + until + " dt= " + dt + " every= " + every);
+		}
+		long steps = Math.round(until / dt);
+		DesignPoint.Builder b = base.toBuilder();
+		double[] value = new double[inputs.size()];
+		Arrays.fill(value, Double.NaN);
+		DesignPoint p = design(b, 0, value, base);
+		PlasmaState s = state(p, p.W_MJ_o, p.n20_o, 0, dt);
+		for (long k = 0;; k++) {
+			if (k % every == 0 || k == steps) {
+				sink.accept(new SteadyState(p, s, (int) Math.min(k, Integer.MAX_VALUE), ENGINE.isSteady(s,
+						PlasmaEngine.TOL)));
+			}
+			if (k == steps) {
+				return s;
+			}
+			// EulerIntegrator.step on the actuators of time k dt
+			double n_new = s.n20_ + s.dn20_dt * dt;
+			double n20_ = (n_new <= 0.001 * p.n20_o) ? p.n20_o : n_new;
+			double W_new = s.W_MJ + s.dW_MW_dt * dt;
+			double W_MJ = (W_new <= 0.001 * p.W_MJ_o) ? p.W_MJ_o : W_new;
+			double time = (k + 1) * dt;
+			p = design(b, time, value, p);
+			s = state(p, W_MJ, n20_, time, dt);
+		}
+	}
+
+	// design with the inputs at time; current if none moved
+	private DesignPoint design(DesignPoint.Builder b, double time, double[] value, DesignPoint current) {
+		boolean moved = false;
+		int i = 0;
+		for (Map.Entry<SweepParameter, Waveform> e : inputs.entrySet()) {
+			double v = e.getValue().at(time);
+			if (v != value[i]) {
+				value[i] = v;
+				e.getKey().apply(b, v);
+				moved = true;
+			}
+			i++;
+		}
+		return moved ? b.build() : current;
+	}
+
+	private PlasmaState state(DesignPoint p, double W_MJ, double n20_, double time, double dt) {
+		Waveform P = actuators.get(Actuator.P_in_MW), m = actuators.get(Actuator.mdot_in),
+				B = actuators.get(Actuator.B_in);
+		return new PlasmaState(p, W_MJ, n20_, P == null ? p.Pw_in_MWo : P.at(time), m == null ? p.mdot_in
+				: m.at(time), B == null ? p.B_ino : B.at(time), time, dt);
+	}
+
+	// ------------------ main -----------------------------
+	// java Scenario file [R8|R6] [every]: the time series as csv on stdout
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("usage: java Scenario file [R8|R6] [every]");
+			return;
+		}
+		Scenario scenario = read(Paths.get(args[0]));
+		DesignPoint.Builder b = args.length > 1 && args[1].equals("R6") ? DesignPoint.iterR6()
+				: DesignPoint.iterR8();
+		int every = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+		Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+		StringBuilder line = new StringBuilder();
+		for (ResultColumn c : DEFAULT_COLUMNS) {
+			line.append(line.length() > 0 ? "," : "").append(c.name());
+		}
+		out.write(line.append('\n').toString());
+		long t0 = System.nanoTime();
+		PlasmaState end = scenario.run(b.build(), scenario.duration(), DesignPoint.dt, every, s -> {
+			line.setLength(0);
+			for (ResultColumn c : DEFAULT_COLUMNS) {
+				line.append(line.length() > 0 ? "," : "").append((float) c.value(s.itt, s));
+			}
+			out.write(line.append('\n').toString());
+		});
+		out.flush();
+		System.err.println("scenario of " + end.Time + " s in " + (System.nanoTime() - t0) / 1000000 + " ms");
+	}
+}
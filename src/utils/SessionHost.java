@@ -0,0 +1,596 @@
+//=============================================================================
+// Title:        SessionHost.java
+// Description:  Many independent plasma sessions (one per trainee) in one JVM,
+//               without a JStarApp frame each. A session is a slot in parallel
+//               primitive arrays: its slider inputs, W_MJ, n20_, step counts
+//               and the design factors the balance needs, about 220 bytes; the
+//               machine options are shared by every session on that machine
+//               and dropped with its last session.
+//               One scheduler thread ticks all sessions together, split in
+//               batches on a ForkJoinPool; like the time loop of run(), a
+//               session steps once per tick until ITT_MAX steps after its last
+//               input change. A tick steps a copy of the states outside the
+//               monitor and swaps it in, keeping the sessions changed
+//               meanwhile as they are. Outputs are derived from the slot when
+//               read.
+//=============================================================================
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class SessionHost {
+
+	// sessions one task steps before it stops splitting
+	static final int GRAIN = 4096;
+
+	// bytes of one slot: machine (short), 7 slider inputs, W_MJ, n20_, step
+	// counts (2 int), 9 balance factors, 4 output factors, the last change
+	// (int) and the tick copy of machine, W_MJ, n20_ and step counts
+	public static final int SESSION_BYTES = 2 + 7 * 8 + 2 * 8 + 2 * 4 + 9 * 8 + 4 * 8 + 4 + 2 + 2 * 8 + 2 * 4;
+
+	// what a session shows: inputs, state and the outputs derived from it
+	public static final class Session {
+		public final int id;
+		public final double sv1, sv2, sv3, sv4, boS, pwS, mdS;
+		public final double W_MJ, n20_, Time;
+		// steps since the last input change; still stepping while <= ITT_MAX
+		public final int itt;
+		public final double T10_, Pfus_MW, P_e, G, n_wall, n20_n20_gw, n20_n20_bet;
+
+		Session(SessionHost h, int i) {
+			id = i;
+			sv1 = h.sv1[i];
+			sv2 = h.sv2[i];
+			sv3 = h.sv3[i];
+			sv4 = h.sv4[i];
+			boS = h.boS[i];
+			pwS = h.pwS[i];
+			mdS = h.mdS[i];
+			W_MJ = h.W[i];
+			n20_ = h.n[i];
+			Time = h.steps[i] * DesignPoint.dt;
+			itt = h.itt[i];
+			// as in PlasmaState
+			T10_ = W_MJ * h.T10f[i] / n20_;
+			Pfus_MW = h.Pfusf[i] * n20_ * n20_ * PlasmaState.F_alp(T10_);
+			double PNeut_MW = Pfus_MW - Pfus_MW * 3.5 / 17.6;
+			P_e = PNeut_MW * h.F_plant[h.machine[i]] - h.P_e_in[i];
+			G = h.P_in[i] <= 0 ? 0 : Pfus_MW / h.P_in[i];
+			n_wall = PNeut_MW * h.wallf[i];
+			n20_n20_gw = n20_ * h.gwf[i];
+			n20_n20_bet = n20_ * T10_ * h.betf[i];
+		}
+
+		public boolean isRunning() {
+			return itt <= PlasmaEngine.ITT_MAX;
+		}
+	}
+
+	// the inputs of a design other than the seven sliders
+	private static final class Machine {
+		final double[] options;
+		final GeometryTable geometry;
+		final CoolingRates radiation;
+		final Map<String, Double> species;
+
+		Machine(DesignPoint p) {
+			options = new double[] { p.Rmax, p.Rmin, p.kMax, p.Mdmax, p.Bomax, p.q_edg, p.h_mult, p.Troy_c,
+					p.nAlp_ne, p.nO_ne, p.nC_ne, p.nFe_ne, p.nBe_ne, p.nAr_ne, p.F_plant, p.F_aux, p.tau98_P,
+					p.tau98_n };
+			geometry = p.geometry;
+			radiation = p.radiation;
+			species = p.species;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Machine)) {
+				return false;
+			}
+			Machine m = (Machine) o;
+			return Arrays.equals(options, m.options) && geometry == m.geometry && radiation == m.radiation
+					&& species.equals(m.species);
+		}
+
+		@Override
+		public int hashCode() {
+			return ((Arrays.hashCode(options) * 31 + System.identityHashCode(geometry)) * 31
+					+ System.identityHashCode(radiation)) * 31 + species.hashCode();
+		}
+	}
+
+	// machines by index: a design of each (for its options), the sessions on
+	// it and the factors they share; the index of a machine without sessions
+	// is free for the next new one
+	private DesignPoint[] machines = new DesignPoint[0];
+	private Machine[] machineKeys = new Machine[0];
+	private int[] machineRefs = new int[0];
+	private final Map<Machine, Integer> machineIndex = new HashMap<Machine, Integer>();
+	private double[] F_plant = new double[0], aP = new double[0], an = new double[0];
+	// line radiation tables (null: none) and their DesignPoint.Lrad_fac
+	private CoolingRates[] radiation = new CoolingRates[0];
+	private double[][] Lrad_fac = new double[0][];
+	private int[] freeMachines = new int[16];
+	private int freeMachineCount;
+
+	// slots: machine -1 is free
+	private int size;
+	private short[] machine = new short[0];
+	private double[] sv1, sv2, sv3, sv4, boS, pwS, mdS;
+	private double[] W, n;
+	private int[] itt, steps;
+	private double[] T10f, Pfusf, Pbremf, Vol, tauf, P_in, n_in, W_o, n_o;
+	private double[] P_e_in, gwf, betf, wallf;
+	private int[] free = new int[16];
+	private int freeCount, open;
+	// per slot, the value of changes at its last load or close: a tick keeps
+	// the state it stepped only in slots not changed since it started
+	private int[] changed;
+	private int changes;
+	// the arrays a tick steps, swapped with W, n, itt, steps when it ends; and
+	// its copy of machine
+	private double[] W2 = new double[0], n2 = new double[0];
+	private int[] itt2 = new int[0], steps2 = new int[0];
+	private short[] machine2 = new short[0];
+	// one tick at a time
+	private final Object ticking = new Object();
+
+	private final ForkJoinPool pool;
+	private ScheduledExecutorService ticker;
+	private ScheduledFuture<?> tick;
+	// host ticks, session steps and the time spent stepping; ticks that failed
+	private long ticks, stepped, tickNanos, failed;
+
+	public SessionHost() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	public SessionHost(ForkJoinPool pool) {
+		this.pool = pool;
+		grow(1024);
+	}
+
+	// a session on design p from its initial conditions; returns its id
+	public synchronized int open(DesignPoint p) {
+		int i;
+		if (freeCount > 0) {
+			i = free[--freeCount];
+		} else {
+			if (size == machine.length) {
+				grow(2 * size);
+			}
+			i = size++;
+		}
+		load(i, p);
+		W[i] = p.W_MJ_o;
+		n[i] = p.n20_o;
+		steps[i] = 0;
+		open++;
+		return i;
+	}
+
+	// new inputs for session id: it continues from its W_MJ, n20_ (as run() after
+	// a slider change) and steps again
+	public synchronized void set(int id, DesignPoint p) {
+		check(id);
+		load(id, p);
+	}
+
+	public synchronized void close(int id) {
+		check(id);
+		release(machine[id]);
+		machine[id] = -1;
+		changed[id] = ++changes;
+		if (freeCount == free.length) {
+			free = Arrays.copyOf(free, 2 * freeCount);
+		}
+		free[freeCount++] = id;
+		open--;
+	}
+
+	public synchronized Session get(int id) {
+		check(id);
+		return new Session(this, id);
+	}
+
+	// the design of session id (built again from its inputs)
+	public synchronized DesignPoint design(int id) {
+		check(id);
+		return machines[machine[id]].toBuilder().shape(sv1[id], sv2[id], sv3[id], sv4[id])
+				.physics(boS[id], pwS[id], mdS[id]).build();
+	}
+
+	// every quantity of session id, evaluated on its design
+	public PlasmaState state(PlasmaEngine engine, int id) {
+		DesignPoint p;
+		double w, d, t;
+		synchronized (this) {
+			p = design(id);
+			w = W[id];
+			d = n[id];
+			t = steps[id] * DesignPoint.dt;
+		}
+		return engine.evaluate(p, w, d, t, DesignPoint.dt);
+	}
+
+	// one step of every running session; the monitor is held only to copy
+	// the states in and to swap the stepped ones back. A failed tick is
+	// logged and leaves the states as they were, so that the scheduled ticks
+	// go on
+	public void tick() {
+		synchronized (ticking) {
+			Tick t;
+			synchronized (this) {
+				t = new Tick();
+			}
+			long t0 = System.nanoTime();
+			long count;
+			try {
+				count = pool.invoke(new Step(t, 0, t.size));
+			} catch (RuntimeException e) {
+				System.err.println("SessionHost tick: " + e);
+				synchronized (this) {
+					failed++;
+				}
+				return;
+			}
+			long nanos = System.nanoTime() - t0;
+			synchronized (this) {
+				t.swap();
+				stepped += count;
+				ticks++;
+				tickNanos += nanos;
+			}
+		}
+	}
+
+	// tick every tickMillis on a scheduler thread of the host
+	public synchronized void start(long tickMillis) {
+		if (ticker == null) {
+			ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "SessionHost-tick");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		if (tick != null) {
+			tick.cancel(false);
+		}
+		tick = ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+	}
+
+	public synchronized void stop() {
+		if (tick != null) {
+			tick.cancel(false);
+			tick = null;
+		}
+	}
+
+	public synchronized int sessions() {
+		return open;
+	}
+
+	// machines with open sessions
+	public synchronized int machines() {
+		return machineIndex.size();
+	}
+
+	// sessions still stepping
+	public synchronized int running() {
+		int r = 0;
+		for (int i = 0; i < size; i++) {
+			if (machine[i] >= 0 && itt[i] <= PlasmaEngine.ITT_MAX) {
+				r++;
+			}
+		}
+		return r;
+	}
+
+	public synchronized long ticks() {
+		return ticks;
+	}
+
+	// session steps taken by all ticks
+	public synchronized long steps() {
+		return stepped;
+	}
+
+	// ticks that threw and stepped nothing
+	public synchronized long failedTicks() {
+		return failed;
+	}
+
+	// session steps per second of tick time (0 before the first step)
+	public synchronized double stepsPerSecond() {
+		return tickNanos == 0 ? 0 : stepped * 1e9 / tickNanos;
+	}
+
+	// slot arrays held for the open sessions (free slots and machines not counted)
+	public synchronized long sessionBytes() {
+		return (long) open * SESSION_BYTES;
+	}
+
+	// all slot arrays, free slots included
+	public synchronized long allocatedBytes() {
+		return (long) machine.length * SESSION_BYTES;
+	}
+
+	private void check(int id) {
+		if (id < 0 || id >= size || machine[id] < 0) {
+			throw new IllegalArgumentException("no session " + id);
+		}
+	}
+
+	// inputs and factors of design p into slot i
+	private void load(int i, DesignPoint p) {
+		Machine m = new Machine(p);
+		Integer k = machineIndex.get(m);
+		if (k == null) {
+			k = machine(m, p);
+		}
+		machineRefs[k]++;
+		release(machine[i]);
+		machine[i] = (short) (int) k;
+		changed[i] = ++changes;
+		sv1[i] = p.sv1;
+		sv2[i] = p.sv2;
+		sv3[i] = p.sv3;
+		sv4[i] = p.sv4;
+		boS[i] = p.boS;
+		pwS[i] = p.pwS;
+		mdS[i] = p.mdS;
+		itt[i] = 0;
+		// as VectorEngine.load
+		T10f[i] = p.T10_fac;
+		Pfusf[i] = p.Pfus_fac * p.Vol;
+		Pbremf[i] = p.Pbrem_fac;
+		Vol[i] = p.Vol;
+		tauf[i] = p.H_fac / 2.0 * p.tau98_Bfac;
+		P_in[i] = p.Pw_in_MWo;
+		n_in[i] = p.mdot_in * p.n_in_fac;
+		W_o[i] = p.W_MJ_o;
+		n_o[i] = p.n20_o;
+		P_e_in[i] = p.Pw_in_MWo * p.F_aux + p.B_ino / DesignPoint.Bo * 100;
+		gwf[i] = p.n_gw_fac / p.B_ino;
+		betf[i] = p.n_bet_fac / (p.B_ino * p.B_ino);
+		wallf[i] = 1 / p.Area;
+	}
+
+	// index of the new machine m of design p, a free one if there is
+	private int machine(Machine m, DesignPoint p) {
+		int k;
+		if (freeMachineCount > 0) {
+			k = freeMachines[--freeMachineCount];
+		} else {
+			k = machines.length;
+			if (k > Short.MAX_VALUE) {
+				throw new IllegalArgumentException("too many machines");
+			}
+			machines = Arrays.copyOf(machines, k + 1);
+			machineKeys = Arrays.copyOf(machineKeys, k + 1);
+			machineRefs = Arrays.copyOf(machineRefs, k + 1);
+			F_plant = Arrays.copyOf(F_plant, k + 1);
+			aP = Arrays.copyOf(aP, k + 1);
+			an = Arrays.copyOf(an, k + 1);
+			radiation = Arrays.copyOf(radiation, k + 1);
+			Lrad_fac = Arrays.copyOf(Lrad_fac, k + 1);
+		}
+		machineIndex.put(m, k);
+		machines[k] = p;
+		machineKeys[k] = m;
+		F_plant[k] = p.F_plant;
+		aP[k] = p.tau98_P;
+		an[k] = p.tau98_n;
+		radiation[k] = p.radiation;
+		Lrad_fac[k] = p.Lrad_fac;
+		return k;
+	}
+
+	// a session left machine k (-1: none), which is dropped with its last one
+	private void release(int k) {
+		if (k < 0 || --machineRefs[k] > 0) {
+			return;
+		}
+		machineIndex.remove(machineKeys[k]);
+		machines[k] = null;
+		machineKeys[k] = null;
+		radiation[k] = null;
+		Lrad_fac[k] = null;
+		if (freeMachineCount == freeMachines.length) {
+			freeMachines = Arrays.copyOf(freeMachines, 2 * freeMachineCount);
+		}
+		freeMachines[freeMachineCount++] = k;
+	}
+
+	private void grow(int capacity) {
+		int old = machine.length;
+		machine = Arrays.copyOf(machine, capacity);
+		Arrays.fill(machine, old, capacity, (short) -1);
+		sv1 = grow(sv1, capacity);
+		sv2 = grow(sv2, capacity);
+		sv3 = grow(sv3, capacity);
+		sv4 = grow(sv4, capacity);
+		boS = grow(boS, capacity);
+		pwS = grow(pwS, capacity);
+		mdS = grow(mdS, capacity);
+		W = grow(W, capacity);
+		n = grow(n, capacity);
+		itt = itt == null ? new int[capacity] : Arrays.copyOf(itt, capacity);
+		steps = steps == null ? new int[capacity] : Arrays.copyOf(steps, capacity);
+		changed = changed == null ? new int[capacity] : Arrays.copyOf(changed, capacity);
+		T10f = grow(T10f, capacity);
+		Pfusf = grow(Pfusf, capacity);
+		Pbremf = grow(Pbremf, capacity);
+		Vol = grow(Vol, capacity);
+		tauf = grow(tauf, capacity);
+		P_in = grow(P_in, capacity);
+		n_in = grow(n_in, capacity);
+		W_o = grow(W_o, capacity);
+		n_o = grow(n_o, capacity);
+		P_e_in = grow(P_e_in, capacity);
+		gwf = grow(gwf, capacity);
+		betf = grow(betf, capacity);
+		wallf = grow(wallf, capacity);
+	}
+
+	private static double[] grow(double[] a, int capacity) {
+		return a == null ? new double[capacity] : Arrays.copyOf(a, capacity);
+	}
+
+	// the states of one tick, copied under the monitor: slot factors are read
+	// from the arrays of that moment, which load() changes only for slots the
+	// swap then leaves alone; the machine factors are copied, as release()
+	// and machine() change them in place for other machines
+	private final class Tick {
+		final int size, changes;
+		final short[] machine;
+		final double[] W, n;
+		final int[] itt, steps;
+		final double[] T10f, Pfusf, Pbremf, Vol, tauf, P_in, n_in, W_o, n_o, aP, an;
+		final CoolingRates[] radiation;
+		final double[][] Lrad_fac;
+
+		Tick() {
+			SessionHost h = SessionHost.this;
+			int length = h.machine.length;
+			if (W2.length != length) {
+				W2 = new double[length];
+				n2 = new double[length];
+				itt2 = new int[length];
+				steps2 = new int[length];
+				machine2 = new short[length];
+			}
+			size = h.size;
+			changes = h.changes;
+			machine = machine2;
+			W = W2;
+			n = n2;
+			itt = itt2;
+			steps = steps2;
+			System.arraycopy(h.machine, 0, machine, 0, size);
+			System.arraycopy(h.W, 0, W, 0, size);
+			System.arraycopy(h.n, 0, n, 0, size);
+			System.arraycopy(h.itt, 0, itt, 0, size);
+			System.arraycopy(h.steps, 0, steps, 0, size);
+			T10f = h.T10f;
+			Pfusf = h.Pfusf;
+			Pbremf = h.Pbremf;
+			Vol = h.Vol;
+			tauf = h.tauf;
+			P_in = h.P_in;
+			n_in = h.n_in;
+			W_o = h.W_o;
+			n_o = h.n_o;
+			aP = h.aP.clone();
+			an = h.an.clone();
+			radiation = h.radiation.clone();
+			Lrad_fac = h.Lrad_fac.clone();
+		}
+
+		// the stepped states become the sessions', but for slots loaded or
+		// closed meanwhile
+		void swap() {
+			SessionHost h = SessionHost.this;
+			if (h.machine.length != W.length) {
+				// the slots grew: copy the unchanged ones into the new arrays
+				for (int i = 0; i < size; i++) {
+					if (h.changed[i] - changes <= 0) {
+						h.W[i] = W[i];
+						h.n[i] = n[i];
+						h.itt[i] = itt[i];
+						h.steps[i] = steps[i];
+					}
+				}
+				return;
+			}
+			// slots beyond size were opened meanwhile
+			int from = size;
+			if (h.changes != changes) {
+				for (int i = 0; i < size; i++) {
+					if (h.changed[i] - changes > 0) {
+						W[i] = h.W[i];
+						n[i] = h.n[i];
+						itt[i] = h.itt[i];
+						steps[i] = h.steps[i];
+					}
+				}
+			}
+			System.arraycopy(h.W, from, W, from, h.size - from);
+			System.arraycopy(h.n, from, n, from, h.size - from);
+			System.arraycopy(h.itt, from, itt, from, h.size - from);
+			System.arraycopy(h.steps, from, steps, from, h.size - from);
+			W2 = h.W;
+			n2 = h.n;
+			itt2 = h.itt;
+			steps2 = h.steps;
+			h.W = W;
+			h.n = n;
+			h.itt = itt;
+			h.steps = steps;
+		}
+	}
+
+	// EulerIntegrator.step of the running sessions lo..hi of a tick; returns
+	// how many stepped
+	private static final class Step extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+		private final Tick t;
+		private final int lo, hi;
+
+		Step(Tick t, int lo, int hi) {
+			this.t = t;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected Long compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				Step right = new Step(t, mid, hi);
+				right.fork();
+				return new Step(t, lo, mid).compute() + right.join();
+			}
+			short[] machine = t.machine;
+			double[] W = t.W, n = t.n;
+			int[] itt = t.itt, steps = t.steps;
+			double dt = DesignPoint.dt;
+			long count = 0;
+			for (int i = lo; i < hi; i++) {
+				if (machine[i] < 0 || itt[i] > PlasmaEngine.ITT_MAX) {
+					continue;
+				}
+				double w = W[i], d = n[i];
+				// PlasmaState.rates
+				double T10_ = w * t.T10f[i] / d;
+				double Palp_MW = t.Pfusf[i] * d * d * PlasmaState.F_alp(T10_) * 3.5 / 17.6;
+				double Pgain_MW = t.P_in[i] + Palp_MW;
+				double sqrtT = Math.sqrt(T10_);
+				double Pbrem_MW = t.Pbremf[i] * d * d * sqrtT;
+				int m = machine[i];
+				CoolingRates r = t.radiation[m];
+				double Pline_MW = r == null ? 0 : r.line(t.Lrad_fac[m], sqrtT) * d * d * t.Vol[i];
+				double Ptrans_MW = Math.max((Pgain_MW - Pbrem_MW - Pline_MW), (0.5 * Pgain_MW));
+				double Conf_t = t.tauf[i] * Math.exp(t.aP[m] * Math.log(Ptrans_MW) + t.an[m] * Math.log(d));
+				double dW_MW_dt = Pgain_MW - w / Conf_t;
+				double dn20_dt = t.n_in[i] - d / Conf_t;
+				// with the reset on collapse
+				double n_new = d + dn20_dt * dt;
+				n[i] = (n_new <= 0.001 * t.n_o[i]) ? t.n_o[i] : n_new;
+				double W_new = w + dW_MW_dt * dt;
+				W[i] = (W_new <= 0.001 * t.W_o[i]) ? t.W_o[i] : W_new;
+				itt[i]++;
+				steps[i]++;
+				count++;
+			}
+			return count;
+		}
+	}
+}
@@ -0,0 +1,101 @@
+//=============================================================================
+// Title:        SimulationEvents.java
+// Description:  Java Flight Recorder events of the simulation, category
+//               JStar: one SimulationRun per generation (input change) on the
+//               tick thread, one IntegrationStep per tick or fast-forward
+//               frame, SteadyStateReached when a run settles and UiRefresh per
+//               display frame. Recorded with -XX:StartFlightRecording or from
+//               JMC; without a recording an event costs an enabled check.
+//=============================================================================
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+public final class SimulationEvents {
+
+	private SimulationEvents() {
+	}
+
+	@Name("jstar.SimulationRun")
+	@Label("Simulation Run")
+	@Category("JStar")
+	@Description("One generation: from the input change until it settles or is replaced")
+	@StackTrace(false)
+	public static final class SimulationRun extends Event {
+		@Label("Fast Forward")
+		public boolean fastForward;
+		@Label("Cached")
+		public boolean cached;
+		@Label("Steps")
+		public int steps;
+		@Label("Steady")
+		public boolean steady;
+		@Label("Replaced")
+		@Description("A newer input change took over before the run settled")
+		public boolean replaced;
+		@Label("Net Electric Power (MW)")
+		public double P_e;
+	}
+
+	@Name("jstar.IntegrationStep")
+	@Label("Integration Step")
+	@Category("JStar")
+	@Description("One tick of run(): a single step, or the steps of a fast-forward frame")
+	@StackTrace(false)
+	public static final class IntegrationStep extends Event {
+		@Label("Steps")
+		public int steps;
+		@Label("Steps Since Input Change")
+		public int itt;
+		@Label("Energy (MJ)")
+		public double W_MJ;
+		@Label("Density (1e20/m^3)")
+		public double n20_;
+	}
+
+	@Name("jstar.SteadyStateReached")
+	@Label("Steady State Reached")
+	@Category("JStar")
+	@StackTrace(false)
+	public static final class SteadyStateReached extends Event {
+		@Label("Source")
+		@Description("transient, continuation, cache or newton")
+		public String source;
+		@Label("Steps")
+		public int steps;
+		@Label("Net Electric Power (MW)")
+		public double P_e;
+		@Label("Temperature (10 keV)")
+		public double T10_;
+		@Label("Density (1e20/m^3)")
+		public double n20_;
+	}
+
+	@Name("jstar.UiRefresh")
+	@Label("UI Refresh")
+	@Category("JStar")
+	@Description("Event thread time to show one snapshot")
+	@StackTrace(false)
+	public static final class UiRefresh extends Event {
+		@Label("Dropped Frames")
+		@Description("Snapshots published since the previous refresh that were never shown")
+		public long dropped;
+	}
+
+	// instant SteadyStateReached for s
+	static void steady(String source, SteadyState s) {
+		SteadyStateReached e = new SteadyStateReached();
+		if (e.shouldCommit()) {
+			e.source = source;
+			e.steps = s.itt;
+			e.P_e = s.state.P_e;
+			e.T10_ = s.state.T10_;
+			e.n20_ = s.state.n20_;
+			e.commit();
+		}
+	}
+}
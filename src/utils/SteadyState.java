@@ -0,0 +1,27 @@
+//=============================================================================
+// Title:        SteadyState.java
+// Description:  Result of PlasmaEngine.solve(): the operating point the energy
+//               & particle balance reached and how many steps it took.
+//=============================================================================
+
+public final class SteadyState {
+
+	public final DesignPoint design;
+	public final PlasmaState state;
+	// integration steps taken
+	public final int itt;
+	// true if |dW_MW_dt| and |dn20_dt| fell below the tolerance within the step budget
+	public final boolean converged;
+
+	SteadyState(DesignPoint design, PlasmaState state, int itt, boolean converged) {
+		this.design = design;
+		this.state = state;
+		this.itt = itt;
+		this.converged = converged;
+	}
+
+	// alpha heating exceeds the auxiliary power (Q > 5): ignited, else driven
+	public boolean isIgnited() {
+		return state.Palp_MW > state.P_in_MW;
+	}
+}
@@ -0,0 +1,226 @@
+//=============================================================================
+// Title:        SteadyStateCache.java
+// Description:  Bounded, thread safe LRU cache of converged operating points,
+//               keyed by the quantized inputs of a DesignPoint: slider
+//               positions to 1/1024 of a step, machine options and impurity
+//               fractions to float precision. Striped so concurrent sweeps and
+//               the GUI rarely contend; hit, miss and eviction counts are kept.
+//
+//               Where a design has two stable operating points (driven and
+//               ignited) the one reached depends on where the solve started,
+//               so the key also holds the start: the solver's own (design
+//               initial conditions) for get(p), else a quarter octave bucket
+//               of the start W_MJ and n20_ (the previous operating point).
+//=============================================================================
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+public class SteadyStateCache {
+
+	// most stripes; fewer for capacities below it, so none is empty
+	static final int STRIPES = 16;
+
+	private final Stripe[] stripes;
+	private final int capacity;
+	private final LongAdder hits = new LongAdder(), misses = new LongAdder(), evictions = new LongAdder();
+
+	public SteadyStateCache(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity= " + capacity);
+		}
+		this.capacity = capacity;
+		int n = Math.min(STRIPES, Integer.highestOneBit(capacity));
+		stripes = new Stripe[n];
+		for (int i = 0; i < n; i++) {
+			// capacity split over the stripes, each at least 1
+			stripes[i] = new Stripe((capacity + n - 1 - i) / n);
+		}
+	}
+
+	// cached operating point of p solved from its initial conditions, or null
+	public SteadyState get(DesignPoint p) {
+		return get(p, null);
+	}
+
+	// cached operating point of p solved from a state near from (null: from
+	// its initial conditions), or null
+	public SteadyState get(DesignPoint p, PlasmaState from) {
+		Key key = new Key(p, from);
+		SteadyState s = stripe(key).get(key);
+		if (s == null) {
+			misses.increment();
+		} else {
+			hits.increment();
+		}
+		return s;
+	}
+
+	// remember a converged operating point solved from the initial conditions;
+	// unconverged results are ignored
+	public void put(SteadyState s) {
+		put(s, null);
+	}
+
+	// remember a converged operating point solved from from (null: the
+	// initial conditions)
+	public void put(SteadyState s, PlasmaState from) {
+		if (s.converged) {
+			Key key = new Key(s.design, from);
+			stripe(key).put(key, s);
+		}
+	}
+
+	// cached operating point of p, else solve and remember it
+	public SteadyState solve(DesignPoint p, Function<DesignPoint, SteadyState> solver) {
+		SteadyState s = get(p);
+		if (s == null) {
+			s = solver.apply(p);
+			put(s);
+		}
+		return s;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public int size() {
+		int n = 0;
+		for (Stripe s : stripes) {
+			n += s.size();
+		}
+		return n;
+	}
+
+	public void clear() {
+		for (Stripe s : stripes) {
+			s.clear();
+		}
+	}
+
+	public long hits() {
+		return hits.sum();
+	}
+
+	public long misses() {
+		return misses.sum();
+	}
+
+	public long evictions() {
+		return evictions.sum();
+	}
+
+	// hits / lookups, 0 before the first lookup
+	public double hitRate() {
+		long h = hits.sum(), m = misses.sum();
+		return h + m == 0 ? 0 : (double) h / (h + m);
+	}
+
+	@Override
+	public String toString() {
+		return "SteadyStateCache[size= " + size() + "/" + capacity + " hits= " + hits() + " misses= " + misses()
+				+ " evictions= " + evictions() + " hitRate= " + (float) hitRate() + "]";
+	}
+
+	private Stripe stripe(Key key) {
+		return stripes[(key.hash ^ (key.hash >>> 16)) & (stripes.length - 1)];
+	}
+
+	// access ordered map under its own lock, dropping the least recently used entry
+	private final class Stripe extends LinkedHashMap<Key, SteadyState> {
+		private static final long serialVersionUID = 1L;
+		private final int max;
+
+		Stripe(int max) {
+			super(16, 0.75f, true);
+			this.max = max;
+		}
+
+		@Override
+		public synchronized SteadyState get(Object key) {
+			return super.get(key);
+		}
+
+		@Override
+		public synchronized SteadyState put(Key key, SteadyState value) {
+			return super.put(key, value);
+		}
+
+		@Override
+		public synchronized int size() {
+			return super.size();
+		}
+
+		@Override
+		public synchronized void clear() {
+			super.clear();
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, SteadyState> eldest) {
+			if (size() > max) {
+				evictions.increment();
+				return true;
+			}
+			return false;
+		}
+	}
+
+	// quantized DesignPoint inputs and start of the solve
+	static final class Key {
+		// start of a solve from the initial conditions
+		static final long INITIAL = Long.MIN_VALUE;
+
+		private final long[] q;
+		private final long start;
+		// the radiation tables by identity, the extra species by value
+		private final CoolingRates radiation;
+		private final Map<String, Double> species;
+		private final int hash;
+
+		Key(DesignPoint p, PlasmaState from) {
+			q = new long[] { slider(p.sv1), slider(p.sv2), slider(p.sv3), slider(p.sv4), slider(p.boS),
+					slider(p.pwS), slider(p.mdS), option(p.Rmax), option(p.Rmin), option(p.kMax), option(p.Mdmax),
+					option(p.Bomax), option(p.q_edg), option(p.h_mult), option(p.Troy_c), option(p.nAlp_ne),
+					option(p.nO_ne), option(p.nC_ne), option(p.nFe_ne), option(p.nBe_ne), option(p.nAr_ne),
+					option(p.F_plant), option(p.F_aux), option(p.tau98_P), option(p.tau98_n) };
+			radiation = p.radiation;
+			species = p.species;
+			start = from == null ? INITIAL : (octaves(from.W_MJ) << 32) ^ (octaves(from.n20_) & 0xffffffffL);
+			hash = ((Arrays.hashCode(q) * 31 + System.identityHashCode(radiation)) * 31 + species.hashCode()) * 31
+					+ Long.hashCode(start);
+		}
+
+		// log2(v) in quarters
+		private static long octaves(double v) {
+			return Math.round(4 * Math.log(v) / Math.log(2));
+		}
+
+		private static long slider(double v) {
+			return Math.round(v * 1024);
+		}
+
+		private static long option(double v) {
+			return Float.floatToIntBits((float) v + 0.0f);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key k = (Key) o;
+			return k.hash == hash && k.start == start && Arrays.equals(k.q, q) && k.radiation == radiation
+					&& k.species.equals(species);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
@@ -0,0 +1,153 @@
+//=============================================================================
+// Title:        SteadyStateSolver.java
+// Description:  Newton-Raphson on the operating point itself: finds (W_MJ, n20_)
+//               with dW_MW_dt = 0 and dn20_dt = 0 without integrating the
+//               transient. Works in (ln W_MJ, ln n20_) so iterates stay physical,
+//               with a finite difference Jacobian and a backtracking line search.
+//               branches() starts Newton from a grid of temperatures & densities
+//               to return every operating point (driven and ignited) it finds.
+//=============================================================================
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class SteadyStateSolver {
+
+	public static final int MAX_ITER = 50;
+
+	// relative step for the finite difference Jacobian in ln W_MJ, ln n20_
+	static final double FD = 1e-7;
+	// largest Newton step in ln W_MJ, ln n20_ (a factor e^2)
+	static final double MAX_LOG_STEP = 2;
+
+	// multi-start grid for branches(): T10 (10 keV) and n20 (10^20/m^3)
+	static final double[] T10_SEEDS = { 0.03, 0.1, 0.3, 1, 2, 4 };
+	static final double[] N20_SEEDS = { 0.1, 0.3, 1, 3 };
+	// roots closer than this in ln W_MJ, ln n20_ are the same branch
+	static final double SAME_ROOT = 1e-4;
+
+	// solve() figures, see Metrics: solves are iterations.count + unconverged
+	private static final Metrics.Counter UNCONVERGED = Metrics.counter("newton.unconverged");
+	private static final Metrics.Histogram ITERATIONS = Metrics.histogram("newton.iterations");
+
+	private final PlasmaEngine engine;
+	private final double tol;
+
+	public SteadyStateSolver(PlasmaEngine engine) {
+		this(engine, PlasmaEngine.TOL);
+	}
+
+	public SteadyStateSolver(PlasmaEngine engine, double tol) {
+		this.engine = engine;
+		this.tol = tol;
+	}
+
+	// Newton from the nominal design point W_MJo, n20o
+	public SteadyState solve(DesignPoint p) {
+		return solve(p, engine.evaluate(p, p.W_MJo, DesignPoint.n20o));
+	}
+
+	// Newton from a guess, e.g. the previous operating point
+	public SteadyState solve(DesignPoint p, PlasmaState guess) {
+		SteadyState s = newton(p, guess);
+		if (s.converged) {
+			ITERATIONS.record(s.itt);
+		} else {
+			UNCONVERGED.increment();
+		}
+		return s;
+	}
+
+	private SteadyState newton(DesignPoint p, PlasmaState guess) {
+		// residuals scaled by the (constant) design sources
+		double sW = p.Pw_in_MWo, sN = p.mdot_in / (0.000000418 * p.Vol);
+		PlasmaState s = guess;
+		double r = norm(s, sW, sN);
+		int itt = 0;
+		while (!engine.isSteady(s, tol)) {
+			if (itt >= MAX_ITER || !Double.isFinite(r)) {
+				return new SteadyState(p, s, itt, false);
+			}
+			itt = itt + 1;
+
+			// J = d(fW/sW, fn/sN)/d(ln W, ln n)
+			double W = s.W_MJ, n = s.n20_;
+			double fW = s.dW_MW_dt / sW, fn = s.dn20_dt / sN;
+			PlasmaState sw = engine.evaluate(p, W * Math.exp(FD), n);
+			PlasmaState sn = engine.evaluate(p, W, n * Math.exp(FD));
+			double j11 = (sw.dW_MW_dt / sW - fW) / FD, j21 = (sw.dn20_dt / sN - fn) / FD;
+			double j12 = (sn.dW_MW_dt / sW - fW) / FD, j22 = (sn.dn20_dt / sN - fn) / FD;
+			double det = j11 * j22 - j12 * j21;
+			if (det == 0 || !Double.isFinite(det)) {
+				return new SteadyState(p, s, itt, false);
+			}
+			double dx = -(j22 * fW - j12 * fn) / det;
+			double dy = -(j11 * fn - j21 * fW) / det;
+			double big = Math.max(Math.abs(dx), Math.abs(dy));
+			if (big > MAX_LOG_STEP) {
+				dx = dx * MAX_LOG_STEP / big;
+				dy = dy * MAX_LOG_STEP / big;
+			}
+
+			// backtrack until the residual decreases
+			double lambda = 1;
+			PlasmaState next = null;
+			double rNext = r;
+			while (lambda > 1e-6) {
+				next = engine.evaluate(p, W * Math.exp(lambda * dx), n * Math.exp(lambda * dy));
+				rNext = norm(next, sW, sN);
+				if (rNext < (1 - 1e-4 * lambda) * r) {
+					break;
+				}
+				lambda = lambda * 0.5;
+			}
+			if (!(rNext < r)) {
+				return new SteadyState(p, s, itt, false); // stalled: no descent direction
+			}
+			s = next;
+			r = rNext;
+		}
+		return new SteadyState(p, s, itt, true);
+	}
+
+	// every converged operating point from the seed grid, lowest W_MJ first
+	public List<SteadyState> branches(DesignPoint p) {
+		List<SteadyState> roots = new ArrayList<SteadyState>();
+		for (double T10 : T10_SEEDS) {
+			for (double n20 : N20_SEEDS) {
+				double W = 0.2403 * (1 + p.nI_ne) * n20 * T10 * p.Vol;
+				SteadyState ss = solve(p, engine.evaluate(p, W, n20));
+				if (ss.converged && !contains(roots, ss.state)) {
+					roots.add(ss);
+				}
+			}
+		}
+		roots.sort(Comparator.comparingDouble(ss -> ss.state.W_MJ));
+		return roots;
+	}
+
+	// linear stability of an operating point: trace < 0 and det > 0 of the Jacobian
+	public boolean isStable(DesignPoint p, PlasmaState s) {
+		double dW = FD * s.W_MJ, dn = FD * s.n20_;
+		PlasmaState sw = engine.evaluate(p, s.W_MJ + dW, s.n20_);
+		PlasmaState sn = engine.evaluate(p, s.W_MJ, s.n20_ + dn);
+		double j11 = (sw.dW_MW_dt - s.dW_MW_dt) / dW, j21 = (sw.dn20_dt - s.dn20_dt) / dW;
+		double j12 = (sn.dW_MW_dt - s.dW_MW_dt) / dn, j22 = (sn.dn20_dt - s.dn20_dt) / dn;
+		return j11 + j22 < 0 && j11 * j22 - j12 * j21 > 0;
+	}
+
+	private static double norm(PlasmaState s, double sW, double sN) {
+		return Math.hypot(s.dW_MW_dt / sW, s.dn20_dt / sN);
+	}
+
+	private static boolean contains(List<SteadyState> roots, PlasmaState s) {
+		for (SteadyState r : roots) {
+			if (Math.abs(Math.log(r.state.W_MJ / s.W_MJ)) < SAME_ROOT
+					&& Math.abs(Math.log(r.state.n20_ / s.n20_)) < SAME_ROOT) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,59 @@
+//=============================================================================
+// Title:        SweepAxis.java
+// Description:  One dimension of a DesignSweep: a parameter and its values.
+//               Cartesian sweeps use the values, Latin hypercube sweeps sample
+//               the interval between the first and the last value.
+//=============================================================================
+
+public final class SweepAxis {
+
+	public final SweepParameter parameter;
+	private final double[] values;
+
+	private SweepAxis(SweepParameter parameter, double[] values) {
+		if (values.length == 0) {
+			throw new IllegalArgumentException("no values for " + parameter);
+		}
+		this.parameter = parameter;
+		this.values = values;
+	}
+
+	public static SweepAxis of(SweepParameter parameter, double... values) {
+		return new SweepAxis(parameter, values.clone());
+	}
+
+	// count values evenly spaced from..to
+	public static SweepAxis range(SweepParameter parameter, double from, double to, int count) {
+		double[] v = new double[count];
+		for (int i = 0; i < count; i++) {
+			v[i] = (count == 1) ? from : from + (to - from) * i / (count - 1);
+		}
+		return new SweepAxis(parameter, v);
+	}
+
+	// every slider position, or count values over the default range otherwise
+	public static SweepAxis full(SweepParameter parameter, int count) {
+		return range(parameter, parameter.min, parameter.max, count);
+	}
+
+	// all 41 or 81 positions of a slider parameter
+	public static SweepAxis positions(SweepParameter parameter) {
+		return full(parameter, (int) (parameter.max - parameter.min) + 1);
+	}
+
+	public int size() {
+		return values.length;
+	}
+
+	public double value(int i) {
+		return values[i];
+	}
+
+	public double from() {
+		return values[0];
+	}
+
+	public double to() {
+		return values[values.length - 1];
+	}
+}
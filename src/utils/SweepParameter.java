@@ -0,0 +1,134 @@
+//=============================================================================
+// Title:        SweepParameter.java
+// Description:  DesignPoint inputs a DesignSweep can vary, with the range the
+//               JStarApp widgets allow (sliders) or a sensible design range.
+//=============================================================================
+
+public enum SweepParameter {
+
+	// dee magnet sliders 1=green OUTER, 2=red INNER, 3=blue TOP/BOTTOM INNER, 4=yellow TOP/BOTTOM OUTER
+	sv1(0, 40) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.sv1(v);
+		}
+	},
+	sv2(0, 40) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.sv2(v);
+		}
+	},
+	sv3(0, 40) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.sv3(v);
+		}
+	},
+	sv4(0, 40) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.sv4(v);
+		}
+	},
+	// B field, power, fuel sliders
+	boS(0, 80) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.boS(v);
+		}
+	},
+	pwS(0, 80) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.pwS(v);
+		}
+	},
+	mdS(0, 80) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.mdS(v);
+		}
+	},
+	// popup panel: q95, Bo_max, kmax
+	q_edg(2, 6) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.q_edg(v);
+		}
+	},
+	Bomax(3, 12) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.Bomax(v);
+		}
+	},
+	kMax(1.2, 3.2) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.kMax(v);
+		}
+	},
+	// confinement and beta limit options
+	h_mult(1, 2) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.h_mult(v);
+		}
+	},
+	Troy_c(2.5, 5) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.Troy_c(v);
+		}
+	},
+	// impurity fractions (impurity popup)
+	nAlp_ne(0, 0.2) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.nAlp_ne(v);
+		}
+	},
+	nC_ne(0, 0.03) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.nC_ne(v);
+		}
+	},
+	nFe_ne(0, 0.002) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.nFe_ne(v);
+		}
+	},
+	nO_ne(0, 0.01) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.nO_ne(v);
+		}
+	},
+	nBe_ne(0, 0.05) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.nBe_ne(v);
+		}
+	},
+	nAr_ne(0, 0.005) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.nAr_ne(v);
+		}
+	},
+	// model coefficients: plant efficiencies, IPB98(y,2) exponents
+	F_plant(0.3, 0.5) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.F_plant(v);
+		}
+	},
+	F_aux(2, 4) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.F_aux(v);
+		}
+	},
+	tau98_P(-0.79, -0.59) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.tau98_P(v);
+		}
+	},
+	tau98_n(0.31, 0.51) {
+		void apply(DesignPoint.Builder b, double v) {
+			b.tau98_n(v);
+		}
+	};
+
+	public final double min, max;
+
+	SweepParameter(double min, double max) {
+		this.min = min;
+		this.max = max;
+	}
+
+	abstract void apply(DesignPoint.Builder b, double v);
+}
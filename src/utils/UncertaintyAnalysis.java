@@ -0,0 +1,215 @@
+//=============================================================================
+// Title:        UncertaintyAnalysis.java
+// Description:  Monte Carlo propagation of uncertain model coefficients (plant
+//               efficiencies F_plant / F_aux, h_mult, Troy_c, the IPB98(y,2)
+//               exponents, impurity fractions): every sample draws them from
+//               their Distributions, solves the design and adds the result
+//               columns to QuantileDigests, so no sample is kept. Sample ranges
+//               are split on a ForkJoinPool, each half with its own
+//               SplittableRandom split off in a fixed order: a seed gives the
+//               same result on any number of threads.
+//=============================================================================
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+public class UncertaintyAnalysis {
+
+	// samples one task draws before it stops splitting
+	static final long GRAIN = 1024;
+
+	// distribution of one coefficient
+	public interface Distribution {
+		double sample(SplittableRandom random);
+
+		static Distribution fixed(double v) {
+			return r -> v;
+		}
+
+		static Distribution uniform(double lo, double hi) {
+			return r -> lo + (hi - lo) * r.nextDouble();
+		}
+
+		// normal, redrawn outside lo..hi
+		static Distribution normal(double mean, double sd, double lo, double hi) {
+			return r -> {
+				while (true) {
+					double v = mean + sd * gaussian(r);
+					if (v >= lo && v <= hi) {
+						return v;
+					}
+				}
+			};
+		}
+
+		static Distribution normal(double mean, double sd) {
+			return r -> mean + sd * gaussian(r);
+		}
+
+		// lognormal with median m and factor f between the median and one sigma
+		static Distribution logNormal(double m, double f) {
+			return r -> m * Math.exp(Math.log(f) * gaussian(r));
+		}
+
+		static Distribution triangular(double lo, double mode, double hi) {
+			double c = (mode - lo) / (hi - lo);
+			return r -> {
+				double u = r.nextDouble();
+				return u < c ? lo + Math.sqrt(u * (hi - lo) * (mode - lo))
+						: hi - Math.sqrt((1 - u) * (hi - lo) * (hi - mode));
+			};
+		}
+	}
+
+	// standard normal (Marsaglia polar method)
+	static double gaussian(SplittableRandom r) {
+		double u, v, s;
+		do {
+			u = 2 * r.nextDouble() - 1;
+			v = 2 * r.nextDouble() - 1;
+			s = u * u + v * v;
+		} while (s >= 1 || s == 0);
+		return u * Math.sqrt(-2 * Math.log(s) / s);
+	}
+
+	public static final class Result {
+		public final long samples;
+		// samples whose balance converged (the digests hold only these)
+		public final long converged;
+		// converged samples within the plasma limits (DesignOptimizer.violation() == 0)
+		public final long feasible;
+		private final Map<ResultColumn, QuantileDigest> digests;
+
+		Result(long samples, long converged, long feasible, Map<ResultColumn, QuantileDigest> digests) {
+			this.samples = samples;
+			this.converged = converged;
+			this.feasible = feasible;
+			this.digests = digests;
+		}
+
+		public QuantileDigest digest(ResultColumn column) {
+			QuantileDigest d = digests.get(column);
+			if (d == null) {
+				throw new IllegalArgumentException("column not summarized: " + column);
+			}
+			return d;
+		}
+
+		public double quantile(ResultColumn column, double q) {
+			return digest(column).quantile(q);
+		}
+
+		// chance a sample settles within the plasma limits
+		public double feasibility() {
+			return samples == 0 ? Double.NaN : (double) feasible / samples;
+		}
+	}
+
+	// net electric power, gain and the Greenwald / Troyon ratios (margin = 1 - ratio)
+	public static final Set<ResultColumn> DEFAULT_COLUMNS = EnumSet.of(ResultColumn.P_e, ResultColumn.Q,
+			ResultColumn.n20_n20_gw, ResultColumn.n20_n20_bet);
+
+	private final DesignPoint base;
+	private final Function<DesignPoint, SteadyState> solver;
+	private final Map<SweepParameter, Distribution> inputs = new EnumMap<SweepParameter, Distribution>(
+			SweepParameter.class);
+	private final Set<ResultColumn> columns;
+
+	public UncertaintyAnalysis(DesignPoint base, Function<DesignPoint, SteadyState> solver) {
+		this(base, solver, DEFAULT_COLUMNS);
+	}
+
+	// solver is called from many threads at once
+	public UncertaintyAnalysis(DesignPoint base, Function<DesignPoint, SteadyState> solver,
+			Set<ResultColumn> columns) {
+		this.base = base;
+		this.solver = solver;
+		this.columns = EnumSet.copyOf(columns);
+	}
+
+	// draw parameter from d in every sample (the base value otherwise)
+	public UncertaintyAnalysis vary(SweepParameter parameter, Distribution d) {
+		inputs.put(parameter, d);
+		return this;
+	}
+
+	public Result run(long samples, long seed) {
+		return run(ForkJoinPool.commonPool(), samples, seed);
+	}
+
+	public Result run(ForkJoinPool pool, long samples, long seed) {
+		Partial p = pool.invoke(new Draw(0, samples, new SplittableRandom(seed)));
+		return new Result(samples, p.converged, p.feasible, p.digests);
+	}
+
+	// digests and counts of a sample range
+	private final class Partial {
+		final Map<ResultColumn, QuantileDigest> digests = new EnumMap<ResultColumn, QuantileDigest>(
+				ResultColumn.class);
+		long converged, feasible;
+
+		Partial() {
+			for (ResultColumn c : columns) {
+				digests.put(c, new QuantileDigest());
+			}
+		}
+
+		Partial add(Partial o) {
+			for (Map.Entry<ResultColumn, QuantileDigest> e : digests.entrySet()) {
+				e.getValue().add(o.digests.get(e.getKey()));
+			}
+			converged += o.converged;
+			feasible += o.feasible;
+			return this;
+		}
+	}
+
+	private final class Draw extends RecursiveTask<Partial> {
+		private static final long serialVersionUID = 1L;
+		private final long lo, hi;
+		private final SplittableRandom random;
+
+		Draw(long lo, long hi, SplittableRandom random) {
+			this.lo = lo;
+			this.hi = hi;
+			this.random = random;
+		}
+
+		@Override
+		protected Partial compute() {
+			if (hi - lo > GRAIN) {
+				long mid = (lo + hi) >>> 1;
+				// split before either half draws, so the streams do not depend on timing
+				Draw right = new Draw(mid, hi, random.split());
+				Draw left = new Draw(lo, mid, random);
+				right.fork();
+				return left.compute().add(right.join());
+			}
+			Partial p = new Partial();
+			DesignPoint.Builder b = base.toBuilder();
+			for (long i = lo; i < hi; i++) {
+				for (Map.Entry<SweepParameter, Distribution> e : inputs.entrySet()) {
+					e.getKey().apply(b, e.getValue().sample(random));
+				}
+				SteadyState s = solver.apply(b.build());
+				if (!s.converged) {
+					continue;
+				}
+				p.converged++;
+				if (DesignOptimizer.violation(s) == 0) {
+					p.feasible++;
+				}
+				for (Map.Entry<ResultColumn, QuantileDigest> e : p.digests.entrySet()) {
+					e.getValue().add(e.getKey().value(i, s));
+				}
+			}
+			return p;
+		}
+	}
+}
@@ -0,0 +1,175 @@
+//=============================================================================
+// Title:        VectorEngine.java
+// Description:  Opt-in batch engine for sweeps: the forward Euler run() loop of
+//               many design points at once, one point per DoubleVector lane.
+//               The F_alp branches and the collapse clamps are masked blends;
+//               a lane that settles is refilled with the next point, so lanes
+//               never idle while points are left. Line radiation, when a
+//               point has cooling rates, is a scalar table lookup per lane.
+//               Needs the incubating Vector API: --add-modules jdk.incubator.vector
+//=============================================================================
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+public class VectorEngine {
+
+	static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	private final PlasmaEngine engine;
+
+	public VectorEngine() {
+		this(new PlasmaEngine());
+	}
+
+	// engine evaluates the final state of every point
+	public VectorEngine(PlasmaEngine engine) {
+		this.engine = engine;
+	}
+
+	// points solved side by side
+	public int lanes() {
+		return SPECIES.length();
+	}
+
+	public SteadyState[] solve(DesignPoint[] points) {
+		return solve(points, PlasmaEngine.TOL, PlasmaEngine.MAX_STEPS);
+	}
+
+	// PlasmaEngine.solve (Euler) of every point from its initial conditions
+	public SteadyState[] solve(DesignPoint[] points, double tol, int maxSteps) {
+		int L = SPECIES.length();
+		SteadyState[] out = new SteadyState[points.length];
+		// per lane: point index (-1 empty), state, step count and design factors
+		int[] at = new int[L];
+		double[] W = new double[L], n = new double[L], itt = new double[L];
+		double[] T10f = new double[L], Pfusf = new double[L], Pbremf = new double[L], tauf = new double[L];
+		double[] P_in = new double[L], n_in = new double[L], W_o = new double[L], n_o = new double[L];
+		double[] aP = new double[L], an = new double[L];
+		// line radiation of every lane, only filled when some point radiates
+		double[] T10l = new double[L], Pline = new double[L];
+		boolean radiating = false;
+		for (DesignPoint p : points) {
+			radiating |= p.radiation != null;
+		}
+		int next = 0, busy = 0;
+		for (int l = 0; l < L; l++) {
+			at[l] = -1;
+			if (next < points.length) {
+				load(points[next], next, l, at, W, n, itt, T10f, Pfusf, Pbremf, tauf, P_in, n_in, W_o, n_o, aP, an);
+				next++;
+				busy++;
+			} else {
+				idle(l, W, n, T10f, Pfusf, Pbremf, tauf, P_in, n_in, W_o, n_o, aP, an);
+			}
+		}
+		double T10c = DesignPoint.T10c, dt = DesignPoint.dt;
+		double fMax = 4 * 1.5 * Math.sqrt(1.5);
+		while (busy > 0) {
+			DoubleVector w = DoubleVector.fromArray(SPECIES, W, 0);
+			DoubleVector d = DoubleVector.fromArray(SPECIES, n, 0);
+			DoubleVector pin = DoubleVector.fromArray(SPECIES, P_in, 0);
+			DoubleVector nin = DoubleVector.fromArray(SPECIES, n_in, 0);
+			// PlasmaState.rates on every lane
+			DoubleVector T10 = w.mul(DoubleVector.fromArray(SPECIES, T10f, 0)).div(d);
+			DoubleVector x = T10.div(T10c), h = T10.div(2 * T10c);
+			DoubleVector F = DoubleVector.broadcast(SPECIES, fMax);
+			F = F.blend(h.mul(h.sqrt()).mul(4), T10.lt(3 * T10c));
+			F = F.blend(x.mul(x), T10.lt(2 * T10c));
+			F = F.blend(x.mul(x).mul(x), T10.lt(T10c));
+			DoubleVector dd = d.mul(d);
+			DoubleVector Palp = DoubleVector.fromArray(SPECIES, Pfusf, 0).mul(dd).mul(F).mul(3.5 / 17.6);
+			DoubleVector Pgain = pin.add(Palp);
+			DoubleVector Pbrem = DoubleVector.fromArray(SPECIES, Pbremf, 0).mul(dd).mul(T10.sqrt());
+			DoubleVector Pnet = Pgain.sub(Pbrem);
+			if (radiating) {
+				T10.intoArray(T10l, 0);
+				for (int l = 0; l < L; l++) {
+					Pline[l] = at[l] < 0 ? 0 : PlasmaState.Pline(points[at[l]], n[l], Math.sqrt(T10l[l]));
+				}
+				Pnet = Pnet.sub(DoubleVector.fromArray(SPECIES, Pline, 0));
+			}
+			DoubleVector Ptrans = Pnet.max(Pgain.mul(0.5));
+			DoubleVector Conf_t = DoubleVector.fromArray(SPECIES, tauf, 0).mul(Ptrans.lanewise(VectorOperators.LOG)
+					.mul(DoubleVector.fromArray(SPECIES, aP, 0))
+					.add(d.lanewise(VectorOperators.LOG).mul(DoubleVector.fromArray(SPECIES, an, 0)))
+					.lanewise(VectorOperators.EXP));
+			DoubleVector dW = Pgain.sub(w.div(Conf_t));
+			DoubleVector dn = nin.sub(d.div(Conf_t));
+			// PlasmaEngine.isSteady
+			VectorMask<Double> steady = dW.abs().compare(VectorOperators.LE, Pgain.abs().mul(tol))
+					.and(dn.abs().compare(VectorOperators.LE, nin.mul(tol)));
+			DoubleVector steps = DoubleVector.fromArray(SPECIES, itt, 0);
+			VectorMask<Double> done = steady.or(steps.compare(VectorOperators.GE, maxSteps));
+			// EulerIntegrator.step with its reset on collapse
+			DoubleVector nNew = d.add(dn.mul(dt));
+			DoubleVector no = DoubleVector.fromArray(SPECIES, n_o, 0);
+			nNew = nNew.blend(no, nNew.compare(VectorOperators.LE, no.mul(0.001)));
+			DoubleVector wNew = w.add(dW.mul(dt));
+			DoubleVector wo = DoubleVector.fromArray(SPECIES, W_o, 0);
+			wNew = wNew.blend(wo, wNew.compare(VectorOperators.LE, wo.mul(0.001)));
+			w.blend(wNew, done.not()).intoArray(W, 0);
+			d.blend(nNew, done.not()).intoArray(n, 0);
+			steps.blend(steps.add(1), done.not()).intoArray(itt, 0);
+			if (done.anyTrue()) {
+				for (int l = 0; l < L; l++) {
+					if (at[l] < 0 || !done.laneIsSet(l)) {
+						continue;
+					}
+					DesignPoint p = points[at[l]];
+					PlasmaState s = engine.evaluate(p, W[l], n[l], itt[l] * dt, dt);
+					out[at[l]] = new SteadyState(p, s, (int) itt[l], steady.laneIsSet(l));
+					at[l] = -1;
+					busy--;
+					if (next < points.length) {
+						load(points[next], next, l, at, W, n, itt, T10f, Pfusf, Pbremf, tauf, P_in, n_in, W_o, n_o, aP,
+								an);
+						next++;
+						busy++;
+					} else {
+						idle(l, W, n, T10f, Pfusf, Pbremf, tauf, P_in, n_in, W_o, n_o, aP, an);
+					}
+				}
+			}
+		}
+		return out;
+	}
+
+	private static void load(DesignPoint p, int index, int l, int[] at, double[] W, double[] n, double[] itt,
+			double[] T10f, double[] Pfusf, double[] Pbremf, double[] tauf, double[] P_in, double[] n_in, double[] W_o,
+			double[] n_o, double[] aP, double[] an) {
+		at[l] = index;
+		W[l] = p.W_MJ_o;
+		n[l] = p.n20_o;
+		itt[l] = 0;
+		T10f[l] = p.T10_fac;
+		Pfusf[l] = p.Pfus_fac * p.Vol;
+		Pbremf[l] = p.Pbrem_fac;
+		tauf[l] = p.H_fac / 2.0 * p.tau98_Bfac;
+		P_in[l] = p.Pw_in_MWo;
+		n_in[l] = p.mdot_in * p.n_in_fac;
+		W_o[l] = p.W_MJ_o;
+		n_o[l] = p.n20_o;
+		aP[l] = p.tau98_P;
+		an[l] = p.tau98_n;
+	}
+
+	// an empty lane: a settled dummy state that is never reported
+	private static void idle(int l, double[] W, double[] n, double[] T10f, double[] Pfusf, double[] Pbremf,
+			double[] tauf, double[] P_in, double[] n_in, double[] W_o, double[] n_o, double[] aP, double[] an) {
+		W[l] = 1;
+		n[l] = 1;
+		T10f[l] = 1;
+		Pfusf[l] = 0;
+		Pbremf[l] = 0;
+		tauf[l] = 1;
+		P_in[l] = 1;
+		n_in[l] = 1;
+		W_o[l] = 1;
+		n_o[l] = 1;
+		aP[l] = DesignPoint.tau98_Po;
+		an[l] = DesignPoint.tau98_no;
+	}
+}